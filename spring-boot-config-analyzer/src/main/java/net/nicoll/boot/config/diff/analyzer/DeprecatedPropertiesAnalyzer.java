@@ -25,9 +25,11 @@ import net.nicoll.boot.config.diff.ConfigDiffEntry;
 import net.nicoll.boot.config.diff.ConfigDiffGenerator;
 import net.nicoll.boot.config.diff.ConfigDiffResult;
 import net.nicoll.boot.config.diff.ConfigDiffType;
-import net.nicoll.boot.config.diff.SentenceExtractor;
 import net.nicoll.boot.config.loader.AetherDependencyResolver;
 import net.nicoll.boot.config.loader.ConfigurationMetadataLoader;
+import net.nicoll.boot.config.loader.MetadataRepositoryCache;
+import net.nicoll.boot.config.loader.MetadataSnapshotCache;
+import net.nicoll.boot.config.loader.SentenceExtractor;
 
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
@@ -46,8 +48,10 @@ public class DeprecatedPropertiesAnalyzer {
 		String to = "3.0.0-SNAPSHOT";
 
 		AetherDependencyResolver dependencyResolver = AetherDependencyResolver.withAllRepositories();
-		ConfigDiffGenerator configDiffGenerator = new ConfigDiffGenerator(dependencyResolver);
 		ConfigurationMetadataLoader loader = new ConfigurationMetadataLoader(dependencyResolver);
+		loader.setSnapshotCache(MetadataSnapshotCache.withDefaultLocation());
+		loader.setRepositoryCache(new MetadataRepositoryCache());
+		ConfigDiffGenerator configDiffGenerator = new ConfigDiffGenerator(loader);
 		ConfigDiffResult diff = configDiffGenerator.generateDiff(from, to);
 		DeprecatedPropertiesReporter reporter = new DeprecatedPropertiesReporter(diff, loader.loadRepository(to));
 		System.out.println(reporter.getReport());
@@ -23,6 +23,7 @@ import java.util.List;
 
 import net.nicoll.boot.config.loader.AetherDependencyResolver;
 import net.nicoll.boot.config.loader.ConfigurationMetadataLoader;
+import net.nicoll.boot.config.loader.MetadataSnapshotCache;
 import net.nicoll.boot.metadata.MetadataUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -95,6 +96,7 @@ public class EnumDefaultValueAnalyzer {
 	public static void main(String[] args) throws Exception {
 		ConfigurationMetadataLoader loader = new ConfigurationMetadataLoader(
 				AetherDependencyResolver.withAllRepositories());
+		loader.setSnapshotCache(MetadataSnapshotCache.withDefaultLocation());
 		ConfigurationMetadataRepository repo = loader.loadRepository("3.0.0-SNAPSHOT");
 		List<ConfigurationMetadataGroup> groups = MetadataUtils.sortGroups(repo.getAllGroups().values());
 		List<ConfigurationMetadataProperty> matchingProperties = new ArrayList<>();
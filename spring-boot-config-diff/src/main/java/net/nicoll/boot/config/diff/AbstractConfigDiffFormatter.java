@@ -28,6 +28,46 @@ import org.springframework.boot.configurationmetadata.ConfigurationMetadataPrope
 
 public abstract class AbstractConfigDiffFormatter extends AbstractMetadataFormatter implements ConfigDiffFormatter {
 
+	/**
+	 * Return the groups of the specified {@link ConfigDiffType}, sorted by the id of the
+	 * left or right side. Entries of a {@linkplain ConfigDiffResult#isSorted() sorted}
+	 * result are returned as is.
+	 * @param result the diff result
+	 * @param type the type of the entries
+	 * @param useLeft whether the left side should be used to sort
+	 * @return the sorted groups
+	 */
+	protected List<ConfigDiffEntry<ConfigurationMetadataGroup>> sortGroups(ConfigDiffResult result, ConfigDiffType type,
+			boolean useLeft) {
+		List<ConfigDiffEntry<ConfigurationMetadataGroup>> groups = result.getGroupsDiffFor(type);
+		return (result.isSorted() ? groups : sortGroups(groups, useLeft));
+	}
+
+	/**
+	 * Return the properties of the specified {@link ConfigDiffType}, sorted by the id of
+	 * the left or right side. Entries of a {@linkplain ConfigDiffResult#isSorted()
+	 * sorted} result are returned as is.
+	 * @param result the diff result
+	 * @param type the type of the entries
+	 * @param useLeft whether the left side should be used to sort, or {@code null} to use
+	 * whichever side is available
+	 * @return the sorted properties
+	 */
+	protected List<ConfigDiffEntry<ConfigurationMetadataProperty>> sortProperties(ConfigDiffResult result,
+			ConfigDiffType type, Boolean useLeft) {
+		List<ConfigDiffEntry<ConfigurationMetadataProperty>> properties = result.getPropertiesDiffFor(type);
+		return (result.isSorted() ? properties : sortProperties(properties, useLeft));
+	}
+
+	/**
+	 * Return the confidence of a {@link ConfigDiffType#MOVE} entry as a percentage.
+	 * @param entry the moved entry
+	 * @return the confidence, for instance {@code 87%}
+	 */
+	protected String formatConfidence(ConfigDiffEntry<?> entry) {
+		return Math.round(entry.confidence() * 100) + "%";
+	}
+
 	protected List<ConfigDiffEntry<ConfigurationMetadataGroup>> sortGroups(
 			List<ConfigDiffEntry<ConfigurationMetadataGroup>> groups, final boolean useLeft) {
 		List<ConfigDiffEntry<ConfigurationMetadataGroup>> result = new ArrayList<>(groups);
@@ -16,10 +16,13 @@
 
 package net.nicoll.boot.config.diff;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import net.nicoll.boot.config.loader.SentenceExtractor;
 import net.nicoll.boot.metadata.ConsoleMetadataFormatter;
 
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
@@ -33,42 +36,60 @@ import org.springframework.util.ObjectUtils;
  */
 public class AsciiDocConfigDiffFormatter extends AbstractConfigDiffFormatter {
 
+	private static final String TABLE_DELIMITER = "|======================" + NEW_LINE;
+
+	private static final String DEPRECATED_HEADER = "|Key  |Replacement |Reason" + NEW_LINE;
+
+	private static final String MOVED_HEADER = "|Key  |New key |Confidence" + NEW_LINE;
+
+	private static final String REGULAR_HEADER = "|Key  |Default value |Description" + NEW_LINE;
+
+	private static final String NONE = "None." + NEW_LINE;
+
 	@Override
-	public String formatDiff(ConfigDiffResult result) {
-		StringBuilder out = new StringBuilder();
-		out.append(String.format("Configuration properties change between `%s` and " + "`%s`%n",
-				result.getLeftVersion(), result.getRightVersion()));
-		out.append(System.lineSeparator());
-		out.append(String.format("== Deprecated in `%s`%n", result.getRightVersion()));
+	public void formatDiff(ConfigDiffResult result, Writer out) throws IOException {
+		out.append("Configuration properties change between `")
+			.append(result.getLeftVersion())
+			.append("` and `")
+			.append(result.getRightVersion())
+			.append("`")
+			.append(NEW_LINE);
+		out.append(NEW_LINE);
+		appendSection(out, "== Deprecated in `", result);
 		appendDeprecatedProperties(out, result);
-		out.append(System.lineSeparator());
-		out.append(String.format("== New in `%s`%n", result.getRightVersion()));
+		out.append(NEW_LINE);
+		appendSection(out, "== New in `", result);
 		appendAddedProperties(out, result);
-		out.append(System.lineSeparator());
-		out.append(String.format("== Removed in `%s`%n", result.getRightVersion()));
+		out.append(NEW_LINE);
+		appendSection(out, "== Removed in `", result);
 		appendRemovedProperties(out, result);
-		return out.toString();
+		out.append(NEW_LINE);
+		appendSection(out, "== Moved in `", result);
+		appendMovedProperties(out, result);
+	}
+
+	private void appendSection(Writer out, String title, ConfigDiffResult result) throws IOException {
+		out.append(title).append(result.getRightVersion()).append("`").append(NEW_LINE);
 	}
 
-	private void appendDeprecatedProperties(StringBuilder out, ConfigDiffResult result) {
-		List<ConfigDiffEntry<ConfigurationMetadataProperty>> properties = sortProperties(
-				result.getPropertiesDiffFor(ConfigDiffType.DEPRECATE), false)
+	private void appendDeprecatedProperties(Writer out, ConfigDiffResult result) throws IOException {
+		List<ConfigDiffEntry<ConfigurationMetadataProperty>> properties = sortProperties(result,
+				ConfigDiffType.DEPRECATE, false)
 			.stream()
 			.filter(this::isDeprecatedInRelease)
 			.collect(Collectors.toList());
 		if (ObjectUtils.isEmpty(properties)) {
-			out.append(String.format("None.%n"));
+			out.append(NONE);
 		}
 		else {
-			out.append(String.format("|======================%n"));
-			out.append(String.format("|Key  |Replacement |Reason%n"));
-			properties.forEach(diff -> {
-				ConfigurationMetadataProperty property = diff.right();
-				appendDeprecatedProperty(out, property);
-			});
-			out.append(String.format("|======================%n"));
+			out.append(TABLE_DELIMITER);
+			out.append(DEPRECATED_HEADER);
+			for (ConfigDiffEntry<ConfigurationMetadataProperty> diff : properties) {
+				appendDeprecatedProperty(out, diff.right());
+			}
+			out.append(TABLE_DELIMITER);
 		}
-		out.append(String.format("%n%n"));
+		out.append(NEW_LINE).append(NEW_LINE);
 	}
 
 	private boolean isDeprecatedInRelease(ConfigDiffEntry<ConfigurationMetadataProperty> diff) {
@@ -76,38 +97,62 @@ public class AsciiDocConfigDiffFormatter extends AbstractConfigDiffFormatter {
 				&& Deprecation.Level.ERROR != diff.right().getDeprecation().getLevel();
 	}
 
-	private void appendAddedProperties(StringBuilder out, ConfigDiffResult result) {
-		List<ConfigDiffEntry<ConfigurationMetadataProperty>> properties = sortProperties(
-				result.getPropertiesDiffFor(ConfigDiffType.ADD), false);
+	private void appendAddedProperties(Writer out, ConfigDiffResult result) throws IOException {
+		List<ConfigDiffEntry<ConfigurationMetadataProperty>> properties = sortProperties(result, ConfigDiffType.ADD,
+				false);
 		if (ObjectUtils.isEmpty(properties)) {
-			out.append(String.format("None.%n"));
+			out.append(NONE);
 		}
 		else {
-			out.append(String.format("|======================%n"));
-			out.append(String.format("|Key  |Default value |Description%n"));
-			properties.forEach(diff -> appendRegularProperty(out, diff.right()));
-			out.append(String.format("|======================%n"));
+			out.append(TABLE_DELIMITER);
+			out.append(REGULAR_HEADER);
+			for (ConfigDiffEntry<ConfigurationMetadataProperty> diff : properties) {
+				appendRegularProperty(out, diff.right());
+			}
+			out.append(TABLE_DELIMITER);
 		}
-		out.append(String.format("%n%n"));
+		out.append(NEW_LINE).append(NEW_LINE);
 	}
 
-	private void appendRemovedProperties(StringBuilder out, ConfigDiffResult result) {
+	private void appendRemovedProperties(Writer out, ConfigDiffResult result) throws IOException {
 		List<ConfigDiffEntry<ConfigurationMetadataProperty>> properties = getRemovedProperties(result);
 		if (ObjectUtils.isEmpty(properties)) {
-			out.append(String.format("None.%n"));
+			out.append(NONE);
 		}
 		else {
-			out.append(String.format("|======================%n"));
-			out.append(String.format("|Key  |Replacement |Reason%n"));
-			properties.forEach(diff -> {
+			out.append(TABLE_DELIMITER);
+			out.append(DEPRECATED_HEADER);
+			for (ConfigDiffEntry<ConfigurationMetadataProperty> diff : properties) {
 				if (diff.right() != null) {
 					appendDeprecatedProperty(out, diff.right());
 				}
 				else {
 					appendDeprecatedProperty(out, diff.left());
 				}
-			});
-			out.append(String.format("|======================%n"));
+			}
+			out.append(TABLE_DELIMITER);
+		}
+	}
+
+	private void appendMovedProperties(Writer out, ConfigDiffResult result) throws IOException {
+		List<ConfigDiffEntry<ConfigurationMetadataProperty>> properties = sortProperties(result, ConfigDiffType.MOVE,
+				true);
+		if (ObjectUtils.isEmpty(properties)) {
+			out.append(NONE);
+		}
+		else {
+			out.append(TABLE_DELIMITER);
+			out.append(MOVED_HEADER);
+			for (ConfigDiffEntry<ConfigurationMetadataProperty> diff : properties) {
+				out.append("|`")
+					.append(diff.left().getId())
+					.append("` |`")
+					.append(diff.right().getId())
+					.append("` |")
+					.append(formatConfidence(diff))
+					.append(NEW_LINE);
+			}
+			out.append(TABLE_DELIMITER);
 		}
 	}
 
@@ -121,7 +166,7 @@ public class AsciiDocConfigDiffFormatter extends AbstractConfigDiffFormatter {
 		return sortProperties(properties, null);
 	}
 
-	private void appendRegularProperty(StringBuilder out, ConfigurationMetadataProperty property) {
+	private void appendRegularProperty(Writer out, ConfigurationMetadataProperty property) throws IOException {
 		out.append("|`").append(property.getId()).append("` |");
 		if (property.getDefaultValue() != null) {
 			out.append("`")
@@ -132,10 +177,10 @@ public class AsciiDocConfigDiffFormatter extends AbstractConfigDiffFormatter {
 		if (property.getDescription() != null) {
 			out.append(property.getShortDescription());
 		}
-		out.append(System.lineSeparator());
+		out.append(NEW_LINE);
 	}
 
-	private void appendDeprecatedProperty(StringBuilder out, ConfigurationMetadataProperty property) {
+	private void appendDeprecatedProperty(Writer out, ConfigurationMetadataProperty property) throws IOException {
 		Deprecation deprecation = (property.getDeprecation() != null) ? property.getDeprecation() : new Deprecation();
 		out.append("|`").append(property.getId()).append("` |");
 		if (deprecation.getReplacement() != null) {
@@ -145,7 +190,7 @@ public class AsciiDocConfigDiffFormatter extends AbstractConfigDiffFormatter {
 		if (deprecation.getReason() != null) {
 			out.append(SentenceExtractor.getFirstSentence(deprecation.getReason()));
 		}
-		out.append(System.lineSeparator());
+		out.append(NEW_LINE);
 	}
 
 }
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.nicoll.boot.config.diff;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.stream.Stream;
+
+import net.nicoll.boot.config.loader.ConfigurationMetadataLoader;
+import net.nicoll.boot.config.loader.MetadataSnapshotWriter;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A persistent cache of {@link ConfigDiffResult diff results}, keyed by the two versions,
+ * the {@link ConfigurationMetadataLoader#getChecksum(String) checksum} of their artifacts
+ * and the configuration of the generator that computed the diff. A hit skips the loading
+ * of both repositories and the diff itself.
+ * <p>
+ * Only the latest result of a given pair of versions and configuration is kept: storing a
+ * result for different checksums, typically a new build of a {@code SNAPSHOT} version,
+ * replaces the previous one.
+ *
+ * @author Stephane Nicoll
+ */
+public class ConfigDiffCache {
+
+	private static final Log logger = LogFactory.getLog(ConfigDiffCache.class);
+
+	private static final int MAGIC = 0x43444946;
+
+	private static final String DIFF_EXTENSION = ".diff";
+
+	private final Path directory;
+
+	public ConfigDiffCache(Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Create a cache in the {@code config-diff-cache} directory of the local maven home.
+	 * @return a cache in the default location
+	 */
+	public static ConfigDiffCache withDefaultLocation() {
+		return new ConfigDiffCache(Path.of(System.getProperty("user.home"), ".m2", "config-diff-cache"));
+	}
+
+	/**
+	 * Return the cached diff matching the specified key.
+	 * @param key the key of the diff
+	 * @return the cached result, or {@code null} if no result matches the key
+	 * @throws IOException if an invalid cached result cannot be deleted
+	 */
+	public ConfigDiffResult get(Key key) throws IOException {
+		Path file = getFile(key);
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != ConfigDiffResultWriter.FORMAT_VERSION
+					|| in.readInt() != MetadataSnapshotWriter.FORMAT_VERSION) {
+				logger.info("Ignoring diff with unsupported format for " + key.describeVersions());
+				return null;
+			}
+			if (!in.readUTF().equals(key.configuration())) {
+				logger.info("Ignoring diff with a different configuration for " + key.describeVersions());
+				return null;
+			}
+			return new ConfigDiffResultReader(in).readResult();
+		}
+		catch (IOException | RuntimeException ex) {
+			logger.warn("Ignoring invalid diff for " + key.describeVersions(), ex);
+			Files.deleteIfExists(file);
+			return null;
+		}
+	}
+
+	/**
+	 * Store the diff matching the specified key, replacing any result that was computed
+	 * for different artifacts with the same configuration.
+	 * @param key the key of the diff
+	 * @param result the result to store
+	 * @throws IOException if the result cannot be written
+	 */
+	public void put(Key key, ConfigDiffResult result) throws IOException {
+		if (!key.leftVersion().equals(result.getLeftVersion())
+				|| !key.rightVersion().equals(result.getRightVersion())) {
+			throw new IllegalArgumentException("Result for " + result.getLeftVersion() + " -> "
+					+ result.getRightVersion() + " does not match key for " + key.describeVersions());
+		}
+		Path file = getFile(key);
+		Path configurationDirectory = file.getParent();
+		Files.createDirectories(configurationDirectory);
+		deleteDiffs(configurationDirectory);
+		Path tmp = Files.createTempFile(configurationDirectory, "diff", ".tmp");
+		try {
+			try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+				DataOutputStream data = new DataOutputStream(out);
+				data.writeInt(MAGIC);
+				data.writeInt(ConfigDiffResultWriter.FORMAT_VERSION);
+				data.writeInt(MetadataSnapshotWriter.FORMAT_VERSION);
+				data.writeUTF(key.configuration());
+				new ConfigDiffResultWriter(data).writeResult(result);
+			}
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IllegalArgumentException ex) {
+			logger.info("Not caching diff for " + key.describeVersions() + ": " + ex.getMessage());
+		}
+		finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	private Path getFile(Key key) {
+		return this.directory.resolve(key.leftVersion() + "_" + key.rightVersion())
+			.resolve(Integer.toHexString(key.configuration().hashCode()))
+			.resolve(key.leftChecksum() + "_" + key.rightChecksum() + DIFF_EXTENSION);
+	}
+
+	private void deleteDiffs(Path configurationDirectory) throws IOException {
+		try (Stream<Path> files = Files.list(configurationDirectory)) {
+			for (Path file : files.filter((f) -> f.toString().endsWith(DIFF_EXTENSION)).toList()) {
+				Files.deleteIfExists(file);
+			}
+		}
+	}
+
+	/**
+	 * The key of a cached diff.
+	 *
+	 * @param leftVersion the left version
+	 * @param leftChecksum the checksum of the artifacts of the left version
+	 * @param rightVersion the right version
+	 * @param rightChecksum the checksum of the artifacts of the right version
+	 * @param configuration a description of the configuration of the generator that
+	 * computed the diff
+	 */
+	public record Key(String leftVersion, String leftChecksum, String rightVersion, String rightChecksum,
+			String configuration) {
+
+		String describeVersions() {
+			return this.leftVersion + " -> " + this.rightVersion;
+		}
+
+	}
+
+}
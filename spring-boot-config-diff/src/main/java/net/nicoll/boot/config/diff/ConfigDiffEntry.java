@@ -16,9 +16,27 @@
 
 package net.nicoll.boot.config.diff;
 
+import java.util.Collections;
+import java.util.Set;
+
 /**
+ * @param <T> the type of the item
+ * @param left the left item or {@code null} if it was added
+ * @param right the right item or {@code null} if it was removed
+ * @param changes the fields that have changed for a {@link ConfigDiffType#MODIFY
+ * modified} or {@link ConfigDiffType#MOVE moved} property, empty otherwise
+ * @param confidence the confidence, between {@code 0} and {@code 1}, that a
+ * {@link ConfigDiffType#MOVE} entry is a rename, {@code 1} for other entries
  * @author Stephane Nicoll
  */
-public record ConfigDiffEntry<T>(T left, T right) {
+public record ConfigDiffEntry<T>(T left, T right, Set<ConfigDiffField> changes, double confidence) {
+
+	public ConfigDiffEntry(T left, T right) {
+		this(left, right, Collections.emptySet());
+	}
+
+	public ConfigDiffEntry(T left, T right, Set<ConfigDiffField> changes) {
+		this(left, right, changes, 1);
+	}
 
 }
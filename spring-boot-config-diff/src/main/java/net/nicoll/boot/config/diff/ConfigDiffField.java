@@ -0,0 +1,101 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.nicoll.boot.config.diff;
+
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+import org.springframework.boot.configurationmetadata.Deprecation;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * The fields of a property that are compared to detect a {@link ConfigDiffType#MODIFY
+ * modification}. Each field is normalized so that insignificant differences, such as the
+ * whitespaces of a description, are ignored.
+ *
+ * @author Stephane Nicoll
+ */
+public enum ConfigDiffField {
+
+	/**
+	 * The type of the property.
+	 */
+	TYPE(ConfigurationMetadataProperty::getType),
+
+	/**
+	 * The default value of the property.
+	 */
+	DEFAULT_VALUE((property) -> (property.getDefaultValue() != null)
+			? ObjectUtils.nullSafeToString(property.getDefaultValue()) : null),
+
+	/**
+	 * The description of the property.
+	 */
+	DESCRIPTION((property) -> normalizeWhitespaces(property.getDescription())),
+
+	/**
+	 * The deprecation of the property: its level, reason and replacement.
+	 */
+	DEPRECATION((property) -> {
+		Deprecation deprecation = property.getDeprecation();
+		return (deprecation != null)
+				? deprecation.getLevel() + "|" + deprecation.getReason() + "|" + deprecation.getReplacement() : null;
+	});
+
+	private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+
+	private final Function<ConfigurationMetadataProperty, String> extractor;
+
+	ConfigDiffField(Function<ConfigurationMetadataProperty, String> extractor) {
+		this.extractor = extractor;
+	}
+
+	/**
+	 * Return the normalized value of this field for the specified property.
+	 * @param property the property
+	 * @return the normalized value or {@code null}
+	 */
+	String getValue(ConfigurationMetadataProperty property) {
+		return this.extractor.apply(property);
+	}
+
+	private static String normalizeWhitespaces(String text) {
+		return StringUtils.hasText(text) ? WHITESPACES.matcher(text.trim()).replaceAll(" ") : null;
+	}
+
+	/**
+	 * Return the fields that differ between the specified properties.
+	 * @param left the left property
+	 * @param right the right property
+	 * @return the fields that have changed, empty if the properties are equal
+	 */
+	static Set<ConfigDiffField> compare(ConfigurationMetadataProperty left, ConfigurationMetadataProperty right) {
+		Set<ConfigDiffField> changes = EnumSet.noneOf(ConfigDiffField.class);
+		for (ConfigDiffField field : values()) {
+			if (!Objects.equals(field.getValue(left), field.getValue(right))) {
+				changes.add(field);
+			}
+		}
+		return changes;
+	}
+
+}
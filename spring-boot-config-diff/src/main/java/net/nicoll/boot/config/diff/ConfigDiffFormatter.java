@@ -17,12 +17,33 @@
 package net.nicoll.boot.config.diff;
 
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 
 /**
  * @author Stephane Nicoll
  */
 public interface ConfigDiffFormatter {
 
-	String formatDiff(ConfigDiffResult result) throws IOException;
+	/**
+	 * Format the specified diff to the specified {@link Writer}. The writer is not closed
+	 * and should be buffered if it targets a file or a stream.
+	 * @param result the diff to format
+	 * @param out the writer to use
+	 * @throws IOException if the output cannot be written
+	 */
+	void formatDiff(ConfigDiffResult result, Writer out) throws IOException;
+
+	/**
+	 * Format the specified diff to a {@link String}.
+	 * @param result the diff to format
+	 * @return the formatted diff
+	 * @throws IOException if the output cannot be written
+	 */
+	default String formatDiff(ConfigDiffResult result) throws IOException {
+		StringWriter out = new StringWriter();
+		formatDiff(result, out);
+		return out.toString();
+	}
 
 }
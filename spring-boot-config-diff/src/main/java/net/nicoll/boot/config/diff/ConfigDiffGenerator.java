@@ -17,9 +17,10 @@
 package net.nicoll.boot.config.diff;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.UncheckedIOException;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import net.nicoll.boot.config.loader.AetherDependencyResolver;
 import net.nicoll.boot.config.loader.ConfigurationMetadataLoader;
@@ -40,7 +41,15 @@ public class ConfigDiffGenerator {
 
 	private final ConfigurationMetadataLoader loader;
 
-	protected ConfigDiffGenerator(ConfigurationMetadataLoader loader) {
+	private boolean retainEquals;
+
+	private RenameDetector renameDetector;
+
+	private ConfigDiffCache diffCache;
+
+	private boolean incremental;
+
+	public ConfigDiffGenerator(ConfigurationMetadataLoader loader) {
 		this.loader = loader;
 	}
 
@@ -48,85 +57,308 @@ public class ConfigDiffGenerator {
 		this(new ConfigurationMetadataLoader(dependencyResolver));
 	}
 
+	/**
+	 * Specify whether {@link ConfigDiffType#EQUALS} entries should be retained in the
+	 * result. By default, only the ids of their items are kept so that the repositories
+	 * that were diffed can be reclaimed once the diff has been computed.
+	 * @param retainEquals whether equal entries should be retained
+	 */
+	public void setRetainEquals(boolean retainEquals) {
+		this.retainEquals = retainEquals;
+	}
+
+	/**
+	 * Set the {@link RenameDetector} to use to classify removed and added properties that
+	 * are likely renames as {@link ConfigDiffType#MOVE}. Moved properties are no longer
+	 * reported as removed and added, formatters list them in a dedicated section. By
+	 * default, no detection happens.
+	 * @param renameDetector the rename detector to use or {@code null}
+	 */
+	public void setRenameDetector(RenameDetector renameDetector) {
+		this.renameDetector = renameDetector;
+	}
+
+	/**
+	 * Set the {@link ConfigDiffCache} to use to avoid loading the repositories and
+	 * computing the diff of two versions whose artifacts have not changed. Results are
+	 * cached per {@linkplain #describeConfiguration() configuration} so that a cache can
+	 * be shared by generators that are configured differently.
+	 * @param diffCache the diff cache to use or {@code null} to always compute the diff
+	 */
+	public void setDiffCache(ConfigDiffCache diffCache) {
+		this.diffCache = diffCache;
+	}
+
+	/**
+	 * Specify whether the diff should be restricted to the artifacts whose metadata have
+	 * changed. When enabled, an artifact with identical metadata in both versions is
+	 * neither parsed nor diffed: the result only describes the changed artifacts and its
+	 * {@link ConfigDiffType#EQUALS} entries do not include the content of unchanged
+	 * artifacts. A group that is contributed by both a changed and an unchanged artifact
+	 * is diffed based on the changed artifact only. The {@link ConfigDiffCache diff
+	 * cache} keeps such results apart from complete ones.
+	 * @param incremental whether to diff the changed artifacts only
+	 * @see ConfigurationMetadataLoader#loadChangedRepositories(String, String)
+	 */
+	public void setIncremental(boolean incremental) {
+		this.incremental = incremental;
+	}
+
 	public ConfigDiffResult generateDiff(String leftVersion, String rightVersion) throws IOException {
-		ConfigurationMetadataRepository left = loader.loadRepository(leftVersion);
-		ConfigurationMetadataRepository right = loader.loadRepository(rightVersion);
+		if (this.diffCache != null) {
+			return generateCachedDiff(leftVersion, rightVersion);
+		}
+		Repositories repositories = loadRepositories(leftVersion, rightVersion);
+		return generateDiff(leftVersion, repositories.left(), rightVersion, repositories.right());
+	}
+
+	private ConfigDiffResult generateCachedDiff(String leftVersion, String rightVersion) throws IOException {
+		CachedDiff cached = lookupCachedDiff(leftVersion, rightVersion);
+		if (cached.result() != null) {
+			return cached.result();
+		}
+		Repositories repositories = loadRepositories(leftVersion, rightVersion);
+		ConfigDiffResult result = generateDiff(leftVersion, repositories.left(), rightVersion, repositories.right());
+		this.diffCache.put(cached.key(), result);
+		return result;
+	}
+
+	private CachedDiff lookupCachedDiff(String leftVersion, String rightVersion) throws IOException {
+		String leftChecksum = this.loader.getChecksum(leftVersion);
+		String rightChecksum = this.loader.getChecksum(rightVersion);
+		ConfigDiffCache.Key key = new ConfigDiffCache.Key(leftVersion, leftChecksum, rightVersion, rightChecksum,
+				describeConfiguration());
+		ConfigDiffResult result = this.diffCache.get(key);
+		if (result != null) {
+			logger.info("Using cached diff for " + leftVersion + " -> " + rightVersion);
+		}
+		return new CachedDiff(key, result);
+	}
+
+	/**
+	 * Describe the configuration of this generator, that is everything besides the
+	 * artifacts of both versions that has an influence on the result of a diff.
+	 * @return a description of the configuration
+	 */
+	protected String describeConfiguration() {
+		return getClass().getName() + "[retainEquals=" + this.retainEquals + ", incremental=" + this.incremental
+				+ ", renameDetector=" + this.renameDetector + "]";
+	}
+
+	/**
+	 * Generate the diff between two versions, notifying the specified listener of each
+	 * entry as it is classified rather than building a {@link ConfigDiffResult}.
+	 * <p>
+	 * Entries are not accumulated by default, but some configurations need to buffer them
+	 * before the listener is notified:
+	 * <ul>
+	 * <li>a {@linkplain #setRenameDetector(RenameDetector) rename detector} holds the
+	 * removed and added properties until the diff completes</li>
+	 * <li>a {@link ParallelConfigDiffGenerator} records every entry of each range and
+	 * replays them in order once all ranges have been classified</li>
+	 * </ul>
+	 * Both repositories are loaded in full regardless of the listener.
+	 * @param leftVersion the left version
+	 * @param rightVersion the right version
+	 * @param listener the listener to notify
+	 * @throws IOException if a repository failed to load
+	 */
+	public void generateDiff(String leftVersion, String rightVersion, ConfigDiffListener listener) throws IOException {
+		Repositories repositories = loadRepositories(leftVersion, rightVersion);
+		generateDiff(leftVersion, repositories.left(), rightVersion, repositories.right(), listener);
+	}
 
-		ConfigDiffResult result = new ConfigDiffResult(leftVersion, rightVersion);
-		diffGroup(result, left, right).diffItem(result, left, right);
+	/**
+	 * Generate the diff between two versions, loading both repositories concurrently. The
+	 * diff is computed as soon as both repositories are available. If a
+	 * {@linkplain #setDiffCache(ConfigDiffCache) diff cache} is set, it is looked up
+	 * first and the computed diff is stored in it.
+	 * @param leftVersion the left version
+	 * @param rightVersion the right version
+	 * @param executor the executor to use to load the repositories
+	 * @return a future completed with the diff, or completed exceptionally if one of the
+	 * repositories failed to load
+	 * @see ConfigurationMetadataLoader#loadRepositoryAsync(String, Executor)
+	 */
+	public CompletableFuture<ConfigDiffResult> generateDiffAsync(String leftVersion, String rightVersion,
+			Executor executor) {
+		if (this.diffCache == null) {
+			return computeDiffAsync(leftVersion, rightVersion, executor);
+		}
+		CompletableFuture<CachedDiff> lookup = new CompletableFuture<>();
+		executor.execute(() -> {
+			try {
+				lookup.complete(lookupCachedDiff(leftVersion, rightVersion));
+			}
+			catch (Throwable ex) {
+				lookup.completeExceptionally(ex);
+			}
+		});
+		return lookup
+			.thenCompose((cached) -> (cached.result() != null) ? CompletableFuture.completedFuture(cached.result())
+					: computeDiffAsync(leftVersion, rightVersion, executor)
+						.thenApply((result) -> putCachedDiff(cached.key(), result)));
+	}
+
+	private CompletableFuture<ConfigDiffResult> computeDiffAsync(String leftVersion, String rightVersion,
+			Executor executor) {
+		if (this.incremental) {
+			return CompletableFuture.supplyAsync(() -> {
+				Repositories repositories = loadRepositoriesUnchecked(leftVersion, rightVersion);
+				return generateDiff(leftVersion, repositories.left(), rightVersion, repositories.right());
+			}, executor);
+		}
+		CompletableFuture<ConfigurationMetadataRepository> left = loader.loadRepositoryAsync(leftVersion, executor);
+		CompletableFuture<ConfigurationMetadataRepository> right = loader.loadRepositoryAsync(rightVersion, executor);
+		return left.thenCombine(right, (leftRepository, rightRepository) -> generateDiff(leftVersion, leftRepository,
+				rightVersion, rightRepository));
+	}
+
+	ConfigDiffResult generateDiff(String leftVersion, ConfigurationMetadataRepository left, String rightVersion,
+			ConfigurationMetadataRepository right) {
+		ConfigDiffResult result = createDiffResult(leftVersion, rightVersion, this.retainEquals);
+		generateDiff(leftVersion, left, rightVersion, right, result.collector());
 		return result;
 	}
 
-	protected ConfigDiffGenerator diffGroup(ConfigDiffResult result, ConfigurationMetadataRepository left,
+	void generateDiff(String leftVersion, ConfigurationMetadataRepository left, String rightVersion,
+			ConfigurationMetadataRepository right, ConfigDiffListener listener) {
+		ConfigDiffListener target = (this.renameDetector != null) ? this.renameDetector.decorate(listener) : listener;
+		target.onStart(leftVersion, rightVersion);
+		diffGroup(target, left, right).diffItem(target, left, right);
+		target.onComplete();
+	}
+
+	private Repositories loadRepositories(String leftVersion, String rightVersion) throws IOException {
+		if (this.incremental) {
+			Map<String, ConfigurationMetadataRepository> repositories = this.loader.loadChangedRepositories(leftVersion,
+					rightVersion);
+			return new Repositories(repositories.get(leftVersion), repositories.get(rightVersion));
+		}
+		return new Repositories(this.loader.loadRepository(leftVersion), this.loader.loadRepository(rightVersion));
+	}
+
+	private ConfigDiffResult putCachedDiff(ConfigDiffCache.Key key, ConfigDiffResult result) {
+		try {
+			this.diffCache.put(key, result);
+			return result;
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(
+					"Failed to cache diff for " + key.leftVersion() + " -> " + key.rightVersion(), ex);
+		}
+	}
+
+	private Repositories loadRepositoriesUnchecked(String leftVersion, String rightVersion) {
+		try {
+			return loadRepositories(leftVersion, rightVersion);
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException("Failed to load repositories for " + leftVersion + " -> " + rightVersion,
+					ex);
+		}
+	}
+
+	/**
+	 * Create the {@link ConfigDiffResult} to populate for the specified versions.
+	 * @param leftVersion the left version
+	 * @param rightVersion the right version
+	 * @param retainEquals whether {@link ConfigDiffType#EQUALS} entries should be
+	 * retained
+	 * @return a new, empty result
+	 */
+	protected ConfigDiffResult createDiffResult(String leftVersion, String rightVersion, boolean retainEquals) {
+		return new ConfigDiffResult(leftVersion, rightVersion, false, retainEquals);
+	}
+
+	protected ConfigDiffGenerator diffGroup(ConfigDiffListener listener, ConfigurationMetadataRepository left,
 			ConfigurationMetadataRepository right) {
-		List<String> matches = new ArrayList<>();
 		Map<String, ConfigurationMetadataGroup> leftGroups = left.getAllGroups();
 		Map<String, ConfigurationMetadataGroup> rightGroups = right.getAllGroups();
 		for (ConfigurationMetadataGroup leftGroup : leftGroups.values()) {
-			String id = leftGroup.getId();
-			ConfigurationMetadataGroup rightGroup = rightGroups.get(id);
-			if (rightGroup == null) {
-				result.register(ConfigDiffType.DELETE, leftGroup, null);
-			}
-			else {
-				matches.add(id);
-				ConfigDiffType diffType = (equals(leftGroup, rightGroup) ? ConfigDiffType.EQUALS
-						: ConfigDiffType.MODIFY);
-				result.register(diffType, leftGroup, rightGroup);
-			}
+			registerGroup(listener, leftGroup, rightGroups.get(leftGroup.getId()));
 		}
 		for (ConfigurationMetadataGroup rightGroup : rightGroups.values()) {
-			if (!matches.contains(rightGroup.getId())) {
-				result.register(ConfigDiffType.ADD, null, rightGroup);
+			if (!leftGroups.containsKey(rightGroup.getId())) {
+				registerGroup(listener, null, rightGroup);
 			}
 		}
 		return this;
 	}
 
-	protected ConfigDiffGenerator diffItem(ConfigDiffResult result, ConfigurationMetadataRepository left,
+	protected ConfigDiffGenerator diffItem(ConfigDiffListener listener, ConfigurationMetadataRepository left,
 			ConfigurationMetadataRepository right) {
-		List<String> matches = new ArrayList<>();
 		Map<String, ConfigurationMetadataProperty> leftProperties = left.getAllProperties();
 		Map<String, ConfigurationMetadataProperty> rightProperties = right.getAllProperties();
 		for (ConfigurationMetadataProperty leftProperty : leftProperties.values()) {
-			String id = leftProperty.getId();
-			ConfigurationMetadataProperty rightProperty = rightProperties.get(id);
-			if (rightProperty == null) {
-				matches.add(id);
-				if (leftProperty.isDeprecated() && leftProperty.getDeprecation().getLevel() == Level.ERROR) {
-					logger.info("Ignoring removal of ERROR deprecated property: " + id);
-				}
-				else {
-					result.register(ConfigDiffType.DELETE, leftProperty, null);
-				}
-			}
-			else if (rightProperty.isDeprecated() && !leftProperty.isDeprecated()) {
-				matches.add(id);
-				result.register(ConfigDiffType.DEPRECATE, leftProperty, rightProperty);
+			registerProperty(listener, leftProperty, rightProperties.get(leftProperty.getId()));
+		}
+		for (ConfigurationMetadataProperty rightProperty : rightProperties.values()) {
+			if (!leftProperties.containsKey(rightProperty.getId())) {
+				registerProperty(listener, null, rightProperty);
 			}
-			else if (leftProperty.isDeprecated() && leftProperty.getDeprecation().getLevel() == Level.WARNING
-					&& rightProperty.isDeprecated() && rightProperty.getDeprecation().getLevel() == Level.ERROR) {
-				matches.add(id);
-				result.register(ConfigDiffType.DELETE, leftProperty, rightProperty);
+		}
+		return this;
+	}
+
+	/**
+	 * Register the diff of a group with the specified id on both sides.
+	 * @param listener the listener to notify
+	 * @param leftGroup the left group or {@code null} if it was added
+	 * @param rightGroup the right group or {@code null} if it was removed
+	 */
+	protected void registerGroup(ConfigDiffListener listener, ConfigurationMetadataGroup leftGroup,
+			ConfigurationMetadataGroup rightGroup) {
+		if (leftGroup == null) {
+			listener.onGroup(ConfigDiffType.ADD, new ConfigDiffEntry<>(null, rightGroup));
+		}
+		else if (rightGroup == null) {
+			listener.onGroup(ConfigDiffType.DELETE, new ConfigDiffEntry<>(leftGroup, null));
+		}
+		else {
+			ConfigDiffType diffType = (equals(leftGroup, rightGroup) ? ConfigDiffType.EQUALS : ConfigDiffType.MODIFY);
+			listener.onGroup(diffType, new ConfigDiffEntry<>(leftGroup, rightGroup));
+		}
+	}
+
+	/**
+	 * Register the diff of a property with the specified id on both sides.
+	 * @param listener the listener to notify
+	 * @param leftProperty the left property or {@code null} if it was added
+	 * @param rightProperty the right property or {@code null} if it was removed
+	 */
+	protected void registerProperty(ConfigDiffListener listener, ConfigurationMetadataProperty leftProperty,
+			ConfigurationMetadataProperty rightProperty) {
+		if (leftProperty == null) {
+			if (rightProperty.isDeprecated()) {
+				logger.info("Ignoring late addition of deprecated property: " + rightProperty.getId());
 			}
 			else {
-				matches.add(id);
-				ConfigDiffType diffType = (equals(leftProperty, rightProperty) ? ConfigDiffType.EQUALS
-						: ConfigDiffType.MODIFY);
-				result.register(diffType, leftProperty, rightProperty);
+				listener.onProperty(ConfigDiffType.ADD, new ConfigDiffEntry<>(null, rightProperty));
 			}
 		}
-		for (ConfigurationMetadataProperty rightProperty : rightProperties.values()) {
-			if (!matches.contains(rightProperty.getId())) {
-				if (rightProperty.isDeprecated()) {
-					logger.info("Ignoring late addition of deprecated property: " + rightProperty.getId());
-				}
-				else {
-					result.register(ConfigDiffType.ADD, null, rightProperty);
-				}
+		else if (rightProperty == null) {
+			if (leftProperty.isDeprecated() && leftProperty.getDeprecation().getLevel() == Level.ERROR) {
+				logger.info("Ignoring removal of ERROR deprecated property: " + leftProperty.getId());
+			}
+			else {
+				listener.onProperty(ConfigDiffType.DELETE, new ConfigDiffEntry<>(leftProperty, null));
 			}
 		}
-		return this;
+		else if (rightProperty.isDeprecated() && !leftProperty.isDeprecated()) {
+			listener.onProperty(ConfigDiffType.DEPRECATE, new ConfigDiffEntry<>(leftProperty, rightProperty));
+		}
+		else if (leftProperty.isDeprecated() && leftProperty.getDeprecation().getLevel() == Level.WARNING
+				&& rightProperty.isDeprecated() && rightProperty.getDeprecation().getLevel() == Level.ERROR) {
+			listener.onProperty(ConfigDiffType.DELETE, new ConfigDiffEntry<>(leftProperty, rightProperty));
+		}
+		else if (PropertyFingerprint.of(leftProperty) == PropertyFingerprint.of(rightProperty)) {
+			listener.onProperty(ConfigDiffType.EQUALS, new ConfigDiffEntry<>(leftProperty, rightProperty));
+		}
+		else {
+			listener.onProperty(ConfigDiffType.MODIFY, new ConfigDiffEntry<>(leftProperty, rightProperty,
+					ConfigDiffField.compare(leftProperty, rightProperty)));
+		}
 	}
 
 	private boolean equals(ConfigurationMetadataGroup left, ConfigurationMetadataGroup right) {
@@ -141,8 +373,18 @@ public class ConfigDiffGenerator {
 		return true;
 	}
 
-	private boolean equals(ConfigurationMetadataProperty left, ConfigurationMetadataProperty right) {
-		return true; // TODO
+	/**
+	 * The repositories of the two versions to diff.
+	 */
+	private record Repositories(ConfigurationMetadataRepository left, ConfigurationMetadataRepository right) {
+
+	}
+
+	/**
+	 * The outcome of a lookup in the diff cache.
+	 */
+	private record CachedDiff(ConfigDiffCache.Key key, ConfigDiffResult result) {
+
 	}
 
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.nicoll.boot.config.diff;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataGroup;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+
+/**
+ * Callback notified of the entries of a diff as they are classified, so that a report can
+ * be written without building a {@link ConfigDiffResult} first.
+ *
+ * @author Stephane Nicoll
+ * @see ConfigDiffGenerator#generateDiff(String, String, ConfigDiffListener)
+ */
+public interface ConfigDiffListener {
+
+	/**
+	 * Invoked before any entry is notified.
+	 * @param leftVersion the left version
+	 * @param rightVersion the right version
+	 */
+	default void onStart(String leftVersion, String rightVersion) {
+	}
+
+	/**
+	 * Invoked for each group, groups being notified before properties.
+	 * @param type the type of the entry
+	 * @param entry the entry
+	 */
+	void onGroup(ConfigDiffType type, ConfigDiffEntry<ConfigurationMetadataGroup> entry);
+
+	/**
+	 * Invoked for each property.
+	 * @param type the type of the entry
+	 * @param entry the entry
+	 */
+	void onProperty(ConfigDiffType type, ConfigDiffEntry<ConfigurationMetadataProperty> entry);
+
+	/**
+	 * Invoked once all entries have been notified.
+	 */
+	default void onComplete() {
+	}
+
+}
@@ -16,15 +16,26 @@
 
 package net.nicoll.boot.config.diff;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataGroup;
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
 
 /**
+ * The result of a diff between two versions.
+ * <p>
+ * When {@code retainEquals} is not set, {@link ConfigDiffType#EQUALS} entries, by far the
+ * most common ones, are only recorded by the id of their item, as both sides of such an
+ * entry have the same id. Entries are materialized from these ids when they are
+ * requested, with an item that only holds the id on both sides, so that the result does
+ * not retain the repositories that were diffed.
+ *
  * @author Stephane Nicoll
  */
 public class ConfigDiffResult {
@@ -33,13 +44,56 @@ public class ConfigDiffResult {
 
 	private final String rightVersion;
 
-	private final MultiValueMap<ConfigDiffType, ConfigDiffEntry<ConfigurationMetadataGroup>> groups = new LinkedMultiValueMap<>();
+	private final Entries<ConfigurationMetadataGroup> groups;
+
+	private final Entries<ConfigurationMetadataProperty> properties;
+
+	private final boolean sorted;
 
-	private final MultiValueMap<ConfigDiffType, ConfigDiffEntry<ConfigurationMetadataProperty>> properties = new LinkedMultiValueMap<>();
+	private final boolean retainEquals;
 
+	/**
+	 * Create a new instance that retains {@link ConfigDiffType#EQUALS} entries.
+	 * @param leftVersion the left version
+	 * @param rightVersion the right version
+	 */
 	public ConfigDiffResult(String leftVersion, String rightVersion) {
+		this(leftVersion, rightVersion, false);
+	}
+
+	/**
+	 * Create a new instance that retains {@link ConfigDiffType#EQUALS} entries.
+	 * @param leftVersion the left version
+	 * @param rightVersion the right version
+	 * @param sorted whether entries are registered in the order of
+	 * {@link net.nicoll.boot.metadata.MetadataUtils#GROUP_COMPARATOR} and
+	 * {@link net.nicoll.boot.metadata.MetadataUtils#PROPERTY_COMPARATOR}
+	 */
+	public ConfigDiffResult(String leftVersion, String rightVersion, boolean sorted) {
+		this(leftVersion, rightVersion, sorted, true);
+	}
+
+	/**
+	 * Create a new instance.
+	 * @param leftVersion the left version
+	 * @param rightVersion the right version
+	 * @param sorted whether entries are registered in the order of
+	 * {@link net.nicoll.boot.metadata.MetadataUtils#GROUP_COMPARATOR} and
+	 * {@link net.nicoll.boot.metadata.MetadataUtils#PROPERTY_COMPARATOR}
+	 * @param retainEquals whether {@link ConfigDiffType#EQUALS} entries should be
+	 * retained rather than recorded by id
+	 */
+	public ConfigDiffResult(String leftVersion, String rightVersion, boolean sorted, boolean retainEquals) {
 		this.leftVersion = leftVersion;
 		this.rightVersion = rightVersion;
+		this.sorted = sorted;
+		this.retainEquals = retainEquals;
+		this.groups = new Entries<>(retainEquals, ConfigurationMetadataGroup::getId, ConfigurationMetadataGroup::new);
+		this.properties = new Entries<>(retainEquals, ConfigurationMetadataProperty::getId, (id) -> {
+			ConfigurationMetadataProperty property = new ConfigurationMetadataProperty();
+			property.setId(id);
+			return property;
+		});
 	}
 
 	public String getLeftVersion() {
@@ -50,28 +104,186 @@ public class ConfigDiffResult {
 		return rightVersion;
 	}
 
+	/**
+	 * Return whether the entries of each {@link ConfigDiffType} are already ordered by
+	 * id, with the root group first. Formatters can use the entries as is in that case.
+	 * @return {@code true} if the entries are sorted
+	 */
+	public boolean isSorted() {
+		return this.sorted;
+	}
+
+	/**
+	 * Return whether {@link ConfigDiffType#EQUALS} entries are retained.
+	 * @return {@code true} if equal entries are retained, {@code false} if only the ids
+	 * of their items are recorded
+	 */
+	public boolean isRetainEquals() {
+		return this.retainEquals;
+	}
+
+	/**
+	 * Return the groups of the specified {@link ConfigDiffType}. If
+	 * {@link ConfigDiffType#EQUALS} entries are not retained, they are materialized from
+	 * their ids and their groups only hold an id.
+	 * @param type the type of the entries
+	 * @return the groups
+	 */
 	public List<ConfigDiffEntry<ConfigurationMetadataGroup>> getGroupsDiffFor(ConfigDiffType type) {
-		List<ConfigDiffEntry<ConfigurationMetadataGroup>> content = this.groups.get(type);
-		if (content == null) {
-			return Collections.emptyList();
-		}
-		return content;
+		return this.groups.get(type);
 	}
 
+	/**
+	 * Return the properties of the specified {@link ConfigDiffType}. If
+	 * {@link ConfigDiffType#EQUALS} entries are not retained, they are materialized from
+	 * their ids and their properties only hold an id.
+	 * @param type the type of the entries
+	 * @return the properties
+	 */
 	public List<ConfigDiffEntry<ConfigurationMetadataProperty>> getPropertiesDiffFor(ConfigDiffType type) {
-		List<ConfigDiffEntry<ConfigurationMetadataProperty>> content = this.properties.get(type);
-		if (content == null) {
-			return Collections.emptyList();
+		return this.properties.get(type);
+	}
+
+	/**
+	 * Return the ids of the groups of {@link ConfigDiffType#EQUALS} entries that are not
+	 * retained.
+	 * @return the ids of the equal groups, in registration order
+	 */
+	String[] getEqualGroupIds() {
+		return this.groups.getEqualIds();
+	}
+
+	/**
+	 * Return the ids of the properties of {@link ConfigDiffType#EQUALS} entries that are
+	 * not retained.
+	 * @return the ids of the equal properties, in registration order
+	 */
+	String[] getEqualPropertyIds() {
+		return this.properties.getEqualIds();
+	}
+
+	/**
+	 * Return the number of groups of the specified {@link ConfigDiffType}, without
+	 * materializing entries that are not retained.
+	 * @param type the type of the entries
+	 * @return the number of groups
+	 */
+	public int getGroupsCountFor(ConfigDiffType type) {
+		return this.groups.count(type);
+	}
+
+	/**
+	 * Return the number of properties of the specified {@link ConfigDiffType}, without
+	 * materializing entries that are not retained.
+	 * @param type the type of the entries
+	 * @return the number of properties
+	 */
+	public int getPropertiesCountFor(ConfigDiffType type) {
+		return this.properties.count(type);
+	}
+
+	/**
+	 * Register {@link ConfigDiffType#EQUALS} entries that are not retained.
+	 * @param groupIds the ids of the equal groups
+	 * @param propertyIds the ids of the equal properties
+	 */
+	void registerEqualIds(String[] groupIds, String[] propertyIds) {
+		for (String groupId : groupIds) {
+			this.groups.addEqualId(groupId);
+		}
+		for (String propertyId : propertyIds) {
+			this.properties.addEqualId(propertyId);
 		}
-		return content;
 	}
 
-	void register(ConfigDiffType type, ConfigurationMetadataGroup left, ConfigurationMetadataGroup right) {
-		this.groups.add(type, new ConfigDiffEntry<>(left, right));
+	/**
+	 * Return a {@link ConfigDiffListener} that registers the entries it is notified of in
+	 * this instance.
+	 * @return a listener populating this result
+	 */
+	ConfigDiffListener collector() {
+		return new ConfigDiffListener() {
+
+			@Override
+			public void onGroup(ConfigDiffType type, ConfigDiffEntry<ConfigurationMetadataGroup> entry) {
+				ConfigDiffResult.this.groups.add(type, entry);
+			}
+
+			@Override
+			public void onProperty(ConfigDiffType type, ConfigDiffEntry<ConfigurationMetadataProperty> entry) {
+				ConfigDiffResult.this.properties.add(type, entry);
+			}
+
+		};
 	}
 
-	void register(ConfigDiffType type, ConfigurationMetadataProperty left, ConfigurationMetadataProperty right) {
-		this.properties.add(type, new ConfigDiffEntry<>(left, right));
+	/**
+	 * The entries of an item type, indexed by {@link ConfigDiffType}. Equal entries that
+	 * are not retained are indexed by the id of their item.
+	 */
+	private static final class Entries<T> {
+
+		private final Map<ConfigDiffType, List<ConfigDiffEntry<T>>> entries = new EnumMap<>(ConfigDiffType.class);
+
+		private final int[] counts = new int[ConfigDiffType.values().length];
+
+		private final boolean retainEquals;
+
+		private final Function<T, String> idExtractor;
+
+		private final Function<String, T> itemFactory;
+
+		private String[] equalIds = new String[0];
+
+		Entries(boolean retainEquals, Function<T, String> idExtractor, Function<String, T> itemFactory) {
+			this.retainEquals = retainEquals;
+			this.idExtractor = idExtractor;
+			this.itemFactory = itemFactory;
+		}
+
+		boolean isRetained(ConfigDiffType type) {
+			return this.retainEquals || type != ConfigDiffType.EQUALS;
+		}
+
+		List<ConfigDiffEntry<T>> get(ConfigDiffType type) {
+			if (!isRetained(type)) {
+				List<ConfigDiffEntry<T>> materialized = new ArrayList<>(count(type));
+				for (String id : getEqualIds()) {
+					T item = this.itemFactory.apply(id);
+					materialized.add(new ConfigDiffEntry<>(item, item));
+				}
+				return materialized;
+			}
+			return this.entries.getOrDefault(type, Collections.emptyList());
+		}
+
+		String[] getEqualIds() {
+			return Arrays.copyOf(this.equalIds, count(ConfigDiffType.EQUALS));
+		}
+
+		int count(ConfigDiffType type) {
+			return this.counts[type.ordinal()];
+		}
+
+		void add(ConfigDiffType type, ConfigDiffEntry<T> entry) {
+			if (isRetained(type)) {
+				this.counts[type.ordinal()]++;
+				this.entries.computeIfAbsent(type, (key) -> new ArrayList<>()).add(entry);
+			}
+			else {
+				addEqualId(this.idExtractor.apply(entry.left()));
+			}
+		}
+
+		void addEqualId(String id) {
+			int count = count(ConfigDiffType.EQUALS);
+			if (count == this.equalIds.length) {
+				this.equalIds = Arrays.copyOf(this.equalIds, Math.max(16, count * 2));
+			}
+			this.equalIds[count] = id;
+			this.counts[ConfigDiffType.EQUALS.ordinal()]++;
+		}
+
 	}
 
 }
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.nicoll.boot.config.diff;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import net.nicoll.boot.config.loader.MetadataSnapshotReader;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataGroup;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+
+/**
+ * Reads a {@link ConfigDiffResult} written by a {@link ConfigDiffResultWriter}.
+ *
+ * @author Stephane Nicoll
+ * @see ConfigDiffResultWriter
+ */
+public class ConfigDiffResultReader {
+
+	private final DataInputStream in;
+
+	public ConfigDiffResultReader(InputStream in) {
+		this.in = new DataInputStream(in);
+	}
+
+	/**
+	 * Read a result.
+	 * @return the result
+	 * @throws IOException if the result cannot be read
+	 */
+	public ConfigDiffResult readResult() throws IOException {
+		String leftVersion = this.in.readUTF();
+		String rightVersion = this.in.readUTF();
+		boolean sorted = this.in.readBoolean();
+		boolean retainEquals = this.in.readBoolean();
+		ConfigurationMetadataRepository left = new MetadataSnapshotReader(this.in).readRepository();
+		ConfigurationMetadataRepository right = new MetadataSnapshotReader(this.in).readRepository();
+		ConfigDiffResult result = new ConfigDiffResult(leftVersion, rightVersion, sorted, retainEquals);
+		ConfigDiffListener collector = result.collector();
+		for (ConfigDiffType type : ConfigDiffType.values()) {
+			if (ConfigDiffResultWriter.isRetained(result, type)) {
+				readGroupEntries(type, left.getAllGroups(), right.getAllGroups(), collector);
+				readPropertyEntries(type, getProperties(left), getProperties(right), collector);
+			}
+			else {
+				result.registerEqualIds(readIds(), readIds());
+			}
+		}
+		return result;
+	}
+
+	private Map<String, ConfigurationMetadataProperty> getProperties(ConfigurationMetadataRepository repository) {
+		ConfigurationMetadataGroup group = repository.getAllGroups().get(ConfigDiffResultWriter.PROPERTIES_GROUP);
+		return (group != null) ? group.getProperties() : Collections.emptyMap();
+	}
+
+	private void readGroupEntries(ConfigDiffType type, Map<String, ConfigurationMetadataGroup> left,
+			Map<String, ConfigurationMetadataGroup> right, ConfigDiffListener collector) throws IOException {
+		int size = this.in.readInt();
+		for (int i = 0; i < size; i++) {
+			ConfigurationMetadataGroup leftGroup = lookup(left, readId());
+			ConfigurationMetadataGroup rightGroup = lookup(right, readId());
+			collector.onGroup(type, new ConfigDiffEntry<>(leftGroup, rightGroup));
+		}
+	}
+
+	private void readPropertyEntries(ConfigDiffType type, Map<String, ConfigurationMetadataProperty> left,
+			Map<String, ConfigurationMetadataProperty> right, ConfigDiffListener collector) throws IOException {
+		int size = this.in.readInt();
+		for (int i = 0; i < size; i++) {
+			ConfigurationMetadataProperty leftProperty = lookup(left, readId());
+			ConfigurationMetadataProperty rightProperty = lookup(right, readId());
+			Set<ConfigDiffField> changes = readChanges();
+			double confidence = this.in.readDouble();
+			collector.onProperty(type, new ConfigDiffEntry<>(leftProperty, rightProperty, changes, confidence));
+		}
+	}
+
+	private <T> T lookup(Map<String, T> items, String id) {
+		if (id == null) {
+			return null;
+		}
+		T item = items.get(id);
+		if (item == null) {
+			throw new IllegalStateException("No item found with id '" + id + "'");
+		}
+		return item;
+	}
+
+	private String[] readIds() throws IOException {
+		String[] ids = new String[this.in.readInt()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = this.in.readUTF();
+		}
+		return ids;
+	}
+
+	private String readId() throws IOException {
+		return (this.in.readBoolean()) ? this.in.readUTF() : null;
+	}
+
+	private Set<ConfigDiffField> readChanges() throws IOException {
+		int mask = this.in.readInt();
+		if (mask == 0) {
+			return Collections.emptySet();
+		}
+		Set<ConfigDiffField> changes = EnumSet.noneOf(ConfigDiffField.class);
+		for (ConfigDiffField field : ConfigDiffField.values()) {
+			if ((mask & (1 << field.ordinal())) != 0) {
+				changes.add(field);
+			}
+		}
+		return changes;
+	}
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.nicoll.boot.config.diff;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.nicoll.boot.config.loader.MetadataSnapshotWriter;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataGroup;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+
+/**
+ * Writes a {@link ConfigDiffResult} in a compact binary format that can be read back by
+ * {@link ConfigDiffResultReader} without loading the repositories of either version.
+ * <p>
+ * The groups and properties referenced by the retained entries of each side are written
+ * as a {@link MetadataSnapshotWriter metadata snapshot}. Entries then refer to them by
+ * id, followed by their changes and confidence. {@link ConfigDiffType#EQUALS} entries
+ * that are not retained are written as the ids of their groups and properties.
+ *
+ * @author Stephane Nicoll
+ * @see ConfigDiffResultReader
+ */
+public class ConfigDiffResultWriter {
+
+	/**
+	 * The version of the binary format. Must be incremented whenever the layout changes.
+	 */
+	public static final int FORMAT_VERSION = 2;
+
+	/**
+	 * The id of the synthetic group that holds the properties referenced by property
+	 * entries in a snapshot.
+	 */
+	static final String PROPERTIES_GROUP = "_DIFF_PROPERTIES_";
+
+	private final DataOutputStream out;
+
+	public ConfigDiffResultWriter(OutputStream out) {
+		this.out = new DataOutputStream(out);
+	}
+
+	/**
+	 * Write the specified result.
+	 * @param result the result to write
+	 * @throws IOException if the result cannot be written
+	 */
+	public void writeResult(ConfigDiffResult result) throws IOException {
+		this.out.writeUTF(result.getLeftVersion());
+		this.out.writeUTF(result.getRightVersion());
+		this.out.writeBoolean(result.isSorted());
+		this.out.writeBoolean(result.isRetainEquals());
+		new MetadataSnapshotWriter(this.out).writeRepository(new SideRepository(result, true));
+		new MetadataSnapshotWriter(this.out).writeRepository(new SideRepository(result, false));
+		for (ConfigDiffType type : ConfigDiffType.values()) {
+			if (isRetained(result, type)) {
+				writeGroupEntries(result.getGroupsDiffFor(type));
+				writePropertyEntries(result.getPropertiesDiffFor(type));
+			}
+			else {
+				writeIds(result.getEqualGroupIds());
+				writeIds(result.getEqualPropertyIds());
+			}
+		}
+		this.out.flush();
+	}
+
+	static boolean isRetained(ConfigDiffResult result, ConfigDiffType type) {
+		return result.isRetainEquals() || type != ConfigDiffType.EQUALS;
+	}
+
+	private void writeGroupEntries(List<ConfigDiffEntry<ConfigurationMetadataGroup>> entries) throws IOException {
+		this.out.writeInt(entries.size());
+		for (ConfigDiffEntry<ConfigurationMetadataGroup> entry : entries) {
+			writeId((entry.left() != null) ? entry.left().getId() : null);
+			writeId((entry.right() != null) ? entry.right().getId() : null);
+		}
+	}
+
+	private void writePropertyEntries(List<ConfigDiffEntry<ConfigurationMetadataProperty>> entries) throws IOException {
+		this.out.writeInt(entries.size());
+		for (ConfigDiffEntry<ConfigurationMetadataProperty> entry : entries) {
+			writeId((entry.left() != null) ? entry.left().getId() : null);
+			writeId((entry.right() != null) ? entry.right().getId() : null);
+			writeChanges(entry.changes());
+			this.out.writeDouble(entry.confidence());
+		}
+	}
+
+	private void writeIds(String[] ids) throws IOException {
+		this.out.writeInt(ids.length);
+		for (String id : ids) {
+			this.out.writeUTF(id);
+		}
+	}
+
+	private void writeId(String id) throws IOException {
+		this.out.writeBoolean(id != null);
+		if (id != null) {
+			this.out.writeUTF(id);
+		}
+	}
+
+	private void writeChanges(Set<ConfigDiffField> changes) throws IOException {
+		int mask = 0;
+		for (ConfigDiffField field : changes) {
+			mask |= 1 << field.ordinal();
+		}
+		this.out.writeInt(mask);
+	}
+
+	/**
+	 * Exposes the groups and properties referenced by one side of a result so that they
+	 * can be written as a snapshot.
+	 */
+	private static final class SideRepository implements ConfigurationMetadataRepository {
+
+		private final Map<String, ConfigurationMetadataGroup> groups = new LinkedHashMap<>();
+
+		private final ConfigurationMetadataGroup properties = new ConfigurationMetadataGroup(PROPERTIES_GROUP);
+
+		SideRepository(ConfigDiffResult result, boolean left) {
+			for (ConfigDiffType type : ConfigDiffType.values()) {
+				if (isRetained(result, type)) {
+					for (ConfigDiffEntry<ConfigurationMetadataGroup> entry : result.getGroupsDiffFor(type)) {
+						ConfigurationMetadataGroup group = (left) ? entry.left() : entry.right();
+						if (group != null) {
+							this.groups.put(group.getId(), group);
+						}
+					}
+					for (ConfigDiffEntry<ConfigurationMetadataProperty> entry : result.getPropertiesDiffFor(type)) {
+						ConfigurationMetadataProperty property = (left) ? entry.left() : entry.right();
+						if (property != null) {
+							this.properties.getProperties().put(property.getId(), property);
+						}
+					}
+				}
+			}
+			this.groups.put(PROPERTIES_GROUP, this.properties);
+		}
+
+		@Override
+		public Map<String, ConfigurationMetadataGroup> getAllGroups() {
+			return this.groups;
+		}
+
+		@Override
+		public Map<String, ConfigurationMetadataProperty> getAllProperties() {
+			return this.properties.getProperties();
+		}
+
+	}
+
+}
@@ -17,6 +17,8 @@
 package net.nicoll.boot.config.diff;
 
 import net.nicoll.boot.config.loader.AetherDependencyResolver;
+import net.nicoll.boot.config.loader.ConfigurationMetadataLoader;
+import net.nicoll.boot.config.loader.MetadataSnapshotCache;
 
 /**
  * @author Stephane Nicoll
@@ -24,8 +26,11 @@ import net.nicoll.boot.config.loader.AetherDependencyResolver;
 public class ConfigDiffSample {
 
 	public static void main(String[] args) throws Exception {
-		ConfigDiffGenerator configDiffGenerator = new ConfigDiffGenerator(
+		ConfigurationMetadataLoader loader = new ConfigurationMetadataLoader(
 				AetherDependencyResolver.withAllRepositories());
+		loader.setSnapshotCache(MetadataSnapshotCache.withDefaultLocation());
+		ConfigDiffGenerator configDiffGenerator = new ConfigDiffGenerator(loader);
+		configDiffGenerator.setDiffCache(ConfigDiffCache.withDefaultLocation());
 		ConfigDiffResult configDiffResult = configDiffGenerator.generateDiff("3.0.0-RC1", "3.0.0-SNAPSHOT");
 		ConfigDiffFormatter formatter = new AsciiDocConfigDiffFormatter();
 		System.out.println(formatter.formatDiff(configDiffResult));
@@ -45,6 +45,13 @@ public enum ConfigDiffType {
 	/**
 	 * The entry has been removed.
 	 */
-	DELETE
+	DELETE,
+
+	/**
+	 * The entry has been removed and is likely replaced by an entry that has been added
+	 * with another id.
+	 * @see RenameDetector
+	 */
+	MOVE
 
 }
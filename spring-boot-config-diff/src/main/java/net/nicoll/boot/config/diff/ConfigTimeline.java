@@ -0,0 +1,72 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoll.boot.config.diff;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The {@linkplain PropertyLifecycle lifecycle} of the properties of an ordered list of
+ * versions.
+ *
+ * @author Stephane Nicoll
+ * @see ConfigTimelineGenerator
+ */
+public class ConfigTimeline {
+
+	private final List<String> versions;
+
+	private final Map<String, PropertyLifecycle> properties = new TreeMap<>();
+
+	ConfigTimeline(List<String> versions) {
+		this.versions = List.copyOf(versions);
+	}
+
+	/**
+	 * Return the versions of the timeline, in order.
+	 * @return the versions
+	 */
+	public List<String> getVersions() {
+		return this.versions;
+	}
+
+	/**
+	 * Return the lifecycle of all the properties that have been seen in at least one
+	 * version, sorted by id.
+	 * @return the properties
+	 */
+	public Collection<PropertyLifecycle> getProperties() {
+		return Collections.unmodifiableCollection(this.properties.values());
+	}
+
+	/**
+	 * Return the lifecycle of the property with the specified id.
+	 * @param id the id of a property
+	 * @return the lifecycle of the property or {@code null} if it is not part of any
+	 * version
+	 */
+	public PropertyLifecycle getProperty(String id) {
+		return this.properties.get(id);
+	}
+
+	PropertyLifecycle getOrCreate(String id) {
+		return this.properties.computeIfAbsent(id, PropertyLifecycle::new);
+	}
+
+}
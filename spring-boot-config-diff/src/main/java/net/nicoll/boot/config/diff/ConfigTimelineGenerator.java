@@ -0,0 +1,161 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoll.boot.config.diff;
+
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import net.nicoll.boot.config.loader.ConfigurationMetadataLoader;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+import org.springframework.boot.configurationmetadata.Deprecation.Level;
+
+/**
+ * Generate a {@link ConfigTimeline} for an ordered list of versions. Each repository is
+ * loaded once, the next one being loaded while consecutive versions are compared, so that
+ * no more than three repositories are held at a time.
+ * <p>
+ * Presence and deprecation of each property are classified from the repositories directly
+ * rather than from a diff, so that properties that are added already deprecated or
+ * removed once deprecated with an {@link Level#ERROR error} level are recorded as well. A
+ * property whose deprecation moves from {@link Level#WARNING warning} to
+ * {@link Level#ERROR error} is considered removed, consistently with
+ * {@link ConfigDiffGenerator}.
+ *
+ * @author Stephane Nicoll
+ */
+public class ConfigTimelineGenerator {
+
+	private final ConfigurationMetadataLoader loader;
+
+	private final Executor executor;
+
+	/**
+	 * Create a new instance.
+	 * @param loader the loader to use
+	 * @param executor the executor to use to load the next repository
+	 */
+	public ConfigTimelineGenerator(ConfigurationMetadataLoader loader, Executor executor) {
+		this.loader = loader;
+		this.executor = executor;
+	}
+
+	/**
+	 * Generate the timeline of the specified versions.
+	 * @param versions the versions, from the oldest to the most recent
+	 * @return the lifecycle of each property across the versions
+	 * @throws IOException if a repository failed to load
+	 */
+	public ConfigTimeline generateTimeline(List<String> versions) throws IOException {
+		ConfigTimeline timeline = new ConfigTimeline(versions);
+		if (versions.isEmpty()) {
+			return timeline;
+		}
+		CompletableFuture<ConfigurationMetadataRepository> next = this.loader.loadRepositoryAsync(versions.get(0),
+				this.executor);
+		Map<String, ConfigurationMetadataProperty> previous = Map.of();
+		Map<ConfigurationMetadataProperty, Long> previousFingerprints = new IdentityHashMap<>();
+		for (int i = 0; i < versions.size(); i++) {
+			ConfigurationMetadataRepository current = await(next);
+			next = (i + 1 < versions.size()) ? this.loader.loadRepositoryAsync(versions.get(i + 1), this.executor)
+					: null;
+			Map<String, ConfigurationMetadataProperty> properties = current.getAllProperties();
+			Map<ConfigurationMetadataProperty, Long> fingerprints = new IdentityHashMap<>();
+			record(timeline, versions.get(i), previous, properties, previousFingerprints, fingerprints);
+			previous = properties;
+			previousFingerprints = fingerprints;
+		}
+		return timeline;
+	}
+
+	/**
+	 * Record the changes between two consecutive versions. The fingerprint of a property
+	 * is computed once per run: a property of the current version is hashed when it is
+	 * compared to the previous version and its fingerprint is reused when it is compared
+	 * to the next one.
+	 */
+	private void record(ConfigTimeline timeline, String version, Map<String, ConfigurationMetadataProperty> previous,
+			Map<String, ConfigurationMetadataProperty> current,
+			Map<ConfigurationMetadataProperty, Long> previousFingerprints,
+			Map<ConfigurationMetadataProperty, Long> fingerprints) {
+		for (ConfigurationMetadataProperty left : previous.values()) {
+			if (!current.containsKey(left.getId())) {
+				timeline.getOrCreate(left.getId()).removed(version);
+			}
+		}
+		for (ConfigurationMetadataProperty right : current.values()) {
+			PropertyLifecycle lifecycle = timeline.getOrCreate(right.getId());
+			ConfigurationMetadataProperty left = previous.get(right.getId());
+			if (left == null) {
+				lifecycle.added(version);
+				if (right.isDeprecated()) {
+					lifecycle.deprecated(version);
+				}
+				continue;
+			}
+			long leftFingerprint = previousFingerprints.computeIfAbsent(left, PropertyFingerprint::of);
+			long rightFingerprint = fingerprints.computeIfAbsent(right, PropertyFingerprint::of);
+			if (leftFingerprint == rightFingerprint) {
+				continue;
+			}
+			Set<ConfigDiffField> changes = ConfigDiffField.compare(left, right);
+			if (changes.remove(ConfigDiffField.DEPRECATION)) {
+				recordDeprecation(lifecycle, version, left, right);
+			}
+			if (!changes.isEmpty()) {
+				lifecycle.modified(version);
+			}
+		}
+	}
+
+	private void recordDeprecation(PropertyLifecycle lifecycle, String version, ConfigurationMetadataProperty left,
+			ConfigurationMetadataProperty right) {
+		if (!left.isDeprecated()) {
+			lifecycle.deprecated(version);
+		}
+		else if (!right.isDeprecated()) {
+			lifecycle.undeprecated();
+		}
+		else if (left.getDeprecation().getLevel() == Level.WARNING
+				&& right.getDeprecation().getLevel() == Level.ERROR) {
+			lifecycle.removed(version);
+		}
+	}
+
+	private ConfigurationMetadataRepository await(CompletableFuture<ConfigurationMetadataRepository> future)
+			throws IOException {
+		try {
+			return future.join();
+		}
+		catch (CompletionException ex) {
+			if (ex.getCause() instanceof IOException ioException) {
+				throw ioException;
+			}
+			if (ex.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw ex;
+		}
+	}
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.nicoll.boot.config.diff;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import net.nicoll.boot.config.loader.AetherDependencyResolver;
+import net.nicoll.boot.config.loader.ConfigurationMetadataLoader;
+import net.nicoll.boot.config.loader.MetadataSnapshotCache;
+
+/**
+ * Print the lifecycle of the properties that changed across the specified versions.
+ *
+ * @author Stephane Nicoll
+ */
+public class ConfigTimelineSample {
+
+	public static void main(String[] args) throws Exception {
+		List<String> versions = (args.length > 0) ? Arrays.asList(args) : List.of("3.0.0", "3.1.0", "3.2.0", "3.3.0");
+		ConfigurationMetadataLoader loader = new ConfigurationMetadataLoader(
+				AetherDependencyResolver.withAllRepositories());
+		loader.setSnapshotCache(MetadataSnapshotCache.withDefaultLocation());
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			ConfigTimeline timeline = new ConfigTimelineGenerator(loader, executor).generateTimeline(versions);
+			String first = versions.get(0);
+			timeline.getProperties()
+				.stream()
+				.filter((property) -> !first.equals(property.getAddedIn()) || property.getRemovedIn() != null
+						|| (property.getDeprecatedIn() != null && !first.equals(property.getDeprecatedIn()))
+						|| !property.getModifiedIn().isEmpty())
+				.forEach(System.out::println);
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+}
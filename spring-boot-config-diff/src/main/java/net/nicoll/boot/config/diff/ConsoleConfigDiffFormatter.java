@@ -17,8 +17,7 @@
 package net.nicoll.boot.config.diff;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collection;
+import java.io.Writer;
 import java.util.List;
 import java.util.Map;
 
@@ -32,90 +31,112 @@ import org.springframework.boot.configurationmetadata.ConfigurationMetadataPrope
  */
 public class ConsoleConfigDiffFormatter extends AbstractConfigDiffFormatter {
 
+	private static final String SEPARATOR = "==========================================================================="
+			+ NEW_LINE;
+
 	@Override
-	public String formatDiff(ConfigDiffResult result) {
-		StringBuilder out = new StringBuilder();
-		out.append(String.format("===========================================================================%n"));
-		out.append(String.format("Config meta-data diff between '%s' and '%s'%n", result.getLeftVersion(),
-				result.getRightVersion()));
+	public void formatDiff(ConfigDiffResult result, Writer out) throws IOException {
+		out.append(SEPARATOR);
+		out.append("Config meta-data diff between '")
+			.append(result.getLeftVersion())
+			.append("' and '")
+			.append(result.getRightVersion())
+			.append("'")
+			.append(NEW_LINE);
 		outputGroups(out, result, true);
 		outputGroups(out, result, false);
 		outputModifiedGroups(out, result);
 		outputProperties(out, result, true);
 		outputProperties(out, result, false);
-		out.append(String.format("===========================================================================%n"));
-		return out.toString();
+		outputMovedProperties(out, result);
+		out.append(SEPARATOR);
 	}
 
-	private void outputGroups(StringBuilder out, ConfigDiffResult result, boolean added) {
-		out.append(String.format("===========================================================================%n"));
-		List<ConfigDiffEntry<ConfigurationMetadataGroup>> groups = sortGroups(
-				result.getGroupsDiffFor(added ? ConfigDiffType.ADD : ConfigDiffType.DELETE), !added);
-		out.append(String.format("Groups %s (%d):%n", added ? "added" : "removed", groups.size()));
-		out.append(System.lineSeparator());
+	private void outputGroups(Writer out, ConfigDiffResult result, boolean added) throws IOException {
+		out.append(SEPARATOR);
+		List<ConfigDiffEntry<ConfigurationMetadataGroup>> groups = sortGroups(result,
+				added ? ConfigDiffType.ADD : ConfigDiffType.DELETE, !added);
+		out.append("Groups ")
+			.append(added ? "added" : "removed")
+			.append(" (")
+			.append(String.valueOf(groups.size()))
+			.append("):")
+			.append(NEW_LINE);
+		out.append(NEW_LINE);
 		for (ConfigDiffEntry<ConfigurationMetadataGroup> diff : groups) {
 			ConfigurationMetadataGroup group = added ? diff.right() : diff.left();
 			int size = group.getProperties().size();
-			out.append(getGroupId(group))
-				.append(" (")
-				.append(added ? "+" : "-")
-				.append(propertiesCount(size))
-				.append(")")
-				.append(System.lineSeparator());
+			out.append(getGroupId(group)).append(" (").append(added ? "+" : "-");
+			appendPropertiesCount(out, size);
+			out.append(")").append(NEW_LINE);
 		}
 	}
 
-	private void outputProperties(StringBuilder out, ConfigDiffResult result, boolean added) {
-		out.append(String.format("===========================================================================%n"));
-		List<ConfigDiffEntry<ConfigurationMetadataProperty>> properties = sortProperties(
-				result.getPropertiesDiffFor(added ? ConfigDiffType.ADD : ConfigDiffType.DELETE), !added);
+	private void outputProperties(Writer out, ConfigDiffResult result, boolean added) throws IOException {
+		out.append(SEPARATOR);
+		List<ConfigDiffEntry<ConfigurationMetadataProperty>> properties = sortProperties(result,
+				added ? ConfigDiffType.ADD : ConfigDiffType.DELETE, !added);
 		out.append("Properties ")
 			.append(added ? "added" : "removed")
 			.append(" (")
-			.append(properties.size())
+			.append(String.valueOf(properties.size()))
 			.append("):")
-			.append(System.lineSeparator());
-		out.append(System.lineSeparator());
+			.append(NEW_LINE);
+		out.append(NEW_LINE);
 		for (ConfigDiffEntry<ConfigurationMetadataProperty> diff : properties) {
 			ConfigurationMetadataProperty property = (added ? diff.right() : diff.left());
-			out.append(ConsoleMetadataFormatter.formatProperty(property)).append(System.lineSeparator());
+			ConsoleMetadataFormatter.formatProperty(property, out);
+			out.append(NEW_LINE);
 		}
 	}
 
-	private void outputModifiedGroups(StringBuilder out, ConfigDiffResult result) {
-		out.append(String.format("===========================================================================%n"));
-		List<ConfigDiffEntry<ConfigurationMetadataGroup>> groups = sortGroups(
-				result.getGroupsDiffFor(ConfigDiffType.MODIFY), true);
-		out.append("Groups modified (").append(groups.size()).append("):").append(System.lineSeparator());
-		out.append(System.lineSeparator());
+	private void outputMovedProperties(Writer out, ConfigDiffResult result) throws IOException {
+		out.append(SEPARATOR);
+		List<ConfigDiffEntry<ConfigurationMetadataProperty>> properties = sortProperties(result, ConfigDiffType.MOVE,
+				true);
+		out.append("Properties moved (").append(String.valueOf(properties.size())).append("):").append(NEW_LINE);
+		out.append(NEW_LINE);
+		for (ConfigDiffEntry<ConfigurationMetadataProperty> diff : properties) {
+			out.append(diff.left().getId())
+				.append(" -> ")
+				.append(diff.right().getId())
+				.append(" (")
+				.append(formatConfidence(diff))
+				.append(" confidence)")
+				.append(NEW_LINE);
+		}
+	}
+
+	private void outputModifiedGroups(Writer out, ConfigDiffResult result) throws IOException {
+		out.append(SEPARATOR);
+		List<ConfigDiffEntry<ConfigurationMetadataGroup>> groups = sortGroups(result, ConfigDiffType.MODIFY, true);
+		out.append("Groups modified (").append(String.valueOf(groups.size())).append("):").append(NEW_LINE);
+		out.append(NEW_LINE);
 		for (ConfigDiffEntry<ConfigurationMetadataGroup> diff : groups) {
 			outputModifiedGroup(out, diff);
 		}
 	}
 
-	private void outputModifiedGroup(StringBuilder out, ConfigDiffEntry<ConfigurationMetadataGroup> diff) {
-		Collection<String> deleted = new ArrayList<>();
-		Collection<String> added = new ArrayList<>();
+	private void outputModifiedGroup(Writer out, ConfigDiffEntry<ConfigurationMetadataGroup> diff) throws IOException {
 		Map<String, ConfigurationMetadataProperty> leftProperties = diff.left().getProperties();
 		Map<String, ConfigurationMetadataProperty> rightProperties = diff.right().getProperties();
+		int deleted = 0;
 		for (String key : leftProperties.keySet()) {
 			if (!rightProperties.containsKey(key)) {
-				deleted.add(key);
+				deleted++;
 			}
 		}
+		int added = 0;
 		for (String key : rightProperties.keySet()) {
 			if (!leftProperties.containsKey(key)) {
-				added.add(key);
+				added++;
 			}
 		}
-		out.append(getGroupId(diff.left()))
-			.append(" (+")
-			.append(propertiesCount(added.size()))
-			.append(" -")
-			.append(propertiesCount(deleted.size()))
-			.append(")")
-			.append(System.lineSeparator());
-
+		out.append(getGroupId(diff.left())).append(" (+");
+		appendPropertiesCount(out, added);
+		out.append(" -");
+		appendPropertiesCount(out, deleted);
+		out.append(")").append(NEW_LINE);
 	}
 
 	private String getGroupId(ConfigurationMetadataGroup group) {
@@ -123,8 +144,8 @@ public class ConsoleConfigDiffFormatter extends AbstractConfigDiffFormatter {
 		return (id.equals("_ROOT_GROUP_") ? "(root)" : id);
 	}
 
-	private String propertiesCount(int size) {
-		return size + (size > 1 ? " properties" : " property");
+	private void appendPropertiesCount(Writer out, int size) throws IOException {
+		out.append(String.valueOf(size)).append((size > 1) ? " properties" : " property");
 	}
 
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.nicoll.boot.config.diff;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataGroup;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+
+/**
+ * A {@link ConfigDiffListener} that writes a line for each entry as soon as it is
+ * notified, so that a report can be written without holding the entries of the diff.
+ * {@link ConfigDiffType#EQUALS} entries are ignored. Lines are written in the order of
+ * the notifications, use a {@link SortedConfigDiffGenerator} to get them ordered by id.
+ *
+ * @author Stephane Nicoll
+ * @see ConfigDiffGenerator#generateDiff(String, String, ConfigDiffListener)
+ */
+public class ConsoleConfigDiffListener implements ConfigDiffListener {
+
+	private static final String NEW_LINE = System.lineSeparator();
+
+	private final Writer out;
+
+	public ConsoleConfigDiffListener(Writer out) {
+		this.out = out;
+	}
+
+	@Override
+	public void onStart(String leftVersion, String rightVersion) {
+		write("Config meta-data diff between '" + leftVersion + "' and '" + rightVersion + "'");
+	}
+
+	@Override
+	public void onGroup(ConfigDiffType type, ConfigDiffEntry<ConfigurationMetadataGroup> entry) {
+		if (type != ConfigDiffType.EQUALS) {
+			ConfigurationMetadataGroup group = (entry.left() != null) ? entry.left() : entry.right();
+			write(type + " group " + getGroupId(group));
+		}
+	}
+
+	@Override
+	public void onProperty(ConfigDiffType type, ConfigDiffEntry<ConfigurationMetadataProperty> entry) {
+		switch (type) {
+			case EQUALS -> {
+			}
+			case ADD -> write(type + " " + entry.right().getId());
+			case MODIFY -> write(type + " " + entry.left().getId() + " " + entry.changes());
+			case MOVE -> write(type + " " + entry.left().getId() + " -> " + entry.right().getId() + " ("
+					+ Math.round(entry.confidence() * 100) + "% confidence)");
+			default -> write(type + " " + entry.left().getId());
+		}
+	}
+
+	@Override
+	public void onComplete() {
+		try {
+			this.out.flush();
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException("Failed to flush diff", ex);
+		}
+	}
+
+	private String getGroupId(ConfigurationMetadataGroup group) {
+		String id = group.getId();
+		return (id.equals(ConfigurationMetadataRepository.ROOT_GROUP) ? "(root)" : id);
+	}
+
+	private void write(String line) {
+		try {
+			this.out.append(line).append(NEW_LINE);
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException("Failed to write diff", ex);
+		}
+	}
+
+}
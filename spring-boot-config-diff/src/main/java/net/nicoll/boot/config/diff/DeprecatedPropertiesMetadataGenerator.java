@@ -17,16 +17,18 @@
 package net.nicoll.boot.config.diff;
 
 import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import net.nicoll.boot.config.loader.AetherDependencyResolver;
 import net.nicoll.boot.config.loader.ConfigurationMetadataLoader;
+import net.nicoll.boot.config.loader.MetadataRepositoryCache;
 
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
@@ -39,8 +41,11 @@ import org.springframework.util.MultiValueMap;
  * allows to use the new deprecation level feature that allows to flag removed properties
  * for IDE inspection.
  * <p>
- * This generator tries to guess what the replacement could be using an approximate
- * algorithm so that the generated list must be reviewed manually.
+ * This generator uses a {@link RenameDetector} to guess what the replacement could be. A
+ * removed property that is not detected as moved is matched against the keys of the
+ * target version sharing its last segments, so that a replacement that already existed in
+ * the older version is found as well. As the detection is approximate, the generated list
+ * must be reviewed manually.
  *
  * @author Stephane Nicoll
  */
@@ -51,8 +56,12 @@ public class DeprecatedPropertiesMetadataGenerator {
 		String to = "3.0.0-SNAPSHOT";
 
 		AetherDependencyResolver dependencyResolver = AetherDependencyResolver.withAllRepositories();
-		ConfigDiffResult configDiffResult = new ConfigDiffGenerator(dependencyResolver).generateDiff(from, to);
 		ConfigurationMetadataLoader loader = new ConfigurationMetadataLoader(dependencyResolver);
+		// The target version is loaded by the diff and again to look up replacements
+		loader.setRepositoryCache(new MetadataRepositoryCache());
+		ConfigDiffGenerator configDiffGenerator = new ConfigDiffGenerator(loader);
+		configDiffGenerator.setRenameDetector(new RenameDetector());
+		ConfigDiffResult configDiffResult = configDiffGenerator.generateDiff(from, to);
 		ConfigurationMetadataRepository repository = loader.loadRepository(to);
 
 		DeprecatedPropertyJsonFormatter formatter = new DeprecatedPropertyJsonFormatter(repository);
@@ -62,39 +71,48 @@ public class DeprecatedPropertiesMetadataGenerator {
 
 	private static class DeprecatedPropertyJsonFormatter implements ConfigDiffFormatter {
 
+		private static final String NEW_LINE = System.lineSeparator();
+
 		private final List<String> knownExcludes = Arrays.asList("security.oauth2", "spring.datasource.dbcp",
 				"spring.datasource.hikari", "spring.mobile", "spring.social");
 
-		private final ConfigurationMetadataRepository repository;
+		private final MultiValueMap<String, String> idsBySuffix = new LinkedMultiValueMap<>();
 
 		private DeprecatedPropertyJsonFormatter(ConfigurationMetadataRepository repository) {
-			this.repository = repository;
+			for (String id : repository.getAllProperties().keySet()) {
+				String[] parts = id.split("\\.");
+				this.idsBySuffix.add(parts[parts.length - 1], id);
+				if (parts.length > 1) {
+					this.idsBySuffix.add(parts[parts.length - 2] + "." + parts[parts.length - 1], id);
+				}
+			}
 		}
 
 		@Override
-		public String formatDiff(ConfigDiffResult result) throws IOException {
-			List<ConfigDiffEntry<ConfigurationMetadataProperty>> deleted = result
-				.getPropertiesDiffFor(ConfigDiffType.DELETE);
-
-			List<DeprecatedItem> items = deleted.stream()
+		public void formatDiff(ConfigDiffResult result, Writer out) throws IOException {
+			List<DeprecatedItem> items = new ArrayList<>();
+			result.getPropertiesDiffFor(ConfigDiffType.DELETE)
+				.stream()
 				.filter(this::isValidCandidate)
-				.map(this::toDeprecatedItem)
-				.toList();
+				.map((entry) -> toDeprecatedItem(entry.left(), detectReplacement(entry)))
+				.forEach(items::add);
+			result.getPropertiesDiffFor(ConfigDiffType.MOVE)
+				.stream()
+				.filter(this::isValidCandidate)
+				.map((entry) -> toDeprecatedItem(entry.left(), entry.right().getId()))
+				.forEach(items::add);
 
 			MultiValueMap<String, DeprecatedItem> groups = new LinkedMultiValueMap<>();
 			items.forEach(item -> groups.add(detectGroup(item.getName()), item));
 
-			StringBuilder sb = new StringBuilder();
 			ObjectMapper mapper = new ObjectMapper();
 			for (Map.Entry<String, List<DeprecatedItem>> e : groups.entrySet()) {
 				List<DeprecatedItem> groupItems = e.getValue();
 				groupItems.sort(Comparator.comparing(DeprecatedItem::getName));
-				sb.append(String.format("Add to `%s`%n%n", e.getKey()));
-				sb.append(mapper.writerWithDefaultPrettyPrinter().writeValueAsString(groupItems));
-				// groupItems.forEach(i -> sb.append(String.format("%s%n", i.getName())));
-				sb.append(String.format("%n"));
+				out.append("Add to `").append(e.getKey()).append("`").append(NEW_LINE).append(NEW_LINE);
+				out.append(mapper.writerWithDefaultPrettyPrinter().writeValueAsString(groupItems));
+				out.append(NEW_LINE);
 			}
-			return sb.toString();
 		}
 
 		private boolean isValidCandidate(ConfigDiffEntry<ConfigurationMetadataProperty> entry) {
@@ -116,30 +134,32 @@ public class DeprecatedPropertiesMetadataGenerator {
 					&& entry.right() == null);
 		}
 
-		private DeprecatedItem toDeprecatedItem(ConfigDiffEntry<ConfigurationMetadataProperty> e) {
-			return new DeprecatedItem(e.left(), detectReplacement(e.left()), detectReason(e.left()));
+		private DeprecatedItem toDeprecatedItem(ConfigurationMetadataProperty property, String replacement) {
+			return new DeprecatedItem(property, replacement, detectReason(property));
 		}
 
-		private String detectReplacement(ConfigurationMetadataProperty property) {
-			String[] parts = property.getId().split("\\.");
-			if (parts.length == 2) {
-				List<ConfigurationMetadataProperty> properties = extractSimilarKey(property.getId());
-				if (properties.size() == 1) {
-					return properties.get(0).getId();
-				}
+		private String detectReplacement(ConfigDiffEntry<ConfigurationMetadataProperty> entry) {
+			ConfigurationMetadataProperty right = entry.right();
+			if (right != null && right.getDeprecation() != null && right.getDeprecation().getReplacement() != null) {
+				return right.getDeprecation().getReplacement();
 			}
-			if (parts.length > 2) {
-				String attempt = parts[parts.length - 2] + "." + parts[parts.length - 1];
-				List<ConfigurationMetadataProperty> properties = extractSimilarKey(attempt);
-				if (properties.size() == 1) {
-					return properties.get(0).getId();
+			String id = entry.left().getId();
+			String[] parts = id.split("\\.");
+			if (parts.length > 1) {
+				String replacement = findUniqueId(parts[parts.length - 2] + "." + parts[parts.length - 1], id);
+				if (replacement != null) {
+					return replacement;
 				}
 			}
-			List<ConfigurationMetadataProperty> properties = extractSimilarKey(parts[parts.length - 1]);
-			if (properties.size() == 1) {
-				return properties.get(0).getId();
-			}
-			return null;
+			return findUniqueId(parts[parts.length - 1], id);
+		}
+
+		private String findUniqueId(String suffix, String excludedId) {
+			List<String> ids = this.idsBySuffix.getOrDefault(suffix, List.of())
+				.stream()
+				.filter((candidate) -> !candidate.equals(excludedId))
+				.toList();
+			return (ids.size() == 1) ? ids.get(0) : null;
 		}
 
 		private String detectReason(ConfigurationMetadataProperty property) {
@@ -149,14 +169,6 @@ public class DeprecatedPropertiesMetadataGenerator {
 			return null;
 		}
 
-		private List<ConfigurationMetadataProperty> extractSimilarKey(String part) {
-			return this.repository.getAllProperties()
-				.values()
-				.stream()
-				.filter(p -> p.getId().endsWith(part))
-				.collect(Collectors.toList());
-		}
-
 		private String detectGroup(String name) {
 			if (name.startsWith("endpoints") || name.startsWith("management")) {
 				return "spring-boot-actuator";
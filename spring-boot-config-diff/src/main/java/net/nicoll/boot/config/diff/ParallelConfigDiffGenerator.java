@@ -0,0 +1,198 @@
+/*
+ * Copyright 2012-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.nicoll.boot.config.diff;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+import net.nicoll.boot.config.loader.ConfigurationMetadataLoader;
+import net.nicoll.boot.metadata.MetadataUtils;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataGroup;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+
+/**
+ * A {@link SortedConfigDiffGenerator} that classifies entries on a {@link ForkJoinPool}.
+ * Both sides are sorted and the id space is split recursively in ranges of consecutive
+ * ids. The entries of each range are recorded and replayed in order once all ranges have
+ * been merge-joined, so that the outcome is identical to the sequential engine.
+ *
+ * @author Stephane Nicoll
+ */
+public class ParallelConfigDiffGenerator extends SortedConfigDiffGenerator {
+
+	private static final int DEFAULT_THRESHOLD = 2048;
+
+	private final ForkJoinPool pool;
+
+	private final int threshold;
+
+	public ParallelConfigDiffGenerator(ConfigurationMetadataLoader loader) {
+		this(loader, ForkJoinPool.commonPool());
+	}
+
+	public ParallelConfigDiffGenerator(ConfigurationMetadataLoader loader, ForkJoinPool pool) {
+		this(loader, pool, DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * Create a new instance.
+	 * @param loader the loader to use
+	 * @param pool the pool to use to classify entries
+	 * @param threshold the number of ids below which a range is merge-joined rather than
+	 * split further
+	 */
+	ParallelConfigDiffGenerator(ConfigurationMetadataLoader loader, ForkJoinPool pool, int threshold) {
+		super(loader);
+		this.pool = pool;
+		this.threshold = threshold;
+	}
+
+	@Override
+	protected ConfigDiffGenerator diffGroup(ConfigDiffListener listener, ConfigurationMetadataRepository left,
+			ConfigurationMetadataRepository right) {
+		Comparator<ConfigurationMetadataGroup> comparator = MetadataUtils.GROUP_COMPARATOR;
+		this.pool
+			.invoke(new DiffTask<>(sort(left.getAllGroups().values(), comparator),
+					sort(right.getAllGroups().values(), comparator), comparator, this::registerGroup))
+			.replay(listener);
+		return this;
+	}
+
+	@Override
+	protected ConfigDiffGenerator diffItem(ConfigDiffListener listener, ConfigurationMetadataRepository left,
+			ConfigurationMetadataRepository right) {
+		Comparator<ConfigurationMetadataProperty> comparator = MetadataUtils.PROPERTY_COMPARATOR;
+		this.pool
+			.invoke(new DiffTask<>(sort(left.getAllProperties().values(), comparator),
+					sort(right.getAllProperties().values(), comparator), comparator, this::registerProperty))
+			.replay(listener);
+		return this;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> List<T> sort(Collection<T> items, Comparator<T> comparator) {
+		T[] sorted = (T[]) items.toArray();
+		Arrays.parallelSort(sorted, comparator);
+		return Collections.unmodifiableList(Arrays.asList(sorted));
+	}
+
+	@FunctionalInterface
+	private interface Registrar<T> {
+
+		void register(ConfigDiffListener listener, T left, T right);
+
+	}
+
+	private class DiffTask<T> extends RecursiveTask<Events> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<T> left;
+
+		private final List<T> right;
+
+		private final Comparator<T> comparator;
+
+		private final Registrar<T> registrar;
+
+		DiffTask(List<T> left, List<T> right, Comparator<T> comparator, Registrar<T> registrar) {
+			this.left = left;
+			this.right = right;
+			this.comparator = comparator;
+			this.registrar = registrar;
+		}
+
+		@Override
+		protected Events compute() {
+			List<T> pivotSide = (this.left.size() >= this.right.size()) ? this.left : this.right;
+			if (this.left.size() + this.right.size() <= threshold || pivotSide.size() < 2) {
+				Events events = new Events();
+				mergeJoin(this.left, this.right, this.comparator,
+						(leftItem, rightItem) -> this.registrar.register(events, leftItem, rightItem));
+				return events;
+			}
+			T pivot = pivotSide.get(pivotSide.size() / 2);
+			int leftSplit = lowerBound(this.left, pivot);
+			int rightSplit = lowerBound(this.right, pivot);
+			DiffTask<T> lower = new DiffTask<>(this.left.subList(0, leftSplit), this.right.subList(0, rightSplit),
+					this.comparator, this.registrar);
+			DiffTask<T> upper = new DiffTask<>(this.left.subList(leftSplit, this.left.size()),
+					this.right.subList(rightSplit, this.right.size()), this.comparator, this.registrar);
+			lower.fork();
+			Events upperEvents = upper.compute();
+			Events events = lower.join();
+			events.append(upperEvents);
+			return events;
+		}
+
+		/**
+		 * Return the index of the first item that is not lower than the pivot.
+		 */
+		private int lowerBound(List<T> items, T pivot) {
+			int low = 0;
+			int high = items.size();
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (this.comparator.compare(items.get(middle), pivot) < 0) {
+					low = middle + 1;
+				}
+				else {
+					high = middle;
+				}
+			}
+			return low;
+		}
+
+	}
+
+	/**
+	 * Record the entries of a range so that they can be replayed in order.
+	 */
+	private static final class Events implements ConfigDiffListener {
+
+		private final List<Consumer<ConfigDiffListener>> events = new ArrayList<>();
+
+		@Override
+		public void onGroup(ConfigDiffType type, ConfigDiffEntry<ConfigurationMetadataGroup> entry) {
+			this.events.add((listener) -> listener.onGroup(type, entry));
+		}
+
+		@Override
+		public void onProperty(ConfigDiffType type, ConfigDiffEntry<ConfigurationMetadataProperty> entry) {
+			this.events.add((listener) -> listener.onProperty(type, entry));
+		}
+
+		void append(Events other) {
+			this.events.addAll(other.events);
+		}
+
+		void replay(ConfigDiffListener listener) {
+			this.events.forEach((event) -> event.accept(listener));
+		}
+
+	}
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.nicoll.boot.config.diff;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+
+/**
+ * Compute a 64-bit FNV-1a hash of the {@linkplain ConfigDiffField normalized fields} of a
+ * property. Two properties with the same fingerprint are considered equal, so that only
+ * the pairs with a different fingerprint are compared field by field.
+ *
+ * @author Stephane Nicoll
+ */
+final class PropertyFingerprint {
+
+	private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+
+	private static final long PRIME = 0x100000001b3L;
+
+	private static final char NULL_MARKER = '\uffff';
+
+	private static final char SEPARATOR = '\ufffe';
+
+	private PropertyFingerprint() {
+	}
+
+	/**
+	 * Compute the fingerprint of the specified property.
+	 * @param property the property
+	 * @return the fingerprint
+	 */
+	static long of(ConfigurationMetadataProperty property) {
+		long hash = OFFSET_BASIS;
+		for (ConfigDiffField field : ConfigDiffField.values()) {
+			String value = field.getValue(property);
+			if (value == null) {
+				hash = update(hash, NULL_MARKER);
+			}
+			else {
+				for (int i = 0; i < value.length(); i++) {
+					hash = update(hash, value.charAt(i));
+				}
+			}
+			hash = update(hash, SEPARATOR);
+		}
+		return hash;
+	}
+
+	private static long update(long hash, char c) {
+		hash = (hash ^ (c & 0xff)) * PRIME;
+		return (hash ^ (c >>> 8)) * PRIME;
+	}
+
+}
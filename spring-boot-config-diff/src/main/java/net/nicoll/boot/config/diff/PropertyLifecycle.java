@@ -0,0 +1,130 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoll.boot.config.diff;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The lifecycle of a property across the versions of a {@link ConfigTimeline}. A property
+ * is considered to have been added in the first version it is present in, and deprecated
+ * in it if it is already deprecated. A property that is no longer deprecated has no
+ * deprecation version, and a property that is added again after its removal keeps the
+ * version that introduced it but not its former deprecation.
+ *
+ * @author Stephane Nicoll
+ */
+public final class PropertyLifecycle {
+
+	private final String id;
+
+	private String addedIn;
+
+	private String deprecatedIn;
+
+	private String removedIn;
+
+	private final List<String> modifiedIn = new ArrayList<>();
+
+	PropertyLifecycle(String id) {
+		this.id = id;
+	}
+
+	public String getId() {
+		return this.id;
+	}
+
+	/**
+	 * Return the version in which the property was added.
+	 * @return the version that introduced the property
+	 */
+	public String getAddedIn() {
+		return this.addedIn;
+	}
+
+	/**
+	 * Return the version in which the property was deprecated, if it is still deprecated
+	 * in the most recent version it is present in.
+	 * @return the version that deprecated the property or {@code null}
+	 */
+	public String getDeprecatedIn() {
+		return this.deprecatedIn;
+	}
+
+	/**
+	 * Return the version in which the property was removed, if any.
+	 * @return the version that removed the property or {@code null}
+	 */
+	public String getRemovedIn() {
+		return this.removedIn;
+	}
+
+	/**
+	 * Return the versions in which the property was modified, in timeline order.
+	 * @return the versions that modified the property
+	 */
+	public List<String> getModifiedIn() {
+		return Collections.unmodifiableList(this.modifiedIn);
+	}
+
+	void added(String version) {
+		if (this.addedIn == null) {
+			this.addedIn = version;
+		}
+		else {
+			this.deprecatedIn = null;
+		}
+		this.removedIn = null;
+	}
+
+	void deprecated(String version) {
+		if (this.deprecatedIn == null) {
+			this.deprecatedIn = version;
+		}
+	}
+
+	void undeprecated() {
+		this.deprecatedIn = null;
+		this.removedIn = null;
+	}
+
+	void removed(String version) {
+		if (this.removedIn == null) {
+			this.removedIn = version;
+		}
+	}
+
+	void modified(String version) {
+		this.modifiedIn.add(version);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(this.id).append(" (added in ").append(this.addedIn);
+		if (this.deprecatedIn != null) {
+			sb.append(", deprecated in ").append(this.deprecatedIn);
+		}
+		if (this.removedIn != null) {
+			sb.append(", removed in ").append(this.removedIn);
+		}
+		if (!this.modifiedIn.isEmpty()) {
+			sb.append(", modified in ").append(String.join(", ", this.modifiedIn));
+		}
+		return sb.append(")").toString();
+	}
+
+}
@@ -0,0 +1,348 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.nicoll.boot.config.diff;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import net.nicoll.boot.config.loader.ConfigurationMetadataLoader;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+
+/**
+ * An index of the versions in which each property exists, and is deprecated. Each
+ * property has a bitmap whose bits are the positions of the versions of the index, so
+ * that presence queries across versions are bitmap operations rather than diffs.
+ * <p>
+ * The index can be {@linkplain #writeTo(OutputStream) written} in a compact, compressed,
+ * binary format and {@linkplain #readFrom(InputStream) read} back.
+ *
+ * @author Stephane Nicoll
+ */
+public final class PropertyVersionIndex {
+
+	/**
+	 * The version of the binary format. Must be incremented whenever the layout changes.
+	 */
+	public static final int FORMAT_VERSION = 1;
+
+	private final List<String> versions;
+
+	private final String[] ids;
+
+	private final Map<String, Integer> ordinals;
+
+	private final BitSet[] present;
+
+	private final BitSet[] deprecated;
+
+	private final BitSet[] propertiesByVersion;
+
+	private final BitSet[] deprecatedByVersion;
+
+	private PropertyVersionIndex(List<String> versions, String[] ids, BitSet[] present, BitSet[] deprecated) {
+		this.versions = List.copyOf(versions);
+		this.ids = ids;
+		this.present = present;
+		this.deprecated = deprecated;
+		this.ordinals = new HashMap<>(ids.length * 4 / 3 + 1);
+		this.propertiesByVersion = new BitSet[versions.size()];
+		this.deprecatedByVersion = new BitSet[versions.size()];
+		for (int i = 0; i < versions.size(); i++) {
+			this.propertiesByVersion[i] = new BitSet(ids.length);
+			this.deprecatedByVersion[i] = new BitSet(ids.length);
+		}
+		for (int ordinal = 0; ordinal < ids.length; ordinal++) {
+			this.ordinals.put(ids[ordinal], ordinal);
+			int property = ordinal;
+			present[ordinal].stream().forEach((version) -> this.propertiesByVersion[version].set(property));
+			deprecated[ordinal].stream().forEach((version) -> this.deprecatedByVersion[version].set(property));
+		}
+	}
+
+	/**
+	 * Build an index for the specified versions. Repositories are loaded one at a time
+	 * and are not retained.
+	 * @param loader the loader to use
+	 * @param versions the versions to index, in order
+	 * @return the index
+	 * @throws IOException if a repository failed to load
+	 */
+	public static PropertyVersionIndex build(ConfigurationMetadataLoader loader, List<String> versions)
+			throws IOException {
+		Map<String, BitSet[]> entries = new TreeMap<>();
+		for (int i = 0; i < versions.size(); i++) {
+			ConfigurationMetadataRepository repository = loader.loadRepository(versions.get(i));
+			for (ConfigurationMetadataProperty property : repository.getAllProperties().values()) {
+				BitSet[] entry = entries.computeIfAbsent(property.getId(),
+						(id) -> new BitSet[] { new BitSet(versions.size()), new BitSet(versions.size()) });
+				entry[0].set(i);
+				if (property.isDeprecated()) {
+					entry[1].set(i);
+				}
+			}
+		}
+		String[] ids = entries.keySet().toArray(new String[0]);
+		BitSet[] present = new BitSet[ids.length];
+		BitSet[] deprecated = new BitSet[ids.length];
+		for (int ordinal = 0; ordinal < ids.length; ordinal++) {
+			BitSet[] entry = entries.get(ids[ordinal]);
+			present[ordinal] = entry[0];
+			deprecated[ordinal] = entry[1];
+		}
+		return new PropertyVersionIndex(versions, ids, present, deprecated);
+	}
+
+	/**
+	 * Return the indexed versions, in order.
+	 * @return the versions
+	 */
+	public List<String> getVersions() {
+		return this.versions;
+	}
+
+	/**
+	 * Return the ids of all the properties that exist in at least one version, sorted.
+	 * @return the property ids
+	 */
+	public List<String> getProperties() {
+		return List.of(this.ids);
+	}
+
+	/**
+	 * Return the ids of the properties that exist in the specified version.
+	 * @param version an indexed version
+	 * @return the sorted ids of the properties of that version
+	 */
+	public List<String> getProperties(String version) {
+		return toIds(this.propertiesByVersion[versionIndex(version)]);
+	}
+
+	/**
+	 * Return the ids of the properties that are deprecated in the specified version.
+	 * @param version an indexed version
+	 * @return the sorted ids of the deprecated properties of that version
+	 */
+	public List<String> getDeprecatedProperties(String version) {
+		return toIds(this.deprecatedByVersion[versionIndex(version)]);
+	}
+
+	/**
+	 * Return the ids of the properties that exist in a version and not in another one.
+	 * @param presentIn the version in which properties must exist
+	 * @param missingIn the version in which properties must not exist
+	 * @return the sorted ids of the matching properties
+	 */
+	public List<String> getPropertiesMissingIn(String presentIn, String missingIn) {
+		BitSet result = (BitSet) this.propertiesByVersion[versionIndex(presentIn)].clone();
+		result.andNot(this.propertiesByVersion[versionIndex(missingIn)]);
+		return toIds(result);
+	}
+
+	/**
+	 * Return whether the property with the specified id exists in the specified version.
+	 * @param id the id of a property
+	 * @param version an indexed version
+	 * @return {@code true} if the property exists in that version
+	 */
+	public boolean contains(String id, String version) {
+		Integer ordinal = this.ordinals.get(id);
+		return ordinal != null && this.present[ordinal].get(versionIndex(version));
+	}
+
+	/**
+	 * Return the versions in which the property with the specified id exists.
+	 * @param id the id of a property
+	 * @return the versions of the property, in order, or an empty list if it is unknown
+	 */
+	public List<String> getVersions(String id) {
+		Integer ordinal = this.ordinals.get(id);
+		if (ordinal == null) {
+			return Collections.emptyList();
+		}
+		List<String> result = new ArrayList<>();
+		this.present[ordinal].stream().forEach((version) -> result.add(this.versions.get(version)));
+		return result;
+	}
+
+	/**
+	 * Return the first version in which the property with the specified id exists.
+	 * @param id the id of a property
+	 * @return the first version of the property or {@code null} if it is unknown
+	 */
+	public String since(String id) {
+		return firstVersion(this.present, id);
+	}
+
+	/**
+	 * Return the last version in which the property with the specified id exists.
+	 * @param id the id of a property
+	 * @return the last version of the property or {@code null} if it is unknown
+	 */
+	public String until(String id) {
+		Integer ordinal = this.ordinals.get(id);
+		if (ordinal == null) {
+			return null;
+		}
+		BitSet versions = this.present[ordinal];
+		return this.versions.get(versions.length() - 1);
+	}
+
+	/**
+	 * Return the first version in which the property with the specified id is deprecated.
+	 * @param id the id of a property
+	 * @return the first version that deprecates the property or {@code null} if it is
+	 * unknown or was never deprecated
+	 */
+	public String deprecatedSince(String id) {
+		return firstVersion(this.deprecated, id);
+	}
+
+	/**
+	 * Write this index to the specified {@link OutputStream}.
+	 * @param out the stream to write to
+	 * @throws IOException if the index cannot be written
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		GZIPOutputStream compressed = new GZIPOutputStream(out);
+		DataOutputStream data = new DataOutputStream(compressed);
+		data.writeInt(FORMAT_VERSION);
+		data.writeInt(this.versions.size());
+		for (String version : this.versions) {
+			data.writeUTF(version);
+		}
+		data.writeInt(this.ids.length);
+		for (int ordinal = 0; ordinal < this.ids.length; ordinal++) {
+			data.writeUTF(this.ids[ordinal]);
+			writeBitSet(data, this.present[ordinal]);
+			writeBitSet(data, this.deprecated[ordinal]);
+		}
+		data.flush();
+		compressed.finish();
+	}
+
+	/**
+	 * Write this index to the specified file.
+	 * @param file the file to write to
+	 * @throws IOException if the index cannot be written
+	 */
+	public void writeTo(Path file) throws IOException {
+		try (OutputStream out = Files.newOutputStream(file)) {
+			writeTo(out);
+		}
+	}
+
+	/**
+	 * Read an index from the specified {@link InputStream}.
+	 * @param in the stream to read from
+	 * @return the index
+	 * @throws IOException if the index cannot be read or was written using another
+	 * {@linkplain #FORMAT_VERSION format version}
+	 */
+	public static PropertyVersionIndex readFrom(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(new GZIPInputStream(in));
+		int formatVersion = data.readInt();
+		if (formatVersion != FORMAT_VERSION) {
+			throw new IOException("Unsupported index format version " + formatVersion);
+		}
+		int versionCount = data.readInt();
+		List<String> versions = new ArrayList<>(versionCount);
+		for (int i = 0; i < versionCount; i++) {
+			versions.add(data.readUTF());
+		}
+		int count = data.readInt();
+		String[] ids = new String[count];
+		BitSet[] present = new BitSet[count];
+		BitSet[] deprecated = new BitSet[count];
+		for (int ordinal = 0; ordinal < count; ordinal++) {
+			ids[ordinal] = data.readUTF();
+			present[ordinal] = readBitSet(data);
+			deprecated[ordinal] = readBitSet(data);
+		}
+		return new PropertyVersionIndex(versions, ids, present, deprecated);
+	}
+
+	/**
+	 * Read an index from the specified file.
+	 * @param file the file to read from
+	 * @return the index
+	 * @throws IOException if the index cannot be read
+	 */
+	public static PropertyVersionIndex readFrom(Path file) throws IOException {
+		try (InputStream in = Files.newInputStream(file)) {
+			return readFrom(in);
+		}
+	}
+
+	private int versionIndex(String version) {
+		int index = this.versions.indexOf(version);
+		if (index == -1) {
+			throw new IllegalArgumentException("Version " + version + " is not indexed");
+		}
+		return index;
+	}
+
+	private String firstVersion(BitSet[] bitSets, String id) {
+		Integer ordinal = this.ordinals.get(id);
+		if (ordinal == null) {
+			return null;
+		}
+		int version = bitSets[ordinal].nextSetBit(0);
+		return (version != -1) ? this.versions.get(version) : null;
+	}
+
+	private List<String> toIds(BitSet properties) {
+		List<String> result = new ArrayList<>(properties.cardinality());
+		properties.stream().forEach((ordinal) -> result.add(this.ids[ordinal]));
+		return result;
+	}
+
+	private static void writeBitSet(DataOutputStream data, BitSet bitSet) throws IOException {
+		long[] words = bitSet.toLongArray();
+		if (words.length > 255) {
+			throw new IOException("Too many versions to write index");
+		}
+		data.writeByte(words.length);
+		for (long word : words) {
+			data.writeLong(word);
+		}
+	}
+
+	private static BitSet readBitSet(DataInputStream data) throws IOException {
+		long[] words = new long[data.readUnsignedByte()];
+		for (int i = 0; i < words.length; i++) {
+			words[i] = data.readLong();
+		}
+		return BitSet.valueOf(words);
+	}
+
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.nicoll.boot.config.diff;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataGroup;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+import org.springframework.util.StringUtils;
+
+/**
+ * Detect properties that have been renamed rather than removed, for instance
+ * {@code spring.redis.host} becoming {@code spring.data.redis.host}.
+ * <p>
+ * Added properties are indexed by the n-grams of their key segments: each segment and
+ * each pair of consecutive segments, the last segment being weighted twice. Each removed
+ * property is scored against the added properties that share at least one n-gram, the
+ * n-grams being weighted by their rarity. N-grams that are shared by too many added
+ * properties, such as {@code spring}, are ignored, which keeps the number of candidates
+ * of a removed property bounded. The score is combined with whether both properties have
+ * the same type, and the best pairs are kept greedily so that each property is part of at
+ * most one {@link ConfigDiffType#MOVE}.
+ * <p>
+ * A removed property whose deprecation names an added property as its replacement is
+ * always considered moved, with full confidence.
+ *
+ * @author Stephane Nicoll
+ */
+public class RenameDetector {
+
+	private static final double DEFAULT_THRESHOLD = 0.6;
+
+	private static final int DEFAULT_MAX_CANDIDATES = 256;
+
+	private static final double TYPE_WEIGHT = 0.2;
+
+	private final double threshold;
+
+	private final int maxCandidates;
+
+	public RenameDetector() {
+		this(DEFAULT_THRESHOLD, DEFAULT_MAX_CANDIDATES);
+	}
+
+	/**
+	 * Create a new instance.
+	 * @param threshold the minimum confidence, between {@code 0} and {@code 1}, of a move
+	 * @param maxCandidates the number of added properties above which an n-gram is too
+	 * common to identify candidates
+	 */
+	public RenameDetector(double threshold, int maxCandidates) {
+		this.threshold = threshold;
+		this.maxCandidates = maxCandidates;
+	}
+
+	/**
+	 * Detect the moves between the specified removed and added properties.
+	 * @param removed the properties that have been removed
+	 * @param added the properties that have been added
+	 * @return the {@link ConfigDiffType#MOVE} entries, with the removed property on the
+	 * left and the added property on the right, ordered by decreasing confidence
+	 */
+	public List<ConfigDiffEntry<ConfigurationMetadataProperty>> detect(List<ConfigurationMetadataProperty> removed,
+			List<ConfigurationMetadataProperty> added) {
+		if (removed.isEmpty() || added.isEmpty()) {
+			return Collections.emptyList();
+		}
+		Index index = new Index(added);
+		List<Candidate> candidates = new ArrayList<>();
+		for (int i = 0; i < removed.size(); i++) {
+			index.collectCandidates(i, removed.get(i), candidates);
+		}
+		candidates.sort((first, second) -> Double.compare(second.confidence, first.confidence));
+		boolean[] removedMatched = new boolean[removed.size()];
+		boolean[] addedMatched = new boolean[added.size()];
+		List<ConfigDiffEntry<ConfigurationMetadataProperty>> moves = new ArrayList<>();
+		for (Candidate candidate : candidates) {
+			if (!removedMatched[candidate.removed] && !addedMatched[candidate.added]) {
+				removedMatched[candidate.removed] = true;
+				addedMatched[candidate.added] = true;
+				ConfigurationMetadataProperty left = removed.get(candidate.removed);
+				ConfigurationMetadataProperty right = added.get(candidate.added);
+				moves.add(
+						new ConfigDiffEntry<>(left, right, ConfigDiffField.compare(left, right), candidate.confidence));
+			}
+		}
+		return moves;
+	}
+
+	/**
+	 * Return a {@link ConfigDiffListener} that notifies the specified listener of the
+	 * moves detected among the removed and added properties. Other entries are passed
+	 * through as they are notified, while removed and added properties are held until the
+	 * diff completes. Moves are then notified ordered by the id of the removed property,
+	 * followed by the remaining removed and added properties.
+	 * @param delegate the listener to notify
+	 * @return a listener detecting moves
+	 */
+	public ConfigDiffListener decorate(ConfigDiffListener delegate) {
+		return new RenameDetectingListener(delegate);
+	}
+
+	private static List<String> ngrams(String id) {
+		String[] segments = StringUtils.delimitedListToStringArray(id, ".");
+		List<String> ngrams = new ArrayList<>(segments.length * 2 + 1);
+		for (int i = 0; i < segments.length; i++) {
+			ngrams.add(segments[i]);
+			if (i > 0) {
+				ngrams.add(segments[i - 1] + "." + segments[i]);
+			}
+		}
+		ngrams.add(segments[segments.length - 1]);
+		return ngrams;
+	}
+
+	private record Candidate(int removed, int added, double confidence) {
+	}
+
+	/**
+	 * An index of the added properties by n-gram.
+	 */
+	private final class Index {
+
+		private final List<ConfigurationMetadataProperty> added;
+
+		private final Map<String, Integer> ids = new HashMap<>();
+
+		private final Map<String, List<Integer>> postings = new HashMap<>();
+
+		private final double[] norms;
+
+		Index(List<ConfigurationMetadataProperty> added) {
+			this.added = added;
+			List<List<String>> ngrams = new ArrayList<>(added.size());
+			for (int i = 0; i < added.size(); i++) {
+				this.ids.put(added.get(i).getId(), i);
+				List<String> propertyNgrams = ngrams(added.get(i).getId());
+				ngrams.add(propertyNgrams);
+				for (String ngram : propertyNgrams) {
+					List<Integer> posting = this.postings.computeIfAbsent(ngram, (key) -> new ArrayList<>());
+					if (posting.isEmpty() || posting.get(posting.size() - 1) != i) {
+						posting.add(i);
+					}
+				}
+			}
+			this.norms = new double[added.size()];
+			for (int i = 0; i < added.size(); i++) {
+				this.norms[i] = norm(ngrams.get(i));
+			}
+		}
+
+		void collectCandidates(int removedIndex, ConfigurationMetadataProperty property, List<Candidate> candidates) {
+			Integer replacement = explicitReplacement(property);
+			if (replacement != null) {
+				candidates.add(new Candidate(removedIndex, replacement, 1));
+				return;
+			}
+			List<String> ngrams = ngrams(property.getId());
+			double norm = norm(ngrams);
+			if (norm == 0) {
+				return;
+			}
+			Map<Integer, Double> scores = new HashMap<>();
+			for (String ngram : ngrams) {
+				List<Integer> posting = this.postings.get(ngram);
+				double weight = weight(ngram);
+				if (posting != null && weight > 0) {
+					for (Integer candidate : posting) {
+						scores.merge(candidate, weight, Double::sum);
+					}
+				}
+			}
+			scores.forEach((candidate, score) -> {
+				double similarity = Math.min(1, score / Math.sqrt(norm * this.norms[candidate]));
+				boolean sameType = Objects.equals(property.getType(), this.added.get(candidate).getType());
+				double confidence = (1 - TYPE_WEIGHT) * similarity + ((sameType) ? TYPE_WEIGHT : 0);
+				if (confidence >= RenameDetector.this.threshold) {
+					candidates.add(new Candidate(removedIndex, candidate, confidence));
+				}
+			});
+		}
+
+		private Integer explicitReplacement(ConfigurationMetadataProperty property) {
+			String replacement = (property.getDeprecation() != null) ? property.getDeprecation().getReplacement()
+					: null;
+			return (replacement != null) ? this.ids.get(replacement) : null;
+		}
+
+		private double norm(List<String> ngrams) {
+			double norm = 0;
+			for (String ngram : ngrams) {
+				norm += weight(ngram);
+			}
+			return norm;
+		}
+
+		/**
+		 * Return the weight of the specified n-gram: the rarer among the added
+		 * properties, the higher, or {@code 0} if it is too common to be useful.
+		 */
+		private double weight(String ngram) {
+			List<Integer> posting = this.postings.get(ngram);
+			int frequency = (posting != null) ? posting.size() : 1;
+			if (frequency > RenameDetector.this.maxCandidates) {
+				return 0;
+			}
+			return Math.log(1 + (double) this.added.size() / frequency);
+		}
+
+	}
+
+	/**
+	 * A {@link ConfigDiffListener} that holds removed and added properties until the diff
+	 * completes to notify the detected moves first.
+	 */
+	private final class RenameDetectingListener implements ConfigDiffListener {
+
+		private final ConfigDiffListener delegate;
+
+		private final List<ConfigurationMetadataProperty> removed = new ArrayList<>();
+
+		private final List<ConfigurationMetadataProperty> added = new ArrayList<>();
+
+		RenameDetectingListener(ConfigDiffListener delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void onStart(String leftVersion, String rightVersion) {
+			this.removed.clear();
+			this.added.clear();
+			this.delegate.onStart(leftVersion, rightVersion);
+		}
+
+		@Override
+		public void onGroup(ConfigDiffType type, ConfigDiffEntry<ConfigurationMetadataGroup> entry) {
+			this.delegate.onGroup(type, entry);
+		}
+
+		@Override
+		public void onProperty(ConfigDiffType type, ConfigDiffEntry<ConfigurationMetadataProperty> entry) {
+			if (type == ConfigDiffType.DELETE && entry.right() == null) {
+				this.removed.add(entry.left());
+			}
+			else if (type == ConfigDiffType.ADD) {
+				this.added.add(entry.right());
+			}
+			else {
+				this.delegate.onProperty(type, entry);
+			}
+		}
+
+		@Override
+		public void onComplete() {
+			List<ConfigDiffEntry<ConfigurationMetadataProperty>> moves = new ArrayList<>(
+					detect(this.removed, this.added));
+			moves.sort(Comparator.comparing((move) -> move.left().getId()));
+			Map<ConfigurationMetadataProperty, Boolean> moved = new IdentityHashMap<>();
+			for (ConfigDiffEntry<ConfigurationMetadataProperty> move : moves) {
+				moved.put(move.left(), Boolean.TRUE);
+				moved.put(move.right(), Boolean.TRUE);
+				this.delegate.onProperty(ConfigDiffType.MOVE, move);
+			}
+			for (ConfigurationMetadataProperty property : this.removed) {
+				if (!moved.containsKey(property)) {
+					this.delegate.onProperty(ConfigDiffType.DELETE, new ConfigDiffEntry<>(property, null));
+				}
+			}
+			for (ConfigurationMetadataProperty property : this.added) {
+				if (!moved.containsKey(property)) {
+					this.delegate.onProperty(ConfigDiffType.ADD, new ConfigDiffEntry<>(null, property));
+				}
+			}
+			this.delegate.onComplete();
+		}
+
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getName() + "[threshold=" + this.threshold + ", maxCandidates=" + this.maxCandidates + "]";
+	}
+
+}
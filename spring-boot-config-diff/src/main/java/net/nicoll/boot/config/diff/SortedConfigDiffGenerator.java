@@ -0,0 +1,99 @@
+/*
+ * Copyright 2012-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.nicoll.boot.config.diff;
+
+import java.util.Comparator;
+import java.util.List;
+
+import net.nicoll.boot.config.loader.ConfigurationMetadataLoader;
+import net.nicoll.boot.metadata.MetadataUtils;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataGroup;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+
+/**
+ * A {@link ConfigDiffGenerator} that sorts both sides once and merge-joins them rather
+ * than probing a map for each id. Entries are registered in the order formatters expect
+ * so the resulting {@link ConfigDiffResult} is {@linkplain ConfigDiffResult#isSorted()
+ * sorted}.
+ *
+ * @author Stephane Nicoll
+ */
+public class SortedConfigDiffGenerator extends ConfigDiffGenerator {
+
+	public SortedConfigDiffGenerator(ConfigurationMetadataLoader loader) {
+		super(loader);
+	}
+
+	@Override
+	protected ConfigDiffResult createDiffResult(String leftVersion, String rightVersion, boolean retainEquals) {
+		return new ConfigDiffResult(leftVersion, rightVersion, true, retainEquals);
+	}
+
+	@Override
+	protected ConfigDiffGenerator diffGroup(ConfigDiffListener listener, ConfigurationMetadataRepository left,
+			ConfigurationMetadataRepository right) {
+		mergeJoin(MetadataUtils.sortGroups(left.getAllGroups().values()),
+				MetadataUtils.sortGroups(right.getAllGroups().values()), MetadataUtils.GROUP_COMPARATOR,
+				(leftGroup, rightGroup) -> registerGroup(listener, leftGroup, rightGroup));
+		return this;
+	}
+
+	@Override
+	protected ConfigDiffGenerator diffItem(ConfigDiffListener listener, ConfigurationMetadataRepository left,
+			ConfigurationMetadataRepository right) {
+		mergeJoin(MetadataUtils.sortProperties(left.getAllProperties().values()),
+				MetadataUtils.sortProperties(right.getAllProperties().values()), MetadataUtils.PROPERTY_COMPARATOR,
+				(leftProperty, rightProperty) -> registerProperty(listener, leftProperty, rightProperty));
+		return this;
+	}
+
+	static <T> void mergeJoin(List<T> left, List<T> right, Comparator<T> comparator, Joiner<T> joiner) {
+		int i = 0;
+		int j = 0;
+		while (i < left.size() || j < right.size()) {
+			int order;
+			if (i == left.size()) {
+				order = 1;
+			}
+			else if (j == right.size()) {
+				order = -1;
+			}
+			else {
+				order = comparator.compare(left.get(i), right.get(j));
+			}
+			if (order < 0) {
+				joiner.join(left.get(i++), null);
+			}
+			else if (order > 0) {
+				joiner.join(null, right.get(j++));
+			}
+			else {
+				joiner.join(left.get(i++), right.get(j++));
+			}
+		}
+	}
+
+	@FunctionalInterface
+	interface Joiner<T> {
+
+		void join(T left, T right);
+
+	}
+
+}
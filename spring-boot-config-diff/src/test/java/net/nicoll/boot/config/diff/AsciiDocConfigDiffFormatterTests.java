@@ -0,0 +1,102 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.nicoll.boot.config.diff;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import net.nicoll.boot.config.loader.ConfigurationMetadataLoader;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepositoryJsonBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.StreamUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link AsciiDocConfigDiffFormatter}. Expected outputs are the rendering of
+ * the formatter before the introduction of the {@code Writer} overloads, with the
+ * addition of the moved properties section.
+ *
+ * @author Stephane Nicoll
+ */
+public class AsciiDocConfigDiffFormatterTests {
+
+	private final AsciiDocConfigDiffFormatter formatter = new AsciiDocConfigDiffFormatter();
+
+	@Test
+	public void formatDiff() throws IOException {
+		ConfigDiffResult result = new ConfigDiffGenerator(configure()).generateDiff("1.0", "2.0");
+		assertThat(this.formatter.formatDiff(result)).isEqualToNormalizingNewlines(read("asciidoc-1.0-2.0.adoc"));
+	}
+
+	@Test
+	public void formatDiffWithNoAddedProperty() throws IOException {
+		ConfigDiffResult result = new ConfigDiffGenerator(configure()).generateDiff("2.0", "3.0");
+		assertThat(this.formatter.formatDiff(result)).isEqualToNormalizingNewlines(read("asciidoc-2.0-3.0.adoc"));
+	}
+
+	@Test
+	public void formatDiffWithMovedProperties() throws IOException {
+		ConfigDiffGenerator generator = new ConfigDiffGenerator(configure());
+		generator.setRenameDetector(new RenameDetector(0.1, 256));
+		ConfigDiffResult result = generator.generateDiff("1.0", "2.0");
+		assertThat(this.formatter.formatDiff(result)).isEqualToNormalizingNewlines(read("asciidoc-moved-1.0-2.0.adoc"));
+	}
+
+	@Test
+	public void formatSortedDiff() throws IOException {
+		ConfigDiffResult result = new SortedConfigDiffGenerator(configure()).generateDiff("1.0", "2.0");
+		assertThat(result.isSorted()).isTrue();
+		assertThat(this.formatter.formatDiff(result)).isEqualToNormalizingNewlines(read("asciidoc-1.0-2.0.adoc"));
+	}
+
+	@Test
+	public void formatDiffToWriter() throws IOException {
+		ConfigDiffResult result = new ConfigDiffGenerator(configure()).generateDiff("1.0", "2.0");
+		StringWriter out = new StringWriter();
+		this.formatter.formatDiff(result, out);
+		assertThat(out.toString()).isEqualTo(this.formatter.formatDiff(result));
+	}
+
+	private ConfigurationMetadataLoader configure() throws IOException {
+		ConfigurationMetadataLoader loader = mock(ConfigurationMetadataLoader.class);
+		given(loader.loadRepository("1.0")).willReturn(load("repository/sample-one-1.0.json"));
+		given(loader.loadRepository("2.0")).willReturn(load("repository/sample-one-2.0.json"));
+		given(loader.loadRepository("3.0")).willReturn(load("repository/sample-one-3.0.json"));
+		return loader;
+	}
+
+	private ConfigurationMetadataRepository load(String path) throws IOException {
+		try (InputStream in = new ClassPathResource(path).getInputStream()) {
+			return ConfigurationMetadataRepositoryJsonBuilder.create(in).build();
+		}
+	}
+
+	private String read(String name) throws IOException {
+		try (InputStream in = new ClassPathResource("golden/" + name).getInputStream()) {
+			return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+		}
+	}
+
+}
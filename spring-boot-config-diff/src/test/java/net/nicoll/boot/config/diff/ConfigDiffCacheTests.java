@@ -0,0 +1,227 @@
+package net.nicoll.boot.config.diff;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+import net.nicoll.boot.config.loader.ConfigurationMetadataLoader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepositoryJsonBuilder;
+import org.springframework.core.io.ClassPathResource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link ConfigDiffCache}.
+ *
+ * @author Stephane Nicoll
+ */
+public class ConfigDiffCacheTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void putAndGetRetainsEntries() throws IOException {
+		ConfigDiffGenerator generator = new SortedConfigDiffGenerator(configure());
+		generator.setRetainEquals(true);
+		ConfigDiffResult result = generator.generateDiff("1.0", "2.0");
+		ConfigDiffCache cache = new ConfigDiffCache(this.directory);
+		cache.put(key("abc", "def"), result);
+		ConfigDiffResult cached = cache.get(key("abc", "def"));
+		assertThat(cached).isNotNull();
+		assertThat(cached.getLeftVersion()).isEqualTo("1.0");
+		assertThat(cached.getRightVersion()).isEqualTo("2.0");
+		assertThat(cached.isSorted()).isTrue();
+		assertThat(cached.isRetainEquals()).isTrue();
+		for (ConfigDiffType type : ConfigDiffType.values()) {
+			assertThat(cached.getGroupsCountFor(type)).isEqualTo(result.getGroupsCountFor(type));
+			assertThat(cached.getPropertiesCountFor(type)).isEqualTo(result.getPropertiesCountFor(type));
+			assertThat(cached.getPropertiesDiffFor(type)).map(this::describe)
+				.containsExactlyElementsOf(result.getPropertiesDiffFor(type).stream().map(this::describe).toList());
+		}
+		assertThat(cached.getPropertiesDiffFor(ConfigDiffType.MODIFY)).singleElement()
+			.satisfies((entry) -> assertThat(entry.changes()).containsOnly(ConfigDiffField.DEFAULT_VALUE));
+		assertThat(new ConsoleConfigDiffFormatter().formatDiff(cached))
+			.isEqualTo(new ConsoleConfigDiffFormatter().formatDiff(result));
+		assertThat(new AsciiDocConfigDiffFormatter().formatDiff(cached))
+			.isEqualTo(new AsciiDocConfigDiffFormatter().formatDiff(result));
+	}
+
+	@Test
+	public void putAndGetRestoresIdsOfEqualEntries() throws IOException {
+		ConfigDiffResult result = new ConfigDiffGenerator(configure()).generateDiff("1.0", "2.0");
+		ConfigDiffCache cache = new ConfigDiffCache(this.directory);
+		cache.put(key("abc", "def"), result);
+		ConfigDiffResult cached = cache.get(key("abc", "def"));
+		assertThat(cached.isRetainEquals()).isFalse();
+		assertThat(cached.getPropertiesCountFor(ConfigDiffType.EQUALS)).isEqualTo(1);
+		assertThat(cached.getGroupsCountFor(ConfigDiffType.EQUALS))
+			.isEqualTo(result.getGroupsCountFor(ConfigDiffType.EQUALS));
+		assertThat(cached.getPropertiesDiffFor(ConfigDiffType.EQUALS)).map(this::describe)
+			.containsExactlyElementsOf(
+					result.getPropertiesDiffFor(ConfigDiffType.EQUALS).stream().map(this::describe).toList());
+		assertThat(cached.getGroupsDiffFor(ConfigDiffType.EQUALS)).map((entry) -> entry.left().getId())
+			.containsExactlyElementsOf(result.getGroupsDiffFor(ConfigDiffType.EQUALS)
+				.stream()
+				.map((entry) -> entry.left().getId())
+				.toList());
+		assertThat(cached.getPropertiesDiffFor(ConfigDiffType.ADD)).singleElement()
+			.satisfies((entry) -> assertThat(entry.right().getId()).isEqualTo("test.add"));
+	}
+
+	@Test
+	public void getWithDifferentChecksumReturnsNull() throws IOException {
+		ConfigDiffResult result = new ConfigDiffGenerator(configure()).generateDiff("1.0", "2.0");
+		ConfigDiffCache cache = new ConfigDiffCache(this.directory);
+		cache.put(key("abc", "def"), result);
+		assertThat(cache.get(key("abc", "xyz"))).isNull();
+		cache.put(key("abc", "xyz"), result);
+		assertThat(cache.get(key("abc", "def"))).isNull();
+		assertThat(cache.get(key("abc", "xyz"))).isNotNull();
+	}
+
+	@Test
+	public void getWithInvalidContentDeletesIt() throws IOException {
+		ConfigDiffResult result = new ConfigDiffGenerator(configure()).generateDiff("1.0", "2.0");
+		ConfigDiffCache cache = new ConfigDiffCache(this.directory);
+		cache.put(key("abc", "def"), result);
+		Path file = findDiff();
+		Files.write(file, new byte[] { 0x43, 0x44, 0x49, 0x46, 0x00 });
+		assertThat(cache.get(key("abc", "def"))).isNull();
+		assertThat(file).doesNotExist();
+	}
+
+	@Test
+	public void generatorUsesCache() throws IOException {
+		ConfigurationMetadataLoader loader = configure();
+		given(loader.getChecksum("1.0")).willReturn("abc");
+		given(loader.getChecksum("2.0")).willReturn("def");
+		ConfigDiffGenerator generator = new ConfigDiffGenerator(loader);
+		generator.setDiffCache(new ConfigDiffCache(this.directory));
+		ConfigDiffResult first = generator.generateDiff("1.0", "2.0");
+		ConfigDiffResult second = generator.generateDiff("1.0", "2.0");
+		verify(loader).loadRepository("1.0");
+		verify(loader).loadRepository("2.0");
+		assertThat(second.getPropertiesDiffFor(ConfigDiffType.DELETE)).map(this::describe)
+			.containsExactlyElementsOf(
+					first.getPropertiesDiffFor(ConfigDiffType.DELETE).stream().map(this::describe).toList());
+		assertThat(second.getPropertiesCountFor(ConfigDiffType.EQUALS)).isEqualTo(1);
+		assertThat(second.getPropertiesDiffFor(ConfigDiffType.EQUALS)).singleElement()
+			.satisfies((entry) -> assertThat(entry.right().getId()).isEqualTo("test.equal"));
+		verify(loader).loadRepository("1.0");
+	}
+
+	@Test
+	public void generatorUsesCacheAsync() throws Exception {
+		ConfigurationMetadataLoader loader = configure();
+		Executor executor = Runnable::run;
+		given(loader.getChecksum("1.0")).willReturn("abc");
+		given(loader.getChecksum("2.0")).willReturn("def");
+		given(loader.loadRepositoryAsync("1.0", executor))
+			.willReturn(CompletableFuture.completedFuture(load("repository/sample-one-1.0.json")));
+		given(loader.loadRepositoryAsync("2.0", executor))
+			.willReturn(CompletableFuture.completedFuture(load("repository/sample-one-2.0.json")));
+		ConfigDiffGenerator generator = new ConfigDiffGenerator(loader);
+		generator.setDiffCache(new ConfigDiffCache(this.directory));
+		ConfigDiffResult first = generator.generateDiffAsync("1.0", "2.0", executor).get();
+		ConfigDiffResult second = generator.generateDiffAsync("1.0", "2.0", executor).get();
+		verify(loader).loadRepositoryAsync("1.0", executor);
+		verify(loader).loadRepositoryAsync("2.0", executor);
+		assertThat(second.getPropertiesDiffFor(ConfigDiffType.DELETE)).map(this::describe)
+			.containsExactlyElementsOf(
+					first.getPropertiesDiffFor(ConfigDiffType.DELETE).stream().map(this::describe).toList());
+		generator.generateDiff("1.0", "2.0");
+		verify(loader, never()).loadRepository(anyString());
+	}
+
+	@Test
+	public void getWithDifferentConfigurationReturnsNull() throws IOException {
+		ConfigDiffResult result = new ConfigDiffGenerator(configure()).generateDiff("1.0", "2.0");
+		ConfigDiffCache cache = new ConfigDiffCache(this.directory);
+		cache.put(key("abc", "def"), result);
+		assertThat(cache.get(new ConfigDiffCache.Key("1.0", "abc", "2.0", "def", "other"))).isNull();
+		assertThat(cache.get(key("abc", "def"))).isNotNull();
+	}
+
+	@Test
+	public void putWithMismatchingVersionsFails() throws IOException {
+		ConfigDiffResult result = new ConfigDiffGenerator(configure()).generateDiff("1.0", "2.0");
+		ConfigDiffCache cache = new ConfigDiffCache(this.directory);
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> cache.put(new ConfigDiffCache.Key("2.0", "abc", "3.0", "def", "test"), result));
+	}
+
+	@Test
+	public void generatorCachesDiffPerConfiguration() throws IOException {
+		ConfigurationMetadataLoader loader = configure();
+		given(loader.getChecksum("1.0")).willReturn("abc");
+		given(loader.getChecksum("2.0")).willReturn("def");
+		ConfigDiffCache cache = new ConfigDiffCache(this.directory);
+		ConfigDiffGenerator generator = new ConfigDiffGenerator(loader);
+		generator.setDiffCache(cache);
+		ConfigDiffGenerator renameGenerator = new ConfigDiffGenerator(loader);
+		renameGenerator.setRenameDetector(new RenameDetector());
+		renameGenerator.setDiffCache(cache);
+		ConfigDiffGenerator sortedGenerator = new SortedConfigDiffGenerator(loader);
+		sortedGenerator.setDiffCache(cache);
+		generator.generateDiff("1.0", "2.0");
+		renameGenerator.generateDiff("1.0", "2.0");
+		sortedGenerator.generateDiff("1.0", "2.0");
+		verify(loader, times(3)).loadRepository("2.0");
+		generator.generateDiff("1.0", "2.0");
+		renameGenerator.generateDiff("1.0", "2.0");
+		assertThat(sortedGenerator.generateDiff("1.0", "2.0").isSorted()).isTrue();
+		verify(loader, times(3)).loadRepository("2.0");
+	}
+
+	private ConfigDiffCache.Key key(String leftChecksum, String rightChecksum) {
+		return new ConfigDiffCache.Key("1.0", leftChecksum, "2.0", rightChecksum, "test");
+	}
+
+	private String describe(ConfigDiffEntry<ConfigurationMetadataProperty> entry) {
+		return id(entry.left()) + ":" + id(entry.right()) + ":" + entry.changes() + ":" + entry.confidence();
+	}
+
+	private String id(ConfigurationMetadataProperty property) {
+		return (property != null) ? property.getId() + "=" + property.getDefaultValue() : null;
+	}
+
+	private Path findDiff() throws IOException {
+		try (Stream<Path> files = Files.walk(this.directory)) {
+			List<Path> diffs = files.filter((file) -> file.toString().endsWith(".diff")).toList();
+			assertThat(diffs).hasSize(1);
+			return diffs.get(0);
+		}
+	}
+
+	private ConfigurationMetadataLoader configure() throws IOException {
+		ConfigurationMetadataLoader loader = mock(ConfigurationMetadataLoader.class);
+		given(loader.loadRepository("1.0")).willReturn(load("repository/sample-one-1.0.json"));
+		given(loader.loadRepository("2.0")).willReturn(load("repository/sample-one-2.0.json"));
+		return loader;
+	}
+
+	private ConfigurationMetadataRepository load(String path) throws IOException {
+		try (InputStream in = new ClassPathResource(path).getInputStream()) {
+			return ConfigurationMetadataRepositoryJsonBuilder.create(in).build();
+		}
+	}
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoll.boot.config.diff;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import net.nicoll.boot.config.loader.ConfigurationMetadataLoader;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepositoryJsonBuilder;
+
+/**
+ * Measure how the time to diff two repositories scales with their number of properties,
+ * using synthetic repositories. The right side removes 5% of the properties of the left
+ * side, deprecates another 5% and adds 10% new properties. The hashed, the
+ * {@linkplain SortedConfigDiffGenerator sorted} and the
+ * {@linkplain ParallelConfigDiffGenerator parallel} engines are measured, along with the
+ * time to render their result.
+ * <p>
+ * Arguments are the number of properties to use, defaults to {@code 1000}, {@code 10000}
+ * and {@code 100000}.
+ *
+ * @author Stephane Nicoll
+ */
+public class ConfigDiffGeneratorBenchmark {
+
+	private static final int PROPERTIES_PER_GROUP = 20;
+
+	private static final int WARMUP_ITERATIONS = 5;
+
+	private static final int ITERATIONS = 10;
+
+	public static void main(String[] args) throws IOException {
+		String[] sizes = (args.length > 0) ? args : new String[] { "1000", "10000", "100000" };
+		ConfigDiffGenerator generator = new ConfigDiffGenerator((ConfigurationMetadataLoader) null);
+		ConfigDiffGenerator sortedGenerator = new SortedConfigDiffGenerator(null);
+		ConfigDiffGenerator parallelGenerator = new ParallelConfigDiffGenerator(null);
+		ConfigDiffFormatter formatter = new ConsoleConfigDiffFormatter();
+		for (String size : sizes) {
+			int properties = Integer.parseInt(size);
+			ConfigurationMetadataRepository left = createRepository(properties, false);
+			ConfigurationMetadataRepository right = createRepository(properties, true);
+			measure("hashed", generator, formatter, left, right, properties);
+			measure("sorted", sortedGenerator, formatter, left, right, properties);
+			measure("parallel", parallelGenerator, formatter, left, right, properties);
+		}
+	}
+
+	private static void measure(String name, ConfigDiffGenerator generator, ConfigDiffFormatter formatter,
+			ConfigurationMetadataRepository left, ConfigurationMetadataRepository right, int properties)
+			throws IOException {
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			formatter.formatDiff(generator.generateDiff("left", left, "right", right));
+		}
+		long diff = 0;
+		long format = 0;
+		for (int i = 0; i < ITERATIONS; i++) {
+			long start = System.nanoTime();
+			ConfigDiffResult result = generator.generateDiff("left", left, "right", right);
+			long generated = System.nanoTime();
+			formatter.formatDiff(result);
+			format += System.nanoTime() - generated;
+			diff += generated - start;
+		}
+		diff /= ITERATIONS;
+		format /= ITERATIONS;
+		System.out.printf("%-8s %7d properties: diff %8.2f ms (%6d ns/property), format %8.2f ms%n", name, properties,
+				diff / 1_000_000.0, diff / properties, format / 1_000_000.0);
+	}
+
+	static ConfigurationMetadataRepository createRepository(int properties, boolean right) throws IOException {
+		StringBuilder json = new StringBuilder("{\"groups\":[");
+		for (int group = 0; group < properties / PROPERTIES_PER_GROUP; group++) {
+			json.append((group > 0) ? "," : "");
+			json.append("{\"name\":\"group").append(group).append("\",\"type\":\"com.example.Group").append(group);
+			json.append("\",\"sourceType\":\"com.example.Group").append(group).append("\"}");
+		}
+		json.append("],\"properties\":[");
+		int total = (right) ? properties + properties / 10 : properties;
+		boolean first = true;
+		for (int i = 0; i < total; i++) {
+			if (right && i % 20 == 0 && i < properties) {
+				continue;
+			}
+			json.append((first) ? "" : ",");
+			first = false;
+			int group = (i / PROPERTIES_PER_GROUP) % (properties / PROPERTIES_PER_GROUP);
+			json.append("{\"name\":\"group").append(group).append(".property").append(i);
+			json.append("\",\"type\":\"java.lang.String\",\"sourceType\":\"com.example.Group").append(group);
+			json.append("\",\"defaultValue\":\"value").append(i).append("\"");
+			if (right && i % 20 == 1) {
+				json.append(",\"deprecated\":true");
+			}
+			json.append("}");
+		}
+		json.append("]}");
+		return ConfigurationMetadataRepositoryJsonBuilder
+			.create(new ByteArrayInputStream(json.toString().getBytes(StandardCharsets.UTF_8)))
+			.build();
+	}
+
+}
@@ -1,19 +1,31 @@
 package net.nicoll.boot.config.diff;
 
 import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 import net.nicoll.boot.config.loader.ConfigurationMetadataLoader;
 import org.junit.jupiter.api.Test;
 
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataGroup;
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepositoryJsonBuilder;
 import org.springframework.core.io.ClassPathResource;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 /**
  * Tests for {@link ConfigDiffGenerator}.
@@ -33,7 +45,12 @@ public class ConfigDiffGeneratorTests {
 		assertThat(diff.getRightVersion()).isEqualTo("2.0");
 		List<ConfigDiffEntry<ConfigurationMetadataProperty>> equal = diff.getPropertiesDiffFor(ConfigDiffType.EQUALS);
 		assertThat(equal).hasSize(1);
-		assertProperty(equal.get(0).right(), "test.equal", String.class, "test");
+		assertThat(equal.get(0).right().getId()).isEqualTo("test.equal");
+		List<ConfigDiffEntry<ConfigurationMetadataProperty>> modify = diff.getPropertiesDiffFor(ConfigDiffType.MODIFY);
+		assertThat(modify).hasSize(1);
+		assertProperty(modify.get(0).left(), "test.modify", String.class, "old");
+		assertProperty(modify.get(0).right(), "test.modify", String.class, "new");
+		assertThat(modify.get(0).changes()).containsOnly(ConfigDiffField.DEFAULT_VALUE);
 		List<ConfigDiffEntry<ConfigurationMetadataProperty>> added = diff.getPropertiesDiffFor(ConfigDiffType.ADD);
 		assertThat(added).hasSize(1);
 		assertProperty(added.get(0).right(), "test.add", String.class, "new");
@@ -48,6 +65,221 @@ public class ConfigDiffGeneratorTests {
 		assertProperty(deprecate.get(0).right(), "test.deprecate", String.class, "wrong");
 	}
 
+	@Test
+	public void diffRepositoriesOnlyRecordsIdsOfEqualEntries() throws IOException {
+		ConfigurationMetadataLoader loader = configure("repository/sample-one-1.0.json",
+				"repository/sample-one-2.0.json");
+		ConfigDiffResult diff = new ConfigDiffGenerator(loader).generateDiff("1.0", "2.0");
+		assertThat(diff.isRetainEquals()).isFalse();
+		assertThat(diff.getPropertiesCountFor(ConfigDiffType.EQUALS)).isEqualTo(1);
+		assertThat(diff.getPropertiesCountFor(ConfigDiffType.ADD)).isEqualTo(1);
+		assertThat(diff.getPropertiesDiffFor(ConfigDiffType.EQUALS)).singleElement().satisfies((entry) -> {
+			assertThat(entry.left().getId()).isEqualTo("test.equal");
+			assertThat(entry.right().getId()).isEqualTo("test.equal");
+			assertThat(entry.right().getDefaultValue()).isNull();
+		});
+		assertThat(diff.getGroupsDiffFor(ConfigDiffType.EQUALS)).hasSize(diff.getGroupsCountFor(ConfigDiffType.EQUALS));
+		verify(loader).loadRepository("1.0");
+		verify(loader).loadRepository("2.0");
+	}
+
+	@Test
+	public void diffRepositoriesDoesNotRetainRepositories() throws Exception {
+		ConfigurationMetadataRepository left = load("repository/sample-one-1.0.json");
+		ConfigurationMetadataRepository right = load("repository/sample-one-2.0.json");
+		WeakReference<ConfigurationMetadataRepository> leftReference = new WeakReference<>(left);
+		WeakReference<ConfigurationMetadataRepository> rightReference = new WeakReference<>(right);
+		ConfigDiffResult diff = new ConfigDiffGenerator(mock(ConfigurationMetadataLoader.class)).generateDiff("1.0",
+				left, "2.0", right);
+		left = null;
+		right = null;
+		awaitCollection(leftReference);
+		awaitCollection(rightReference);
+		assertThat(diff.getPropertiesDiffFor(ConfigDiffType.EQUALS)).singleElement()
+			.satisfies((entry) -> assertThat(entry.right().getId()).isEqualTo("test.equal"));
+	}
+
+	@Test
+	public void diffResultWithNoEqualEntries() {
+		ConfigDiffResult diff = new ConfigDiffResult("1.0", "2.0", false, false);
+		assertThat(diff.getPropertiesDiffFor(ConfigDiffType.EQUALS)).isEmpty();
+		assertThat(diff.getPropertiesCountFor(ConfigDiffType.EQUALS)).isZero();
+	}
+
+	@Test
+	public void diffResultRetainsEqualEntriesByDefault() {
+		ConfigDiffResult diff = new ConfigDiffResult("1.0", "2.0");
+		assertThat(diff.isRetainEquals()).isTrue();
+		assertThat(diff.getPropertiesDiffFor(ConfigDiffType.EQUALS)).isEmpty();
+	}
+
+	@Test
+	public void diffRepositoriesRetainsEqualEntries() throws IOException {
+		ConfigurationMetadataLoader loader = configure("repository/sample-one-1.0.json",
+				"repository/sample-one-2.0.json");
+		ConfigDiffGenerator configDiffGenerator = new ConfigDiffGenerator(loader);
+		configDiffGenerator.setRetainEquals(true);
+		ConfigDiffResult diff = configDiffGenerator.generateDiff("1.0", "2.0");
+		assertThat(diff.isRetainEquals()).isTrue();
+		assertThat(diff.getPropertiesDiffFor(ConfigDiffType.EQUALS)).hasSize(1);
+		verify(loader).loadRepository("1.0");
+		verify(loader).loadRepository("2.0");
+	}
+
+	@Test
+	public void diffRepositoriesIncrementally() throws Exception {
+		ConfigurationMetadataLoader loader = mock(ConfigurationMetadataLoader.class);
+		given(loader.loadChangedRepositories("1.0", "2.0")).willReturn(
+				Map.of("1.0", load("repository/sample-one-1.0.json"), "2.0", load("repository/sample-one-2.0.json")));
+		ConfigDiffGenerator configDiffGenerator = new ConfigDiffGenerator(loader);
+		configDiffGenerator.setIncremental(true);
+		ConfigDiffResult diff = configDiffGenerator.generateDiff("1.0", "2.0");
+		assertThat(diff.getPropertiesDiffFor(ConfigDiffType.ADD)).singleElement()
+			.satisfies((entry) -> assertProperty(entry.right(), "test.add", String.class, "new"));
+		assertThat(diff.getPropertiesDiffFor(ConfigDiffType.EQUALS)).hasSize(1);
+		verify(loader).loadChangedRepositories("1.0", "2.0");
+		verify(loader, never()).loadRepository(anyString());
+	}
+
+	@Test
+	public void diffRepositoriesWithListener() throws IOException {
+		ConfigurationMetadataLoader loader = configure("repository/sample-one-1.0.json",
+				"repository/sample-one-2.0.json");
+		List<String> events = new ArrayList<>();
+		new SortedConfigDiffGenerator(loader).generateDiff("1.0", "2.0", new ConfigDiffListener() {
+
+			@Override
+			public void onStart(String leftVersion, String rightVersion) {
+				events.add("start " + leftVersion + " " + rightVersion);
+			}
+
+			@Override
+			public void onGroup(ConfigDiffType type, ConfigDiffEntry<ConfigurationMetadataGroup> entry) {
+				events.add(type + " group " + getGroupId(entry));
+			}
+
+			@Override
+			public void onProperty(ConfigDiffType type, ConfigDiffEntry<ConfigurationMetadataProperty> entry) {
+				events.add(type + " " + getId(entry));
+			}
+
+			@Override
+			public void onComplete() {
+				events.add("complete");
+			}
+
+		});
+		assertThat(events).containsExactly("start 1.0 2.0", "MODIFY group _ROOT_GROUP_", "ADD test.add",
+				"DELETE test.delete", "DELETE test.delete.deprecated", "DEPRECATE test.deprecate", "EQUALS test.equal",
+				"MODIFY test.modify", "complete");
+	}
+
+	@Test
+	public void registerPropertyIgnoresWhitespacesOfDescription() {
+		ConfigDiffGenerator generator = new ConfigDiffGenerator(mock(ConfigurationMetadataLoader.class));
+		List<String> events = new ArrayList<>();
+		ConfigDiffListener listener = new ConfigDiffListener() {
+
+			@Override
+			public void onGroup(ConfigDiffType type, ConfigDiffEntry<ConfigurationMetadataGroup> entry) {
+			}
+
+			@Override
+			public void onProperty(ConfigDiffType type, ConfigDiffEntry<ConfigurationMetadataProperty> entry) {
+				events.add(type + " " + entry.changes());
+			}
+
+		};
+		generator.registerProperty(listener, property("Test  description.\n"), property(" Test description."));
+		generator.registerProperty(listener, property("Test description."), property("Test\ndescription!"));
+		assertThat(events).containsExactly("EQUALS []", "MODIFY [DESCRIPTION]");
+	}
+
+	@Test
+	public void diffRepositoriesSorted() throws IOException {
+		ConfigurationMetadataLoader loader = configure("repository/sample-one-1.0.json",
+				"repository/sample-one-2.0.json");
+		ConfigDiffResult expected = new ConfigDiffGenerator(loader).generateDiff("1.0", "2.0");
+		ConfigDiffResult diff = new SortedConfigDiffGenerator(loader).generateDiff("1.0", "2.0");
+		assertThat(expected.isSorted()).isFalse();
+		assertThat(diff.isSorted()).isTrue();
+		for (ConfigDiffType type : ConfigDiffType.values()) {
+			List<String> ids = diff.getPropertiesDiffFor(type).stream().map(this::getId).toList();
+			assertThat(ids).isSorted()
+				.containsExactlyInAnyOrderElementsOf(
+						expected.getPropertiesDiffFor(type).stream().map(this::getId).toList());
+			assertThat(diff.getGroupsDiffFor(type)).map(this::getGroupId)
+				.containsExactlyInAnyOrderElementsOf(
+						expected.getGroupsDiffFor(type).stream().map(this::getGroupId).toList());
+		}
+	}
+
+	@Test
+	public void diffRepositoriesParallel() throws IOException {
+		ConfigurationMetadataLoader loader = configure("repository/sample-one-1.0.json",
+				"repository/sample-one-2.0.json");
+		ConfigDiffResult expected = new SortedConfigDiffGenerator(loader).generateDiff("1.0", "2.0");
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			ConfigDiffResult diff = new ParallelConfigDiffGenerator(loader, pool, 1).generateDiff("1.0", "2.0");
+			assertThat(diff.isSorted()).isTrue();
+			for (ConfigDiffType type : ConfigDiffType.values()) {
+				assertThat(diff.getPropertiesDiffFor(type)).usingRecursiveFieldByFieldElementComparator()
+					.isEqualTo(expected.getPropertiesDiffFor(type));
+				assertThat(diff.getGroupsDiffFor(type)).usingRecursiveFieldByFieldElementComparator()
+					.isEqualTo(expected.getGroupsDiffFor(type));
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void diffRepositoriesAsync() throws Exception {
+		ConfigurationMetadataLoader loader = mock(ConfigurationMetadataLoader.class);
+		Executor executor = Runnable::run;
+		given(loader.loadRepositoryAsync("1.0", executor))
+			.willReturn(CompletableFuture.completedFuture(load("repository/sample-one-1.0.json")));
+		given(loader.loadRepositoryAsync("2.0", executor))
+			.willReturn(CompletableFuture.completedFuture(load("repository/sample-one-2.0.json")));
+		ConfigDiffResult diff = new ConfigDiffGenerator(loader).generateDiffAsync("1.0", "2.0", executor).get();
+		assertThat(diff.getLeftVersion()).isEqualTo("1.0");
+		assertThat(diff.getRightVersion()).isEqualTo("2.0");
+		assertThat(diff.getPropertiesDiffFor(ConfigDiffType.ADD)).hasSize(1);
+		assertThat(diff.getPropertiesDiffFor(ConfigDiffType.DELETE)).hasSize(2);
+	}
+
+	@Test
+	public void diffRepositoriesAsyncWithFailure() throws Exception {
+		ConfigurationMetadataLoader loader = mock(ConfigurationMetadataLoader.class);
+		Executor executor = Runnable::run;
+		given(loader.loadRepositoryAsync("1.0", executor))
+			.willReturn(CompletableFuture.failedFuture(new IOException("test")));
+		given(loader.loadRepositoryAsync("2.0", executor))
+			.willReturn(CompletableFuture.completedFuture(load("repository/sample-one-2.0.json")));
+		assertThat(new ConfigDiffGenerator(loader).generateDiffAsync("1.0", "2.0", executor))
+			.failsWithin(Duration.ofSeconds(1))
+			.withThrowableOfType(ExecutionException.class)
+			.withCauseInstanceOf(IOException.class);
+	}
+
+	private ConfigurationMetadataProperty property(String description) {
+		ConfigurationMetadataProperty property = new ConfigurationMetadataProperty();
+		property.setId("test.name");
+		property.setType(String.class.getName());
+		property.setDescription(description);
+		return property;
+	}
+
+	private void awaitCollection(WeakReference<?> reference) throws InterruptedException {
+		for (int i = 0; i < 50 && reference.get() != null; i++) {
+			System.gc();
+			Thread.sleep(20);
+		}
+		assertThat(reference.get()).isNull();
+	}
+
 	private void assertProperty(ConfigurationMetadataProperty property, String id, Class<?> type, Object defaultValue) {
 		assertThat(property).isNotNull();
 		assertThat(property.getId()).isEqualTo(id);
@@ -55,6 +287,14 @@ public class ConfigDiffGeneratorTests {
 		assertThat(property.getDefaultValue()).isEqualTo(defaultValue);
 	}
 
+	private String getId(ConfigDiffEntry<ConfigurationMetadataProperty> entry) {
+		return (entry.left() != null ? entry.left() : entry.right()).getId();
+	}
+
+	private String getGroupId(ConfigDiffEntry<ConfigurationMetadataGroup> entry) {
+		return (entry.left() != null ? entry.left() : entry.right()).getId();
+	}
+
 	private ConfigurationMetadataLoader configure(String left, String right) {
 		try {
 			ConfigurationMetadataLoader loader = mock(ConfigurationMetadataLoader.class);
@@ -0,0 +1,123 @@
+package net.nicoll.boot.config.diff;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import net.nicoll.boot.config.loader.ConfigurationMetadataLoader;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepositoryJsonBuilder;
+import org.springframework.core.io.ClassPathResource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link ConfigTimelineGenerator}.
+ *
+ * @author Stephane Nicoll
+ */
+public class ConfigTimelineGeneratorTests {
+
+	private final ConfigurationMetadataLoader loader = mock(ConfigurationMetadataLoader.class);
+
+	private final Executor executor = Runnable::run;
+
+	@Test
+	public void generateTimeline() throws Exception {
+		configure("1.0", "2.0", "3.0");
+		ConfigTimeline timeline = new ConfigTimelineGenerator(this.loader, this.executor)
+			.generateTimeline(List.of("1.0", "2.0", "3.0"));
+		assertThat(timeline.getVersions()).containsExactly("1.0", "2.0", "3.0");
+		assertThat(timeline.getProperties()).extracting(PropertyLifecycle::getId)
+			.containsExactly("test.add", "test.delete", "test.delete.deprecated", "test.deprecate", "test.equal",
+					"test.modify");
+		assertLifecycle(timeline.getProperty("test.add"), "2.0", null, null, "3.0");
+		assertLifecycle(timeline.getProperty("test.delete"), "1.0", null, "2.0");
+		assertLifecycle(timeline.getProperty("test.delete.deprecated"), "1.0", "1.0", "2.0");
+		assertLifecycle(timeline.getProperty("test.deprecate"), "1.0", "2.0", null);
+		assertLifecycle(timeline.getProperty("test.equal"), "1.0", null, "3.0");
+		assertLifecycle(timeline.getProperty("test.modify"), "1.0", null, null, "2.0");
+	}
+
+	@Test
+	public void generateTimelineRecordsRemovalOfErrorDeprecatedProperty() throws Exception {
+		configureSample("timeline", "1.0", "2.0", "3.0");
+		ConfigTimeline timeline = new ConfigTimelineGenerator(this.loader, this.executor)
+			.generateTimeline(List.of("1.0", "2.0", "3.0"));
+		assertLifecycle(timeline.getProperty("test.error"), "1.0", "1.0", "2.0");
+	}
+
+	@Test
+	public void generateTimelineRecordsAdditionOfDeprecatedProperty() throws Exception {
+		configureSample("timeline", "1.0", "2.0", "3.0");
+		ConfigTimeline timeline = new ConfigTimelineGenerator(this.loader, this.executor)
+			.generateTimeline(List.of("1.0", "2.0", "3.0"));
+		PropertyLifecycle lifecycle = timeline.getProperty("test.late");
+		assertLifecycle(lifecycle, "2.0", "2.0", null);
+		assertThat(lifecycle).hasToString("test.late (added in 2.0, deprecated in 2.0)");
+	}
+
+	@Test
+	public void generateTimelineRecordsUndeprecatedProperty() throws Exception {
+		configureSample("timeline", "1.0", "2.0", "3.0");
+		ConfigTimeline timeline = new ConfigTimelineGenerator(this.loader, this.executor)
+			.generateTimeline(List.of("1.0", "2.0", "3.0"));
+		assertLifecycle(timeline.getProperty("test.undeprecate"), "1.0", null, null);
+	}
+
+	@Test
+	public void generateTimelineRecordsPropertyAddedAgainWithoutDeprecation() throws Exception {
+		configureSample("timeline", "1.0", "2.0", "3.0");
+		ConfigTimeline timeline = new ConfigTimelineGenerator(this.loader, this.executor)
+			.generateTimeline(List.of("1.0", "2.0", "3.0"));
+		PropertyLifecycle lifecycle = timeline.getProperty("test.restore");
+		assertLifecycle(lifecycle, "1.0", null, null);
+		assertThat(lifecycle).hasToString("test.restore (added in 1.0)");
+	}
+
+	@Test
+	public void generateTimelineLoadsEachRepositoryOnce() throws Exception {
+		configure("1.0", "2.0", "3.0");
+		new ConfigTimelineGenerator(this.loader, this.executor).generateTimeline(List.of("1.0", "2.0", "3.0"));
+		verify(this.loader).loadRepositoryAsync("1.0", this.executor);
+		verify(this.loader).loadRepositoryAsync("2.0", this.executor);
+		verify(this.loader).loadRepositoryAsync("3.0", this.executor);
+	}
+
+	@Test
+	public void generateTimelineWithNoVersion() throws Exception {
+		ConfigTimeline timeline = new ConfigTimelineGenerator(this.loader, this.executor).generateTimeline(List.of());
+		assertThat(timeline.getVersions()).isEmpty();
+		assertThat(timeline.getProperties()).isEmpty();
+	}
+
+	private void assertLifecycle(PropertyLifecycle lifecycle, String addedIn, String deprecatedIn, String removedIn,
+			String... modifiedIn) {
+		assertThat(lifecycle).isNotNull();
+		assertThat(lifecycle.getAddedIn()).isEqualTo(addedIn);
+		assertThat(lifecycle.getDeprecatedIn()).isEqualTo(deprecatedIn);
+		assertThat(lifecycle.getRemovedIn()).isEqualTo(removedIn);
+		assertThat(lifecycle.getModifiedIn()).containsExactly(modifiedIn);
+	}
+
+	private void configure(String... versions) throws Exception {
+		configureSample("one", versions);
+	}
+
+	private void configureSample(String sample, String... versions) throws Exception {
+		for (String version : versions) {
+			given(this.loader.loadRepositoryAsync(version, this.executor)).willReturn(
+					CompletableFuture.completedFuture(load("repository/sample-" + sample + "-" + version + ".json")));
+		}
+	}
+
+	private ConfigurationMetadataRepository load(String path) throws Exception {
+		return ConfigurationMetadataRepositoryJsonBuilder.create(new ClassPathResource(path).getInputStream()).build();
+	}
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.nicoll.boot.config.diff;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+
+import net.nicoll.boot.config.loader.ConfigurationMetadataLoader;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepositoryJsonBuilder;
+import org.springframework.core.io.ClassPathResource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link ConsoleConfigDiffListener}.
+ *
+ * @author Stephane Nicoll
+ */
+public class ConsoleConfigDiffListenerTests {
+
+	@Test
+	public void writeEntriesAsTheyAreNotified() throws IOException {
+		StringWriter out = new StringWriter();
+		new SortedConfigDiffGenerator(configure()).generateDiff("1.0", "2.0", new ConsoleConfigDiffListener(out));
+		assertThat(out.toString().lines()).containsExactly("Config meta-data diff between '1.0' and '2.0'",
+				"MODIFY group (root)", "ADD test.add", "DELETE test.delete", "DELETE test.delete.deprecated",
+				"DEPRECATE test.deprecate", "MODIFY test.modify [DEFAULT_VALUE]");
+	}
+
+	@Test
+	public void writeMovedProperties() throws IOException {
+		StringWriter out = new StringWriter();
+		ConfigDiffGenerator generator = new SortedConfigDiffGenerator(configure());
+		generator.setRenameDetector(new RenameDetector(0.1, 256));
+		generator.generateDiff("1.0", "2.0", new ConsoleConfigDiffListener(out));
+		assertThat(out.toString().lines())
+			.anySatisfy((line) -> assertThat(line).startsWith("MOVE test.delete -> ").endsWith("% confidence)"));
+	}
+
+	private ConfigurationMetadataLoader configure() throws IOException {
+		ConfigurationMetadataLoader loader = mock(ConfigurationMetadataLoader.class);
+		given(loader.loadRepository("1.0")).willReturn(load("repository/sample-one-1.0.json"));
+		given(loader.loadRepository("2.0")).willReturn(load("repository/sample-one-2.0.json"));
+		return loader;
+	}
+
+	private ConfigurationMetadataRepository load(String path) throws IOException {
+		try (InputStream in = new ClassPathResource(path).getInputStream()) {
+			return ConfigurationMetadataRepositoryJsonBuilder.create(in).build();
+		}
+	}
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.nicoll.boot.config.diff;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+
+import com.sun.management.ThreadMXBean;
+import net.nicoll.boot.config.loader.ConfigurationMetadataLoader;
+import net.nicoll.boot.metadata.ConsoleMetadataFormatter;
+import net.nicoll.boot.metadata.CsvMetadataExporter;
+import net.nicoll.boot.metadata.CsvMetadataFormatter;
+import net.nicoll.boot.metadata.MetadataFormatter;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+
+/**
+ * Measure the time and the memory allocated by the formatters, using the synthetic
+ * repositories of {@link ConfigDiffGeneratorBenchmark}. Each formatter renders either to
+ * a {@link String} or to a buffered {@link Writer} that discards its output, which shows
+ * the cost of holding the whole report in memory.
+ * <p>
+ * Arguments are the number of properties to use, defaults to {@code 50000}.
+ *
+ * @author Stephane Nicoll
+ */
+public class FormatterBenchmark {
+
+	private static final int WARMUP_ITERATIONS = 5;
+
+	private static final int ITERATIONS = 10;
+
+	private static final ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	public static void main(String[] args) throws IOException {
+		String[] sizes = (args.length > 0) ? args : new String[] { "50000" };
+		ConfigDiffGenerator generator = new SortedConfigDiffGenerator((ConfigurationMetadataLoader) null);
+		for (String size : sizes) {
+			int properties = Integer.parseInt(size);
+			ConfigurationMetadataRepository left = ConfigDiffGeneratorBenchmark.createRepository(properties, false);
+			ConfigurationMetadataRepository right = ConfigDiffGeneratorBenchmark.createRepository(properties, true);
+			ConfigDiffResult result = generator.generateDiff("left", left, "right", right);
+			measureDiff("console-diff", new ConsoleConfigDiffFormatter(), result, properties);
+			measureDiff("asciidoc-diff", new AsciiDocConfigDiffFormatter(), result, properties);
+			measureMetadata("console", new ConsoleMetadataFormatter(), right, properties);
+			measureMetadata("csv", new CsvMetadataFormatter(), right, properties);
+			CsvMetadataExporter exporter = new CsvMetadataExporter();
+			measure("csv-export (writer)", properties, () -> {
+				try (Writer out = new BufferedWriter(Writer.nullWriter())) {
+					exporter.export("right", right, out);
+				}
+			});
+		}
+	}
+
+	private static void measureDiff(String name, ConfigDiffFormatter formatter, ConfigDiffResult result, int properties)
+			throws IOException {
+		measure(name + " (string)", properties, () -> formatter.formatDiff(result));
+		measure(name + " (writer)", properties, () -> {
+			try (Writer out = new BufferedWriter(Writer.nullWriter())) {
+				formatter.formatDiff(result, out);
+			}
+		});
+	}
+
+	private static void measureMetadata(String name, MetadataFormatter formatter,
+			ConfigurationMetadataRepository repository, int properties) throws IOException {
+		measure(name + " (string)", properties, () -> formatter.formatMetadata(repository));
+		measure(name + " (writer)", properties, () -> {
+			try (Writer out = new BufferedWriter(Writer.nullWriter())) {
+				formatter.formatMetadata(repository, out);
+			}
+		});
+	}
+
+	private static void measure(String name, int properties, Task task) throws IOException {
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			task.run();
+		}
+		long time = 0;
+		long allocated = 0;
+		for (int i = 0; i < ITERATIONS; i++) {
+			long allocatedBefore = threadBean.getCurrentThreadAllocatedBytes();
+			long start = System.nanoTime();
+			task.run();
+			time += System.nanoTime() - start;
+			allocated += threadBean.getCurrentThreadAllocatedBytes() - allocatedBefore;
+		}
+		time /= ITERATIONS;
+		allocated /= ITERATIONS;
+		System.out.printf("%-24s %7d properties: %8.2f ms, %10.2f MB allocated (%5d bytes/property)%n", name,
+				properties, time / 1_000_000.0, allocated / (1024.0 * 1024.0), allocated / properties);
+	}
+
+	@FunctionalInterface
+	private interface Task {
+
+		void run() throws IOException;
+
+	}
+
+}
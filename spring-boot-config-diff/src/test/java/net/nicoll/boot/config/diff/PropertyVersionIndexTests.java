@@ -0,0 +1,105 @@
+package net.nicoll.boot.config.diff;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import net.nicoll.boot.config.loader.ConfigurationMetadataLoader;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepositoryJsonBuilder;
+import org.springframework.core.io.ClassPathResource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link PropertyVersionIndex}.
+ *
+ * @author Stephane Nicoll
+ */
+public class PropertyVersionIndexTests {
+
+	@Test
+	public void buildIndex() throws Exception {
+		PropertyVersionIndex index = build();
+		assertThat(index.getVersions()).containsExactly("1.0", "2.0", "3.0");
+		assertThat(index.getProperties()).containsExactly("test.add", "test.delete", "test.delete.deprecated",
+				"test.deprecate", "test.equal", "test.modify");
+		assertThat(index.getProperties("3.0")).containsExactly("test.add", "test.delete.deprecated", "test.deprecate",
+				"test.modify");
+		assertThat(index.getDeprecatedProperties("2.0")).containsExactly("test.delete.deprecated", "test.deprecate");
+	}
+
+	@Test
+	public void propertiesMissingIn() throws Exception {
+		PropertyVersionIndex index = build();
+		assertThat(index.getPropertiesMissingIn("1.0", "3.0")).containsExactly("test.delete", "test.equal");
+		assertThat(index.getPropertiesMissingIn("3.0", "1.0")).containsExactly("test.add");
+	}
+
+	@Test
+	public void propertyLookups() throws Exception {
+		PropertyVersionIndex index = build();
+		assertThat(index.contains("test.equal", "2.0")).isTrue();
+		assertThat(index.contains("test.equal", "3.0")).isFalse();
+		assertThat(index.contains("test.unknown", "1.0")).isFalse();
+		assertThat(index.getVersions("test.equal")).containsExactly("1.0", "2.0");
+		assertThat(index.since("test.add")).isEqualTo("2.0");
+		assertThat(index.until("test.delete")).isEqualTo("1.0");
+		assertThat(index.until("test.modify")).isEqualTo("3.0");
+		assertThat(index.deprecatedSince("test.deprecate")).isEqualTo("2.0");
+		assertThat(index.deprecatedSince("test.modify")).isNull();
+		assertThat(index.since("test.unknown")).isNull();
+	}
+
+	@Test
+	public void unknownVersion() throws Exception {
+		PropertyVersionIndex index = build();
+		assertThatIllegalArgumentException().isThrownBy(() -> index.getProperties("4.0")).withMessageContaining("4.0");
+	}
+
+	@Test
+	public void writeAndReadIndex() throws Exception {
+		PropertyVersionIndex index = build();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		index.writeTo(out);
+		PropertyVersionIndex read = PropertyVersionIndex.readFrom(new ByteArrayInputStream(out.toByteArray()));
+		assertThat(read.getVersions()).isEqualTo(index.getVersions());
+		assertThat(read.getProperties()).isEqualTo(index.getProperties());
+		for (String version : index.getVersions()) {
+			assertThat(read.getProperties(version)).isEqualTo(index.getProperties(version));
+			assertThat(read.getDeprecatedProperties(version)).isEqualTo(index.getDeprecatedProperties(version));
+		}
+	}
+
+	@Test
+	public void readIndexWithUnsupportedFormat() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(new byte[] { 0, 0, 0, 42 });
+		}
+		assertThatIOException()
+			.isThrownBy(() -> PropertyVersionIndex.readFrom(new ByteArrayInputStream(out.toByteArray())))
+			.withMessageContaining("42");
+	}
+
+	private PropertyVersionIndex build() throws Exception {
+		ConfigurationMetadataLoader loader = mock(ConfigurationMetadataLoader.class);
+		for (String version : List.of("1.0", "2.0", "3.0")) {
+			given(loader.loadRepository(version)).willReturn(load("repository/sample-one-" + version + ".json"));
+		}
+		return PropertyVersionIndex.build(loader, List.of("1.0", "2.0", "3.0"));
+	}
+
+	private ConfigurationMetadataRepository load(String path) throws Exception {
+		return ConfigurationMetadataRepositoryJsonBuilder.create(new ClassPathResource(path).getInputStream()).build();
+	}
+
+}
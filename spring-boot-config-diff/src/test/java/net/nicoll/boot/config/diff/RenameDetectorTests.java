@@ -0,0 +1,130 @@
+package net.nicoll.boot.config.diff;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.nicoll.boot.config.loader.ConfigurationMetadataLoader;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataGroup;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepositoryJsonBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link RenameDetector}.
+ *
+ * @author Stephane Nicoll
+ */
+public class RenameDetectorTests {
+
+	private final RenameDetector detector = new RenameDetector();
+
+	@Test
+	public void detectMovedProperties() throws IOException {
+		List<ConfigurationMetadataProperty> removed = properties(property("spring.redis.host", "java.lang.String"),
+				property("spring.redis.port", "java.lang.Integer"),
+				property("spring.legacy.enabled", "java.lang.Boolean"));
+		List<ConfigurationMetadataProperty> added = properties(property("spring.data.redis.host", "java.lang.String"),
+				property("spring.data.redis.port", "java.lang.Integer"),
+				property("spring.data.redis.timeout", "java.time.Duration"),
+				property("server.http2.enabled", "java.lang.Boolean"));
+		List<ConfigDiffEntry<ConfigurationMetadataProperty>> moves = this.detector.detect(removed, added);
+		assertThat(moves).extracting((move) -> move.left().getId() + ">" + move.right().getId())
+			.containsExactlyInAnyOrder("spring.redis.host>spring.data.redis.host",
+					"spring.redis.port>spring.data.redis.port");
+		assertThat(moves).allSatisfy((move) -> assertThat(move.confidence()).isBetween(0.6, 1.0));
+	}
+
+	@Test
+	public void detectMovedPropertyWithReplacement() throws IOException {
+		List<ConfigurationMetadataProperty> removed = properties(
+				"{\"name\":\"server.use-forward-headers\",\"type\":\"java.lang.Boolean\",\"deprecation\":"
+						+ "{\"level\":\"warning\",\"replacement\":\"server.forward-headers-strategy\"}}");
+		List<ConfigurationMetadataProperty> added = properties(
+				property("server.forward-headers-strategy", "java.lang.String"));
+		assertThat(this.detector.detect(removed, added)).singleElement().satisfies((move) -> {
+			assertThat(move.right().getId()).isEqualTo("server.forward-headers-strategy");
+			assertThat(move.confidence()).isEqualTo(1.0);
+			assertThat(move.changes()).contains(ConfigDiffField.TYPE);
+		});
+	}
+
+	@Test
+	public void detectMatchesEachPropertyOnce() throws IOException {
+		List<ConfigurationMetadataProperty> removed = properties(property("spring.redis.host", "java.lang.String"),
+				property("spring.cache.redis.host", "java.lang.String"));
+		List<ConfigurationMetadataProperty> added = properties(property("spring.data.redis.host", "java.lang.String"));
+		assertThat(this.detector.detect(removed, added)).singleElement();
+	}
+
+	@Test
+	public void decorateListener() throws IOException {
+		List<String> events = new ArrayList<>();
+		ConfigDiffListener listener = this.detector.decorate(new ConfigDiffListener() {
+
+			@Override
+			public void onGroup(ConfigDiffType type, ConfigDiffEntry<ConfigurationMetadataGroup> entry) {
+			}
+
+			@Override
+			public void onProperty(ConfigDiffType type, ConfigDiffEntry<ConfigurationMetadataProperty> entry) {
+				events.add(type + " " + ((entry.left() != null) ? entry.left().getId() : entry.right().getId()));
+			}
+
+		});
+		List<ConfigurationMetadataProperty> properties = properties(property("spring.redis.host", "java.lang.String"),
+				property("spring.data.redis.host", "java.lang.String"), property("server.port", "java.lang.Integer"),
+				property("server.address", "java.net.InetAddress"));
+		listener.onStart("1.0", "2.0");
+		listener.onProperty(ConfigDiffType.DELETE, new ConfigDiffEntry<>(properties.get(0), null));
+		listener.onProperty(ConfigDiffType.ADD, new ConfigDiffEntry<>(null, properties.get(1)));
+		listener.onProperty(ConfigDiffType.EQUALS, new ConfigDiffEntry<>(properties.get(2), properties.get(2)));
+		listener.onProperty(ConfigDiffType.ADD, new ConfigDiffEntry<>(null, properties.get(3)));
+		listener.onComplete();
+		assertThat(events).containsExactly("EQUALS server.port", "MOVE spring.redis.host", "ADD server.address");
+	}
+
+	@Test
+	public void formattersRenderMovedProperties() throws IOException {
+		ConfigDiffGenerator generator = new ConfigDiffGenerator((ConfigurationMetadataLoader) null);
+		generator.setRenameDetector(this.detector);
+		ConfigDiffResult result = generator.generateDiff("1.0",
+				repository(property("spring.redis.host", "java.lang.String")), "2.0",
+				repository(property("spring.data.redis.host", "java.lang.String")));
+		assertThat(result.getPropertiesDiffFor(ConfigDiffType.MOVE)).singleElement();
+		String confidence = Math.round(result.getPropertiesDiffFor(ConfigDiffType.MOVE).get(0).confidence() * 100)
+				+ "%";
+		assertThat(new ConsoleConfigDiffFormatter().formatDiff(result)).contains("Properties moved (1):")
+			.contains("spring.redis.host -> spring.data.redis.host (" + confidence + " confidence)");
+		assertThat(new AsciiDocConfigDiffFormatter().formatDiff(result)).contains("== Moved in `2.0`")
+			.contains("|`spring.redis.host` |`spring.data.redis.host` |" + confidence);
+	}
+
+	private static String property(String name, String type) {
+		return "{\"name\":\"" + name + "\",\"type\":\"" + type + "\"}";
+	}
+
+	private static List<ConfigurationMetadataProperty> properties(String... properties) throws IOException {
+		ConfigurationMetadataRepository repository = repository(properties);
+		List<ConfigurationMetadataProperty> result = new ArrayList<>();
+		for (String property : properties) {
+			String name = property.substring(9, property.indexOf('"', 9));
+			result.add(repository.getAllProperties().get(name));
+		}
+		return result;
+	}
+
+	private static ConfigurationMetadataRepository repository(String... properties) throws IOException {
+		String json = "{\"properties\":[" + String.join(",", properties) + "]}";
+		return ConfigurationMetadataRepositoryJsonBuilder
+			.create(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)))
+			.build();
+	}
+
+}
@@ -28,20 +28,30 @@ import org.eclipse.aether.internal.impl.DefaultRepositorySystem;
 import org.eclipse.aether.repository.LocalRepository;
 import org.eclipse.aether.repository.LocalRepositoryManager;
 import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.repository.RepositoryPolicy;
 import org.eclipse.aether.resolution.ArtifactDescriptorPolicy;
 import org.eclipse.aether.resolution.ArtifactRequest;
 import org.eclipse.aether.resolution.ArtifactResolutionException;
 import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.resolution.VersionRangeRequest;
+import org.eclipse.aether.resolution.VersionRangeResolutionException;
+import org.eclipse.aether.resolution.VersionRangeResult;
 import org.eclipse.aether.spi.connector.RepositoryConnectorFactory;
 import org.eclipse.aether.spi.connector.transport.TransporterFactory;
 import org.eclipse.aether.spi.locator.ServiceLocator;
 import org.eclipse.aether.transport.file.FileTransporterFactory;
 import org.eclipse.aether.transport.http.HttpTransporterFactory;
 import org.eclipse.aether.util.repository.SimpleArtifactDescriptorPolicy;
+import org.eclipse.aether.version.Version;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Andy Wilkinson
@@ -68,9 +78,14 @@ public class AetherDependencyResolver {
 	private final List<RemoteRepository> repositories;
 
 	public AetherDependencyResolver(RemoteRepository... remoteRepositories) throws Exception {
+		this(getM2RepoDirectory(), false, remoteRepositories);
+	}
+
+	private AetherDependencyResolver(File localRepositoryDirectory, boolean offline,
+			RemoteRepository... remoteRepositories) throws Exception {
 		ServiceLocator serviceLocator = createServiceLocator();
 		this.repositorySystem = createRepositorySystem(serviceLocator);
-		this.session = createRepositorySystemSession(this.repositorySystem);
+		this.session = createRepositorySystemSession(this.repositorySystem, localRepositoryDirectory, offline);
 		this.repositories = Arrays.asList(remoteRepositories);
 	}
 
@@ -78,26 +93,113 @@ public class AetherDependencyResolver {
 		return new AetherDependencyResolver(MAVEN_CENTRAL, SPRING_IO_MILESTONE, SPRING_IO_SNAPSHOT);
 	}
 
+	/**
+	 * Create a resolver that only uses artifacts that are already available in the local
+	 * maven repository. Remote repositories are never contacted, including to check for
+	 * updates of {@code SNAPSHOT} artifacts.
+	 * @return an offline resolver
+	 */
+	public static AetherDependencyResolver offline() throws Exception {
+		return new AetherDependencyResolver(getM2RepoDirectory(), true, MAVEN_CENTRAL, SPRING_IO_MILESTONE,
+				SPRING_IO_SNAPSHOT);
+	}
+
+	/**
+	 * Create a resolver that resolves artifacts from a directory using the standard
+	 * repository layout, typically a mirror of the relevant artifacts. Remote
+	 * repositories are never contacted and metadata are not checked for updates.
+	 * @param directory the directory to use as the only repository
+	 * @return a resolver for the specified directory
+	 */
+	public static AetherDependencyResolver withFileRepository(File directory) throws Exception {
+		return withFileRepository(directory, getM2RepoDirectory());
+	}
+
+	/**
+	 * Create a resolver that resolves artifacts from a directory using the standard
+	 * repository layout, using the specified local repository to store resolved
+	 * artifacts.
+	 * @param directory the directory to use as the only repository
+	 * @param localRepositoryDirectory the local repository to use
+	 * @return a resolver for the specified directory
+	 * @see #withFileRepository(File)
+	 */
+	public static AetherDependencyResolver withFileRepository(File directory, File localRepositoryDirectory)
+			throws Exception {
+		RemoteRepository repository = new RemoteRepository.Builder("file", "default", directory.toURI().toString())
+			.setPolicy(new RepositoryPolicy(true, RepositoryPolicy.UPDATE_POLICY_NEVER,
+					RepositoryPolicy.CHECKSUM_POLICY_IGNORE))
+			.build();
+		return new AetherDependencyResolver(localRepositoryDirectory, true, repository);
+	}
+
 	public ArtifactResult resolveDependency(String dependency) throws ArtifactResolutionException {
 		Artifact artifact = new DefaultArtifact(dependency);
 		ArtifactRequest request = new ArtifactRequest(artifact, this.repositories, null);
 		return this.repositorySystem.resolveArtifact(session, request);
 	}
 
+	/**
+	 * Resolve the versions of an artifact that match a version range.
+	 * @param dependency the coordinates of the artifact, with a version range such as
+	 * {@code [2.0.0,3.2.0)}
+	 * @return the matching versions, in ascending order
+	 * @throws VersionRangeResolutionException if the range cannot be resolved
+	 */
+	public List<String> resolveVersions(String dependency) throws VersionRangeResolutionException {
+		VersionRangeRequest request = new VersionRangeRequest(new DefaultArtifact(dependency), this.repositories, null);
+		VersionRangeResult result = this.repositorySystem.resolveVersionRange(this.session, request);
+		return result.getVersions().stream().map(Version::toString).toList();
+	}
+
+	/**
+	 * Resolve the specified dependencies in a single request so that connectors and
+	 * repository metadata are shared. A failure to resolve a dependency does not prevent
+	 * the others from being resolved: the result of each dependency should be checked
+	 * using {@link ArtifactResult#isResolved()}.
+	 * @param dependencies the coordinates of the dependencies to resolve
+	 * @return the result of each dependency, keyed by coordinates, in iteration order
+	 */
+	public Map<String, ArtifactResult> resolveDependencies(Collection<String> dependencies) {
+		List<String> coordinates = new ArrayList<>(new LinkedHashSet<>(dependencies));
+		List<ArtifactRequest> requests = coordinates.stream()
+			.map((dependency) -> new ArtifactRequest(new DefaultArtifact(dependency), this.repositories, null))
+			.toList();
+		List<ArtifactResult> results;
+		try {
+			results = this.repositorySystem.resolveArtifacts(this.session, requests);
+		}
+		catch (ArtifactResolutionException ex) {
+			results = ex.getResults();
+		}
+		Map<String, ArtifactResult> resultsByCoordinates = new LinkedHashMap<>();
+		for (int i = 0; i < coordinates.size(); i++) {
+			resultsByCoordinates.put(coordinates.get(i), results.get(i));
+		}
+		return resultsByCoordinates;
+	}
+
 	private static RepositorySystem createRepositorySystem(ServiceLocator serviceLocator) {
 		return serviceLocator.getService(RepositorySystem.class);
 	}
 
-	private static RepositorySystemSession createRepositorySystemSession(RepositorySystem repositorySystem) {
+	private static RepositorySystemSession createRepositorySystemSession(RepositorySystem repositorySystem,
+			File localRepositoryDirectory, boolean offline) {
 		DefaultRepositorySystemSession session = MavenRepositorySystemUtils.newSession();
 
-		LocalRepository localRepository = new LocalRepository(getM2RepoDirectory());
+		LocalRepository localRepository = new LocalRepository(localRepositoryDirectory);
 		LocalRepositoryManager localRepositoryManager = repositorySystem.newLocalRepositoryManager(session,
 				localRepository);
 		session.setLocalRepositoryManager(localRepositoryManager);
 
 		session.setArtifactDescriptorPolicy(new SimpleArtifactDescriptorPolicy(ArtifactDescriptorPolicy.STRICT));
 
+		if (offline) {
+			session.setOffline(true);
+			session.setConfigProperty("aether.offline.protocols", "file");
+			session.setUpdatePolicy(RepositoryPolicy.UPDATE_POLICY_NEVER);
+		}
+
 		return session;
 	}
 
@@ -18,9 +18,21 @@ package net.nicoll.boot.config.loader;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
-import java.net.URLClassLoader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
 
 import org.eclipse.aether.resolution.ArtifactResolutionException;
 import org.eclipse.aether.resolution.ArtifactResult;
@@ -28,7 +40,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
-import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepositoryJsonBuilder;
+import org.springframework.boot.configurationmetadata.SimpleConfigurationMetadataRepository;
 
 /**
  * @author Stephane Nicoll
@@ -39,54 +51,360 @@ public class ConfigurationMetadataLoader {
 
 	private final AetherDependencyResolver dependencyResolver;
 
+	private final Executor executor;
+
+	private final List<MetadataArtifact> artifacts;
+
+	private ConfigurationMetadataParser parser = ConfigurationMetadataParser.jsonBuilder();
+
+	private JarMetadataReader jarMetadataReader = new JarMetadataReader(this.parser);
+
+	private MetadataSnapshotCache snapshotCache;
+
+	private MetadataRepositoryCache repositoryCache;
+
 	public ConfigurationMetadataLoader(AetherDependencyResolver dependencyResolver) {
+		this(dependencyResolver, null);
+	}
+
+	/**
+	 * Create a loader that resolves and parses the artifacts of a given version
+	 * concurrently, using the specified {@link Executor}. Each artifact is parsed in its
+	 * own repository and the repositories are merged in a fixed order so that the result
+	 * does not depend on the order in which artifacts complete.
+	 * @param dependencyResolver the resolver to use
+	 * @param executor the executor to use to load artifacts concurrently, or {@code null}
+	 * to load them one after the other
+	 */
+	public ConfigurationMetadataLoader(AetherDependencyResolver dependencyResolver, Executor executor) {
+		this(dependencyResolver, executor, MetadataArtifact.SPRING_BOOT);
+	}
+
+	/**
+	 * Create a loader for the specified set of artifacts, rather than the
+	 * {@link MetadataArtifact#SPRING_BOOT Spring Boot artifacts}. The metadata of all
+	 * artifacts are merged in a single repository, in the order of the list.
+	 * @param dependencyResolver the resolver to use
+	 * @param executor the executor to use to load artifacts concurrently, or {@code null}
+	 * to load them one after the other
+	 * @param artifacts the artifacts to load
+	 */
+	public ConfigurationMetadataLoader(AetherDependencyResolver dependencyResolver, Executor executor,
+			List<MetadataArtifact> artifacts) {
 		this.dependencyResolver = dependencyResolver;
+		this.executor = executor;
+		this.artifacts = List.copyOf(artifacts);
+	}
+
+	/**
+	 * Set the {@link MetadataSnapshotCache} to use to avoid reading and parsing the
+	 * metadata of an artifact that was loaded before.
+	 * @param snapshotCache the snapshot cache to use, or {@code null} to always parse the
+	 * metadata
+	 */
+	public void setSnapshotCache(MetadataSnapshotCache snapshotCache) {
+		this.snapshotCache = snapshotCache;
+	}
+
+	/**
+	 * Set the {@link ConfigurationMetadataParser} to use to parse the metadata of each
+	 * artifact. By default, {@link ConfigurationMetadataParser#jsonBuilder() the JSON
+	 * builder} is used.
+	 * @param parser the parser to use
+	 * @see StreamingConfigurationMetadataParser
+	 */
+	public void setParser(ConfigurationMetadataParser parser) {
+		this.parser = parser;
+		this.jarMetadataReader = new JarMetadataReader(parser);
+	}
+
+	/**
+	 * Set the {@link MetadataRepositoryCache} to use to keep the repositories built by
+	 * this instance in memory. When set, the repository of a given version is only built
+	 * once and callers share the same instance, which they must not modify.
+	 * @param repositoryCache the repository cache to use, or {@code null} to build a new
+	 * repository for each call
+	 */
+	public void setRepositoryCache(MetadataRepositoryCache repositoryCache) {
+		this.repositoryCache = repositoryCache;
 	}
 
 	public ConfigurationMetadataRepository loadRepository(String version) throws IOException {
-		ConfigurationMetadataRepositoryJsonBuilder builder = ConfigurationMetadataRepositoryJsonBuilder.create();
-		Consumer consumer = builder::withJsonResource;
-		loadAll(consumer, version);
-		return builder.build();
+		return loadRepository(version, new ArtifactResolution(List.of(version)));
 	}
 
-	private void loadAll(Consumer consumer, String version) throws IOException {
-		load(consumer, "org.springframework.boot:spring-boot:" + version, true);
-		load(consumer, "org.springframework.boot:spring-boot-actuator:" + version, true);
-		load(consumer, "org.springframework.boot:spring-boot-actuator-autoconfigure:" + version, false);
-		load(consumer, "org.springframework.boot:spring-boot-autoconfigure:" + version, true);
-		load(consumer, "org.springframework.boot:spring-boot-devtools:" + version, false);
-		load(consumer, "org.springframework.boot:spring-boot-test-autoconfigure:" + version, false);
+	/**
+	 * Load the repository of the specified version asynchronously.
+	 * @param version the version to load
+	 * @param executor the executor to use to load the repository
+	 * @return a future completed with the repository, or completed exceptionally with the
+	 * {@link IOException} or {@link RuntimeException} that prevented the repository to
+	 * load
+	 */
+	public CompletableFuture<ConfigurationMetadataRepository> loadRepositoryAsync(String version, Executor executor) {
+		CompletableFuture<ConfigurationMetadataRepository> future = new CompletableFuture<>();
+		executor.execute(() -> {
+			try {
+				future.complete(loadRepository(version));
+			}
+			catch (Throwable ex) {
+				future.completeExceptionally(ex);
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * Load the repositories of the specified versions. The artifacts of all versions are
+	 * resolved in a single batch before their metadata are read.
+	 * @param versions the versions to load
+	 * @return the repository of each version, in iteration order
+	 * @throws IOException if the metadata of an artifact cannot be read
+	 */
+	public Map<String, ConfigurationMetadataRepository> loadRepositories(Collection<String> versions)
+			throws IOException {
+		ArtifactResolution resolution = new ArtifactResolution(versions);
+		Map<String, ConfigurationMetadataRepository> repositories = new LinkedHashMap<>();
+		for (String version : versions) {
+			repositories.put(version, loadRepository(version, resolution));
+		}
+		return repositories;
 	}
 
-	private void load(Consumer consumer, String coordinates, boolean mandatory) throws IOException {
+	/**
+	 * Load the repositories of two versions, restricted to the artifacts whose metadata
+	 * have changed. The metadata of an artifact that is identical in both versions is
+	 * neither parsed nor included, which makes the comparison of two close versions much
+	 * cheaper. The {@link MetadataRepositoryCache repository cache} is not used as the
+	 * repositories are partial.
+	 * @param leftVersion the left version
+	 * @param rightVersion the right version
+	 * @return the partial repository of each version
+	 * @throws IOException if the metadata of an artifact cannot be read
+	 * @see JarMetadataReader#metadataChecksum(File)
+	 */
+	public Map<String, ConfigurationMetadataRepository> loadChangedRepositories(String leftVersion, String rightVersion)
+			throws IOException {
+		Map<String, ArtifactResult> results = new ArtifactResolution(List.of(leftVersion, rightVersion)).getResults();
+		List<MetadataArtifact> changed = new ArrayList<>();
+		for (MetadataArtifact artifact : this.artifacts) {
+			String leftCoordinates = artifact.coordinates(leftVersion);
+			String rightCoordinates = artifact.coordinates(rightVersion);
+			String leftChecksum = metadataChecksum(leftCoordinates, artifact.mandatory(), results.get(leftCoordinates));
+			String rightChecksum = metadataChecksum(rightCoordinates, artifact.mandatory(),
+					results.get(rightCoordinates));
+			if (Objects.equals(leftChecksum, rightChecksum)) {
+				logger.info("Skipping '" + rightCoordinates + "' (meta-data unchanged since " + leftVersion + ")");
+			}
+			else {
+				changed.add(artifact);
+			}
+		}
+		Map<String, ConfigurationMetadataRepository> repositories = new LinkedHashMap<>();
+		repositories.put(leftVersion, buildRepository(leftVersion, changed, results));
+		repositories.put(rightVersion, buildRepository(rightVersion, changed, results));
+		return repositories;
+	}
+
+	private String metadataChecksum(String coordinates, boolean mandatory, ArtifactResult artifactResult)
+			throws IOException {
+		if (!isResolved(coordinates, mandatory, artifactResult)) {
+			return null;
+		}
+		return JarMetadataReader.metadataChecksum(artifactResult.getArtifact().getFile());
+	}
+
+	/**
+	 * Load the repository of a Spring Boot executable jar, that is the metadata of the
+	 * application and of all the libraries it contains. Libraries are read concurrently
+	 * if this instance has been configured with an {@link Executor}.
+	 * @param executableJar the executable jar
+	 * @return the repository of the application
+	 * @throws IOException if the jar cannot be read
+	 * @see ExecutableJarMetadataReader
+	 */
+	public ConfigurationMetadataRepository loadExecutableJar(File executableJar) throws IOException {
+		return new ExecutableJarMetadataReader(this.parser).read(executableJar, this.executor);
+	}
+
+	/**
+	 * Compute a checksum of the artifacts of the specified version. The artifacts are
+	 * resolved, but their metadata are not read, which makes it a cheap way to identify
+	 * the content of a version, including a {@code SNAPSHOT} one.
+	 * @param version the version
+	 * @return the SHA-1 of the coordinates and the {@link MetadataSnapshotCache#checksum
+	 * checksum} of each artifact, in hex format
+	 * @throws IOException if an artifact cannot be read
+	 */
+	public String getChecksum(String version) throws IOException {
+		Map<String, ArtifactResult> results = new ArtifactResolution(List.of(version)).getResults();
 		try {
-			ArtifactResult artifactResult = dependencyResolver.resolveDependency(coordinates);
-			File file = artifactResult.getArtifact().getFile();
-			try (URLClassLoader classLoader = new URLClassLoader(new URL[] { file.toURI().toURL() }, null)) {
-				InputStream stream = classLoader.getResourceAsStream("META-INF/spring-configuration-metadata.json");
-				if (stream != null) {
-					try (stream) {
-						logger.info("Adding meta-data from '" + coordinates + "'");
-						consumer.accept(stream);
-					}
-				}
-				else {
-					logger.info("No meta-data found for '" + coordinates + "'");
-				}
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			for (MetadataArtifact artifact : this.artifacts) {
+				String coordinates = artifact.coordinates(version);
+				ArtifactResult artifactResult = results.get(coordinates);
+				String checksum = (isResolved(coordinates, artifact.mandatory(), artifactResult))
+						? MetadataSnapshotCache.checksum(artifactResult.getArtifact().getFile()) : "-";
+				digest.update((coordinates + "=" + checksum + "\n").getBytes(StandardCharsets.UTF_8));
+			}
+			return HexFormat.of().formatHex(digest.digest());
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private ConfigurationMetadataRepository loadRepository(String version, ArtifactResolution resolution)
+			throws IOException {
+		if (this.repositoryCache != null) {
+			return this.repositoryCache.get(getCacheKey(version), (key) -> buildRepository(version, resolution));
+		}
+		return buildRepository(version, resolution);
+	}
+
+	private String getCacheKey(String version) {
+		return this.artifacts.stream()
+			.map((artifact) -> artifact.coordinates(version))
+			.collect(Collectors.joining(","));
+	}
+
+	private ConfigurationMetadataRepository buildRepository(String version, ArtifactResolution resolution)
+			throws IOException {
+		return buildRepository(version, this.artifacts, resolution.getResults());
+	}
+
+	private ConfigurationMetadataRepository buildRepository(String version, List<MetadataArtifact> artifacts,
+			Map<String, ArtifactResult> results) throws IOException {
+		SimpleConfigurationMetadataRepository repository = new SimpleConfigurationMetadataRepository();
+		for (ConfigurationMetadataRepository artifactRepository : loadAll(version, artifacts, results)) {
+			repository.include(artifactRepository);
+		}
+		return repository;
+	}
+
+	private List<ConfigurationMetadataRepository> loadAll(String version, List<MetadataArtifact> artifacts,
+			Map<String, ArtifactResult> results) throws IOException {
+		List<ConfigurationMetadataRepository> repositories = new ArrayList<>();
+		if (this.executor == null) {
+			for (MetadataArtifact artifact : artifacts) {
+				String coordinates = artifact.coordinates(version);
+				addIfNotNull(repositories, load(coordinates, artifact.mandatory(), results.get(coordinates)));
 			}
+			return repositories;
+		}
+		List<CompletableFuture<ConfigurationMetadataRepository>> futures = artifacts.stream().map((artifact) -> {
+			String coordinates = artifact.coordinates(version);
+			return CompletableFuture.supplyAsync(
+					() -> loadUnchecked(coordinates, artifact.mandatory(), results.get(coordinates)), this.executor);
+		}).toList();
+		for (CompletableFuture<ConfigurationMetadataRepository> future : futures) {
+			addIfNotNull(repositories, join(future));
+		}
+		return repositories;
+	}
+
+	private void addIfNotNull(List<ConfigurationMetadataRepository> repositories,
+			ConfigurationMetadataRepository repository) {
+		if (repository != null) {
+			repositories.add(repository);
 		}
-		catch (ArtifactResolutionException e) {
-			if (mandatory) {
-				throw new IllegalStateException("Could not load " + coordinates, e);
+	}
+
+	private ConfigurationMetadataRepository loadUnchecked(String coordinates, boolean mandatory,
+			ArtifactResult artifactResult) {
+		try {
+			return load(coordinates, mandatory, artifactResult);
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private ConfigurationMetadataRepository join(CompletableFuture<ConfigurationMetadataRepository> future)
+			throws IOException {
+		try {
+			return future.join();
+		}
+		catch (CompletionException ex) {
+			if (ex.getCause() instanceof UncheckedIOException io) {
+				throw io.getCause();
+			}
+			if (ex.getCause() instanceof RuntimeException runtime) {
+				throw runtime;
 			}
+			throw ex;
+		}
+	}
+
+	private ConfigurationMetadataRepository load(String coordinates, boolean mandatory, ArtifactResult artifactResult)
+			throws IOException {
+		if (!isResolved(coordinates, mandatory, artifactResult)) {
 			logger.info("Ignoring '" + coordinates + " (not found)");
+			return null;
+		}
+		File file = artifactResult.getArtifact().getFile();
+		if (this.snapshotCache == null) {
+			return readMetadata(coordinates, file);
+		}
+		String checksum = MetadataSnapshotCache.checksum(file);
+		MetadataSnapshotCache.Snapshot snapshot = this.snapshotCache.get(coordinates, checksum);
+		if (snapshot != null) {
+			if (snapshot.repository() == null) {
+				logger.info("No meta-data found for '" + coordinates + "'");
+				return null;
+			}
+			logger.info("Adding cached meta-data from '" + coordinates + "'");
+			return snapshot.repository();
+		}
+		ConfigurationMetadataRepository repository = readMetadata(coordinates, file);
+		this.snapshotCache.put(coordinates, checksum, repository);
+		return repository;
+	}
+
+	private boolean isResolved(String coordinates, boolean mandatory, ArtifactResult artifactResult) {
+		if (!artifactResult.isResolved() && mandatory) {
+			throw new IllegalStateException("Could not load " + coordinates,
+					new ArtifactResolutionException(List.of(artifactResult)));
+		}
+		return artifactResult.isResolved();
+	}
+
+	private ConfigurationMetadataRepository readMetadata(String coordinates, File file) throws IOException {
+		ConfigurationMetadataRepository repository = this.jarMetadataReader.read(file);
+		if (repository != null) {
+			logger.info("Adding meta-data from '" + coordinates + "'");
+		}
+		else {
+			logger.info("No meta-data found for '" + coordinates + "'");
 		}
+		return repository;
 	}
 
-	private interface Consumer {
+	/**
+	 * Resolve the artifacts of a set of versions in a single batch, the first time they
+	 * are needed.
+	 */
+	private class ArtifactResolution {
+
+		private final Collection<String> versions;
+
+		private Map<String, ArtifactResult> results;
 
-		void accept(InputStream in) throws IOException;
+		ArtifactResolution(Collection<String> versions) {
+			this.versions = versions;
+		}
+
+		synchronized Map<String, ArtifactResult> getResults() {
+			if (this.results == null) {
+				List<String> coordinates = new ArrayList<>();
+				for (String version : this.versions) {
+					ConfigurationMetadataLoader.this.artifacts
+						.forEach((artifact) -> coordinates.add(artifact.coordinates(version)));
+				}
+				this.results = ConfigurationMetadataLoader.this.dependencyResolver.resolveDependencies(coordinates);
+			}
+			return this.results;
+		}
 
 	}
 
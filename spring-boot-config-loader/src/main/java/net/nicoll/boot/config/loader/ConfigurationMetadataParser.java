@@ -0,0 +1,50 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoll.boot.config.loader;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepositoryJsonBuilder;
+
+/**
+ * Parse the content of a {@code spring-configuration-metadata.json} file.
+ *
+ * @author Stephane Nicoll
+ * @see #jsonBuilder()
+ * @see StreamingConfigurationMetadataParser
+ */
+@FunctionalInterface
+public interface ConfigurationMetadataParser {
+
+	/**
+	 * Parse the specified JSON metadata.
+	 * @param in the JSON content
+	 * @return the parsed repository
+	 * @throws IOException if the content cannot be read
+	 */
+	ConfigurationMetadataRepository parse(InputStream in) throws IOException;
+
+	/**
+	 * Return a parser that uses {@link ConfigurationMetadataRepositoryJsonBuilder}.
+	 * @return the default parser
+	 */
+	static ConfigurationMetadataParser jsonBuilder() {
+		return (in) -> ConfigurationMetadataRepositoryJsonBuilder.create(in).build();
+	}
+
+}
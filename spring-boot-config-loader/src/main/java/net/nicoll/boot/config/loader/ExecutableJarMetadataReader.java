@@ -0,0 +1,168 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoll.boot.config.loader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+import org.springframework.boot.configurationmetadata.SimpleConfigurationMetadataRepository;
+
+/**
+ * Read the configuration metadata of a Spring Boot executable jar: the metadata of the
+ * application itself in {@code BOOT-INF/classes} and the metadata of each nested jar in
+ * {@code BOOT-INF/lib}.
+ * <p>
+ * The executable jar is memory-mapped and nested jars, which are stored uncompressed, are
+ * read in place rather than extracted.
+ *
+ * @author Stephane Nicoll
+ */
+public class ExecutableJarMetadataReader {
+
+	private static final Logger logger = LoggerFactory.getLogger(ExecutableJarMetadataReader.class);
+
+	private static final String CLASSES_LOCATION = "BOOT-INF/classes/";
+
+	private static final String LIB_LOCATION = "BOOT-INF/lib/";
+
+	private final ConfigurationMetadataParser parser;
+
+	public ExecutableJarMetadataReader() {
+		this(ConfigurationMetadataParser.jsonBuilder());
+	}
+
+	public ExecutableJarMetadataReader(ConfigurationMetadataParser parser) {
+		this.parser = parser;
+	}
+
+	/**
+	 * Read the configuration metadata of the specified executable jar. The metadata of
+	 * the application come first, followed by the metadata of the nested jars in the
+	 * order of the archive.
+	 * @param jar the executable jar
+	 * @param executor the executor to use to read nested jars concurrently, or
+	 * {@code null} to read them one after the other
+	 * @return the merged metadata of the application and its libraries
+	 * @throws IOException if the jar cannot be read
+	 */
+	public ConfigurationMetadataRepository read(File jar, Executor executor) throws IOException {
+		ZipCentralDirectory directory = ZipCentralDirectory.read(map(jar));
+		List<ZipCentralDirectory.Entry> libraries = new ArrayList<>();
+		for (ZipCentralDirectory.Entry entry : directory.getEntries()) {
+			if (entry.name().startsWith(LIB_LOCATION) && entry.name().endsWith(".jar")) {
+				libraries.add(entry);
+			}
+		}
+		List<ConfigurationMetadataRepository> repositories = new ArrayList<>();
+		ZipCentralDirectory.Entry applicationMetadata = directory
+			.getEntry(CLASSES_LOCATION + JarMetadataReader.METADATA_LOCATION);
+		if (applicationMetadata != null) {
+			repositories.add(parse(directory, applicationMetadata));
+		}
+		if (executor == null) {
+			for (ZipCentralDirectory.Entry library : libraries) {
+				addIfNotNull(repositories, readLibrary(directory, library));
+			}
+		}
+		else {
+			List<CompletableFuture<ConfigurationMetadataRepository>> futures = libraries.stream()
+				.map((library) -> CompletableFuture.supplyAsync(() -> readLibraryUnchecked(directory, library),
+						executor))
+				.toList();
+			for (CompletableFuture<ConfigurationMetadataRepository> future : futures) {
+				addIfNotNull(repositories, join(future));
+			}
+		}
+		SimpleConfigurationMetadataRepository repository = new SimpleConfigurationMetadataRepository();
+		repositories.forEach(repository::include);
+		return repository;
+	}
+
+	private ByteBuffer map(File jar) throws IOException {
+		try (FileChannel channel = FileChannel.open(jar.toPath(), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Jar too large: " + jar);
+			}
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	private ConfigurationMetadataRepository readLibrary(ZipCentralDirectory directory,
+			ZipCentralDirectory.Entry library) throws IOException {
+		ZipCentralDirectory nested = ZipCentralDirectory.read(directory.getContent(library));
+		ZipCentralDirectory.Entry metadata = nested.getEntry(JarMetadataReader.METADATA_LOCATION);
+		if (metadata == null) {
+			return null;
+		}
+		logger.info("Adding meta-data from '" + library.name().substring(LIB_LOCATION.length()) + "'");
+		return parse(nested, metadata);
+	}
+
+	private ConfigurationMetadataRepository readLibraryUnchecked(ZipCentralDirectory directory,
+			ZipCentralDirectory.Entry library) {
+		try {
+			return readLibrary(directory, library);
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private ConfigurationMetadataRepository parse(ZipCentralDirectory directory, ZipCentralDirectory.Entry entry)
+			throws IOException {
+		try (InputStream in = directory.getInputStream(entry)) {
+			return this.parser.parse(in);
+		}
+	}
+
+	private void addIfNotNull(List<ConfigurationMetadataRepository> repositories,
+			ConfigurationMetadataRepository repository) {
+		if (repository != null) {
+			repositories.add(repository);
+		}
+	}
+
+	private ConfigurationMetadataRepository join(CompletableFuture<ConfigurationMetadataRepository> future)
+			throws IOException {
+		try {
+			return future.join();
+		}
+		catch (CompletionException ex) {
+			if (ex.getCause() instanceof UncheckedIOException io) {
+				throw io.getCause();
+			}
+			if (ex.getCause() instanceof RuntimeException runtime) {
+				throw runtime;
+			}
+			throw ex;
+		}
+	}
+
+}
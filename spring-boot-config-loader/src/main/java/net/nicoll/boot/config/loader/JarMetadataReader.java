@@ -0,0 +1,129 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoll.boot.config.loader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+import org.springframework.boot.configurationmetadata.SimpleConfigurationMetadataRepository;
+
+/**
+ * Read the configuration metadata of a jar file. The metadata entry is located using the
+ * central directory of the archive and streamed to the parser directly, without going
+ * through a {@link ClassLoader} and its URL handlers.
+ *
+ * @author Stephane Nicoll
+ */
+public class JarMetadataReader {
+
+	/**
+	 * The location of the configuration metadata in a jar.
+	 */
+	public static final String METADATA_LOCATION = "META-INF/spring-configuration-metadata.json";
+
+	private final ConfigurationMetadataParser parser;
+
+	/**
+	 * Create a reader that parses metadata using the
+	 * {@link ConfigurationMetadataParser#jsonBuilder() JSON builder}.
+	 */
+	public JarMetadataReader() {
+		this(ConfigurationMetadataParser.jsonBuilder());
+	}
+
+	/**
+	 * Create a reader that parses metadata using the specified parser.
+	 * @param parser the parser to use
+	 */
+	public JarMetadataReader(ConfigurationMetadataParser parser) {
+		this.parser = parser;
+	}
+
+	/**
+	 * Read the configuration metadata of the specified jar.
+	 * @param jar the jar file to read
+	 * @return the metadata of the jar, or {@code null} if the jar has no metadata
+	 * @throws IOException if the jar cannot be read
+	 */
+	public ConfigurationMetadataRepository read(File jar) throws IOException {
+		try (ZipFile zipFile = new ZipFile(jar)) {
+			ZipEntry entry = zipFile.getEntry(METADATA_LOCATION);
+			if (entry == null) {
+				return null;
+			}
+			try (InputStream stream = zipFile.getInputStream(entry)) {
+				return this.parser.parse(stream);
+			}
+		}
+	}
+
+	/**
+	 * Compute the checksum of the configuration metadata of the specified jar. Unlike
+	 * {@link MetadataSnapshotCache#checksum(File)}, only the metadata entry is taken into
+	 * account so that two builds of a jar with the same metadata have the same checksum.
+	 * @param jar the jar file to read
+	 * @return the SHA-1 of the metadata entry in hex format, or {@code null} if the jar
+	 * has no metadata
+	 * @throws IOException if the jar cannot be read
+	 */
+	public static String metadataChecksum(File jar) throws IOException {
+		try (ZipFile zipFile = new ZipFile(jar)) {
+			ZipEntry entry = zipFile.getEntry(METADATA_LOCATION);
+			if (entry == null) {
+				return null;
+			}
+			try (InputStream stream = zipFile.getInputStream(entry)) {
+				MessageDigest digest = MessageDigest.getInstance("SHA-1");
+				byte[] buffer = new byte[8192];
+				int read;
+				while ((read = stream.read(buffer)) != -1) {
+					digest.update(buffer, 0, read);
+				}
+				return HexFormat.of().formatHex(digest.digest());
+			}
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * Read the configuration metadata of the specified jars and merge them in a single
+	 * repository, in iteration order. Jars with no metadata are ignored.
+	 * @param jars the jar files to read
+	 * @return the merged metadata of the jars
+	 * @throws IOException if a jar cannot be read
+	 */
+	public ConfigurationMetadataRepository readAll(Collection<File> jars) throws IOException {
+		SimpleConfigurationMetadataRepository repository = new SimpleConfigurationMetadataRepository();
+		for (File jar : jars) {
+			ConfigurationMetadataRepository jarRepository = read(jar);
+			if (jarRepository != null) {
+				repository.include(jarRepository);
+			}
+		}
+		return repository;
+	}
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoll.boot.config.loader;
+
+import java.util.List;
+
+/**
+ * An artifact that provides configuration metadata. Its coordinates can refer to the
+ * version being loaded using a {@value #VERSION_PLACEHOLDER} placeholder, for instance
+ * {@code org.springframework.boot:spring-boot:{version}}. Coordinates with no placeholder
+ * are used as is, regardless of the version.
+ *
+ * @param coordinates the coordinates of the artifact, with an optional version
+ * placeholder
+ * @param mandatory whether loading fails if the artifact cannot be resolved
+ * @author Stephane Nicoll
+ */
+public record MetadataArtifact(String coordinates, boolean mandatory) {
+
+	/**
+	 * The placeholder for the version being loaded.
+	 */
+	public static final String VERSION_PLACEHOLDER = "{version}";
+
+	/**
+	 * The artifacts of Spring Boot that provide configuration metadata.
+	 */
+	public static final List<MetadataArtifact> SPRING_BOOT = List.of(
+			mandatory("org.springframework.boot:spring-boot:{version}"),
+			mandatory("org.springframework.boot:spring-boot-actuator:{version}"),
+			optional("org.springframework.boot:spring-boot-actuator-autoconfigure:{version}"),
+			mandatory("org.springframework.boot:spring-boot-autoconfigure:{version}"),
+			optional("org.springframework.boot:spring-boot-devtools:{version}"),
+			optional("org.springframework.boot:spring-boot-test-autoconfigure:{version}"));
+
+	/**
+	 * Create a mandatory artifact.
+	 * @param coordinates the coordinates of the artifact
+	 * @return a mandatory artifact
+	 */
+	public static MetadataArtifact mandatory(String coordinates) {
+		return new MetadataArtifact(coordinates, true);
+	}
+
+	/**
+	 * Create an optional artifact, that is ignored if it cannot be resolved.
+	 * @param coordinates the coordinates of the artifact
+	 * @return an optional artifact
+	 */
+	public static MetadataArtifact optional(String coordinates) {
+		return new MetadataArtifact(coordinates, false);
+	}
+
+	/**
+	 * Return the coordinates of this artifact for the specified version.
+	 * @param version the version being loaded
+	 * @return the coordinates of the artifact
+	 */
+	public String coordinates(String version) {
+		return this.coordinates.replace(VERSION_PLACEHOLDER, version);
+	}
+
+}
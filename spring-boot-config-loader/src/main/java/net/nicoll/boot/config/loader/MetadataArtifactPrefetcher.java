@@ -0,0 +1,169 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoll.boot.config.loader;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Download the metadata artifacts of a set of versions in the local repository, so that
+ * they can be loaded later on without contacting remote repositories. Versions are
+ * resolved concurrently, using a bounded number of threads.
+ * <p>
+ * Arguments are either versions or a version range such as {@code [2.0.0,3.2.0)}. The
+ * number of threads can be set using {@code --threads=<n>}.
+ *
+ * @author Stephane Nicoll
+ */
+public class MetadataArtifactPrefetcher {
+
+	private static final Logger logger = LoggerFactory.getLogger(MetadataArtifactPrefetcher.class);
+
+	private static final int DEFAULT_THREADS = 4;
+
+	private final AetherDependencyResolver dependencyResolver;
+
+	private final List<MetadataArtifact> artifacts;
+
+	private final int threads;
+
+	public MetadataArtifactPrefetcher(AetherDependencyResolver dependencyResolver, int threads) {
+		this(dependencyResolver, MetadataArtifact.SPRING_BOOT, threads);
+	}
+
+	public MetadataArtifactPrefetcher(AetherDependencyResolver dependencyResolver, List<MetadataArtifact> artifacts,
+			int threads) {
+		this.dependencyResolver = dependencyResolver;
+		this.artifacts = List.copyOf(artifacts);
+		this.threads = threads;
+	}
+
+	public static void main(String[] args) throws Exception {
+		AetherDependencyResolver dependencyResolver = AetherDependencyResolver.withAllRepositories();
+		int threads = DEFAULT_THREADS;
+		List<String> versions = new ArrayList<>();
+		for (String arg : args) {
+			if (arg.startsWith("--threads=")) {
+				threads = Integer.parseInt(arg.substring("--threads=".length()));
+			}
+			else if (arg.startsWith("[") || arg.startsWith("(")) {
+				versions.addAll(dependencyResolver.resolveVersions("org.springframework.boot:spring-boot:" + arg));
+			}
+			else {
+				versions.add(arg);
+			}
+		}
+		PrefetchReport report = new MetadataArtifactPrefetcher(dependencyResolver, threads).prefetch(versions);
+		System.out.println(report);
+	}
+
+	/**
+	 * Resolve the metadata artifacts of the specified versions.
+	 * @param versions the versions to prefetch
+	 * @return a report of the operation
+	 */
+	public PrefetchReport prefetch(Collection<String> versions) {
+		long start = System.nanoTime();
+		ExecutorService executor = Executors.newFixedThreadPool(this.threads);
+		try {
+			List<CompletableFuture<Map<String, ArtifactResult>>> futures = versions.stream()
+				.map((version) -> CompletableFuture.supplyAsync(() -> prefetch(version), executor))
+				.toList();
+			int artifacts = 0;
+			long bytes = 0;
+			List<String> missing = new ArrayList<>();
+			for (CompletableFuture<Map<String, ArtifactResult>> future : futures) {
+				for (Map.Entry<String, ArtifactResult> entry : future.join().entrySet()) {
+					if (entry.getValue().isResolved()) {
+						artifacts++;
+						bytes += entry.getValue().getArtifact().getFile().length();
+					}
+					else {
+						missing.add(entry.getKey());
+					}
+				}
+			}
+			return new PrefetchReport(versions.size(), artifacts, bytes, missing,
+					Duration.ofNanos(System.nanoTime() - start));
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	private Map<String, ArtifactResult> prefetch(String version) {
+		logger.info("Prefetching metadata artifacts of " + version);
+		List<String> coordinates = this.artifacts.stream().map((artifact) -> artifact.coordinates(version)).toList();
+		return this.dependencyResolver.resolveDependencies(coordinates);
+	}
+
+	/**
+	 * Report of a prefetch operation.
+	 *
+	 * @param versions the number of versions
+	 * @param artifacts the number of artifacts that were resolved
+	 * @param bytes the total size of the resolved artifacts
+	 * @param missing the coordinates of the artifacts that could not be resolved
+	 * @param duration the duration of the operation
+	 */
+	public record PrefetchReport(int versions, int artifacts, long bytes, List<String> missing, Duration duration) {
+
+		/**
+		 * Return the number of artifacts resolved per second.
+		 * @return the artifact throughput
+		 */
+		public double artifactsPerSecond() {
+			return this.artifacts / seconds();
+		}
+
+		/**
+		 * Return the number of megabytes resolved per second.
+		 * @return the byte throughput
+		 */
+		public double megabytesPerSecond() {
+			return (this.bytes / (1024.0 * 1024.0)) / seconds();
+		}
+
+		private double seconds() {
+			return Math.max(this.duration.toMillis(), 1) / 1000.0;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			sb.append(String.format("Resolved %d artifacts (%.1f MB) for %d versions in %d ms%n", this.artifacts,
+					this.bytes / (1024.0 * 1024.0), this.versions, this.duration.toMillis()));
+			sb.append(String.format("\t%.1f artifacts/s, %.1f MB/s%n", artifactsPerSecond(), megabytesPerSecond()));
+			if (!this.missing.isEmpty()) {
+				sb.append(String.format("%d missing artifacts:%n", this.missing.size()));
+				this.missing.forEach((coordinates) -> sb.append(String.format("\t%s%n", coordinates)));
+			}
+			return sb.toString();
+		}
+
+	}
+
+}
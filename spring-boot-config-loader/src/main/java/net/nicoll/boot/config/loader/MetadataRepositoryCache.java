@@ -0,0 +1,158 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoll.boot.config.loader;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+
+/**
+ * A bounded in-memory cache of the repositories built by a
+ * {@link ConfigurationMetadataLoader}, keyed by the coordinates of the artifacts a
+ * repository is made of, so that loaders with different artifacts can share a cache.
+ * Concurrent requests for the same key wait for a single load rather than resolving and
+ * parsing the artifacts again.
+ * <p>
+ * The size of the cache is expressed as a number of properties, as the size of a
+ * repository varies significantly from one generation to the next. The least recently
+ * used repositories are evicted once that limit is exceeded.
+ * <p>
+ * Cached repositories are shared by all callers and must not be modified.
+ *
+ * @author Stephane Nicoll
+ */
+public class MetadataRepositoryCache {
+
+	private static final int DEFAULT_MAXIMUM_PROPERTIES = 10000;
+
+	private final int maximumProperties;
+
+	private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private int properties;
+
+	/**
+	 * Create a cache that holds up to {@value #DEFAULT_MAXIMUM_PROPERTIES} properties.
+	 */
+	public MetadataRepositoryCache() {
+		this(DEFAULT_MAXIMUM_PROPERTIES);
+	}
+
+	/**
+	 * Create a cache that holds up to the specified number of properties.
+	 * @param maximumProperties the total number of properties of the cached repositories
+	 * above which the least recently used repositories are evicted
+	 */
+	public MetadataRepositoryCache(int maximumProperties) {
+		this.maximumProperties = maximumProperties;
+	}
+
+	/**
+	 * Return the repository with the specified key, loading it if necessary. If the
+	 * repository is being loaded by another thread, wait for that load to complete.
+	 * @param key the key of the repository, identifying the artifacts of a version
+	 * @param loader the loader to use if the repository is not cached
+	 * @return the repository
+	 * @throws IOException if the repository failed to load
+	 */
+	ConfigurationMetadataRepository get(String key, RepositoryLoader loader) throws IOException {
+		Entry entry;
+		boolean owner = false;
+		synchronized (this.entries) {
+			entry = this.entries.get(key);
+			if (entry == null) {
+				entry = new Entry();
+				this.entries.put(key, entry);
+				owner = true;
+			}
+		}
+		return (owner) ? load(key, entry, loader) : join(entry.future);
+	}
+
+	private ConfigurationMetadataRepository load(String key, Entry entry, RepositoryLoader loader) throws IOException {
+		ConfigurationMetadataRepository repository;
+		try {
+			repository = loader.load(key);
+		}
+		catch (IOException | RuntimeException ex) {
+			synchronized (this.entries) {
+				this.entries.remove(key, entry);
+			}
+			entry.future.completeExceptionally(ex);
+			throw ex;
+		}
+		synchronized (this.entries) {
+			entry.properties = repository.getAllProperties().size();
+			if (this.entries.get(key) == entry) {
+				this.properties += entry.properties;
+				evict();
+			}
+		}
+		entry.future.complete(repository);
+		return repository;
+	}
+
+	private void evict() {
+		Iterator<Entry> it = this.entries.values().iterator();
+		while (this.properties > this.maximumProperties && it.hasNext()) {
+			Entry candidate = it.next();
+			if (candidate.properties >= 0) {
+				it.remove();
+				this.properties -= candidate.properties;
+			}
+		}
+	}
+
+	private ConfigurationMetadataRepository join(CompletableFuture<ConfigurationMetadataRepository> future)
+			throws IOException {
+		try {
+			return future.join();
+		}
+		catch (CompletionException ex) {
+			if (ex.getCause() instanceof IOException io) {
+				throw io;
+			}
+			if (ex.getCause() instanceof RuntimeException runtime) {
+				throw runtime;
+			}
+			throw ex;
+		}
+	}
+
+	@FunctionalInterface
+	interface RepositoryLoader {
+
+		ConfigurationMetadataRepository load(String key) throws IOException;
+
+	}
+
+	private static class Entry {
+
+		private final CompletableFuture<ConfigurationMetadataRepository> future = new CompletableFuture<>();
+
+		/**
+		 * The number of properties of the repository, or {@code -1} while it is loading.
+		 */
+		private int properties = -1;
+
+	}
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoll.boot.config.loader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+
+/**
+ * A persistent cache of parsed configuration metadata, keyed by artifact coordinates and
+ * the checksum of the resolved jar. A hit skips both the access to the jar and the
+ * parsing of its JSON metadata.
+ * <p>
+ * Only the latest snapshot of a given artifact is kept: storing a snapshot for a jar with
+ * a different checksum, typically a new build of a {@code SNAPSHOT} version, replaces the
+ * previous one.
+ *
+ * @author Stephane Nicoll
+ */
+public class MetadataSnapshotCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(MetadataSnapshotCache.class);
+
+	private static final int MAGIC = 0x434D4453;
+
+	private static final String SNAPSHOT_EXTENSION = ".snapshot";
+
+	private final Path directory;
+
+	public MetadataSnapshotCache(Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Create a cache in the {@code config-metadata-cache} directory of the local maven
+	 * home.
+	 * @return a cache in the default location
+	 */
+	public static MetadataSnapshotCache withDefaultLocation() {
+		return new MetadataSnapshotCache(Path.of(System.getProperty("user.home"), ".m2", "config-metadata-cache"));
+	}
+
+	/**
+	 * Return the cached metadata of the specified artifact.
+	 * @param coordinates the coordinates of the artifact
+	 * @param checksum the {@link #checksum(File) checksum} of the resolved jar
+	 * @return the cached snapshot, or {@code null} if no snapshot matches the jar
+	 */
+	public Snapshot get(String coordinates, String checksum) throws IOException {
+		Path snapshot = getSnapshot(coordinates, checksum);
+		if (!Files.isRegularFile(snapshot)) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+			if (in.readInt() != MAGIC || in.readInt() != MetadataSnapshotWriter.FORMAT_VERSION) {
+				logger.info("Ignoring snapshot with unsupported format for '" + coordinates + "'");
+				return null;
+			}
+			return new Snapshot(new MetadataSnapshotReader(in).readRepository());
+		}
+		catch (IOException | RuntimeException ex) {
+			logger.warn("Ignoring invalid snapshot for '" + coordinates + "'", ex);
+			Files.deleteIfExists(snapshot);
+			return null;
+		}
+	}
+
+	/**
+	 * Store the metadata of the specified artifact, replacing any snapshot that was
+	 * created for a different jar.
+	 * @param coordinates the coordinates of the artifact
+	 * @param checksum the {@link #checksum(File) checksum} of the resolved jar
+	 * @param repository the metadata to store, freshly parsed from the jar, or
+	 * {@code null} if the jar has no metadata
+	 */
+	public void put(String coordinates, String checksum, ConfigurationMetadataRepository repository)
+			throws IOException {
+		Path snapshot = getSnapshot(coordinates, checksum);
+		Path artifactDirectory = snapshot.getParent();
+		Files.createDirectories(artifactDirectory);
+		deleteSnapshots(artifactDirectory);
+		Path tmp = Files.createTempFile(artifactDirectory, "snapshot", ".tmp");
+		try {
+			try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+				DataOutputStream data = new DataOutputStream(out);
+				data.writeInt(MAGIC);
+				data.writeInt(MetadataSnapshotWriter.FORMAT_VERSION);
+				new MetadataSnapshotWriter(data).writeRepository(repository);
+			}
+			Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IllegalArgumentException ex) {
+			logger.info("Not caching meta-data of '" + coordinates + "': " + ex.getMessage());
+		}
+		finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	private Path getSnapshot(String coordinates, String checksum) {
+		return this.directory.resolve(coordinates.replace(':', File.separatorChar))
+			.resolve(checksum + SNAPSHOT_EXTENSION);
+	}
+
+	private void deleteSnapshots(Path artifactDirectory) throws IOException {
+		try (Stream<Path> files = Files.list(artifactDirectory)) {
+			for (Path file : files.filter((f) -> f.toString().endsWith(SNAPSHOT_EXTENSION)).toList()) {
+				Files.deleteIfExists(file);
+			}
+		}
+	}
+
+	/**
+	 * Compute the checksum of the specified jar.
+	 * @param jar the jar
+	 * @return the SHA-1 of the content of the jar, in hex format
+	 */
+	public static String checksum(File jar) throws IOException {
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(jar.toPath()))) {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+			return HexFormat.of().formatHex(digest.digest());
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * The cached metadata of an artifact.
+	 *
+	 * @param repository the metadata of the artifact, or {@code null} if the jar has no
+	 * metadata
+	 */
+	public record Snapshot(ConfigurationMetadataRepository repository) {
+
+	}
+
+}
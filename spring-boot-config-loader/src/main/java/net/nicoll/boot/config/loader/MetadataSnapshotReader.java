@@ -0,0 +1,243 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoll.boot.config.loader;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataGroup;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataSource;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataSourceFactory;
+import org.springframework.boot.configurationmetadata.Deprecation;
+import org.springframework.boot.configurationmetadata.Hints;
+import org.springframework.boot.configurationmetadata.SimpleConfigurationMetadataRepository;
+import org.springframework.boot.configurationmetadata.ValueHint;
+import org.springframework.boot.configurationmetadata.ValueProvider;
+
+/**
+ * Reads configuration metadata written by a {@link MetadataSnapshotWriter}. Every read
+ * creates new instances so that the result can be freely merged with other repositories.
+ *
+ * @author Stephane Nicoll
+ * @see MetadataSnapshotWriter
+ */
+public class MetadataSnapshotReader {
+
+	private final DataInputStream in;
+
+	private ConfigurationMetadataProperty[] properties;
+
+	public MetadataSnapshotReader(InputStream in) {
+		this.in = new DataInputStream(in);
+	}
+
+	/**
+	 * Read a repository.
+	 * @return the repository, or {@code null} if the snapshot records that no metadata is
+	 * available
+	 * @throws IOException if the repository cannot be read
+	 */
+	public ConfigurationMetadataRepository readRepository() throws IOException {
+		if (!this.in.readBoolean()) {
+			return null;
+		}
+		readProperties();
+		Map<String, ConfigurationMetadataGroup> groups = readGroups();
+		SimpleConfigurationMetadataRepository repository = new SimpleConfigurationMetadataRepository();
+		repository.include(new GroupsRepository(groups));
+		return repository;
+	}
+
+	private void readProperties() throws IOException {
+		int size = this.in.readInt();
+		this.properties = new ConfigurationMetadataProperty[size];
+		for (int i = 0; i < size; i++) {
+			this.properties[i] = readProperty();
+		}
+	}
+
+	private ConfigurationMetadataProperty readProperty() throws IOException {
+		ConfigurationMetadataProperty property = new ConfigurationMetadataProperty();
+		property.setId(readString());
+		property.setName(readString());
+		property.setType(readString());
+		property.setDescription(readString());
+		property.setShortDescription(readString());
+		property.setDefaultValue(readValue());
+		property.setDeprecation(readDeprecation());
+		readHints(property.getHints());
+		return property;
+	}
+
+	private Deprecation readDeprecation() throws IOException {
+		if (!this.in.readBoolean()) {
+			return null;
+		}
+		Deprecation deprecation = new Deprecation();
+		String level = readString();
+		deprecation.setLevel((level != null) ? Deprecation.Level.valueOf(level) : null);
+		deprecation.setReason(readString());
+		deprecation.setShortReason(readString());
+		deprecation.setReplacement(readString());
+		return deprecation;
+	}
+
+	private void readHints(Hints hints) throws IOException {
+		readValueHints(hints.getKeyHints());
+		readValueProviders(hints.getKeyProviders());
+		readValueHints(hints.getValueHints());
+		readValueProviders(hints.getValueProviders());
+	}
+
+	private void readValueHints(List<ValueHint> target) throws IOException {
+		int size = this.in.readInt();
+		for (int i = 0; i < size; i++) {
+			ValueHint valueHint = new ValueHint();
+			valueHint.setValue(readValue());
+			valueHint.setDescription(readString());
+			valueHint.setShortDescription(readString());
+			target.add(valueHint);
+		}
+	}
+
+	private void readValueProviders(List<ValueProvider> target) throws IOException {
+		int size = this.in.readInt();
+		for (int i = 0; i < size; i++) {
+			ValueProvider valueProvider = new ValueProvider();
+			valueProvider.setName(readString());
+			int parameters = this.in.readInt();
+			for (int j = 0; j < parameters; j++) {
+				valueProvider.getParameters().put(readString(), readValue());
+			}
+			target.add(valueProvider);
+		}
+	}
+
+	private Map<String, ConfigurationMetadataGroup> readGroups() throws IOException {
+		int size = this.in.readInt();
+		Map<String, ConfigurationMetadataGroup> groups = new HashMap<>();
+		for (int i = 0; i < size; i++) {
+			ConfigurationMetadataGroup group = new ConfigurationMetadataGroup(readString());
+			int sourcesSize = this.in.readInt();
+			for (int j = 0; j < sourcesSize; j++) {
+				ConfigurationMetadataSource source = readSource();
+				group.getSources().put(source.getType(), source);
+			}
+			addProperties(group.getProperties(), readPropertyIndexes());
+			groups.put(group.getId(), group);
+		}
+		return groups;
+	}
+
+	private ConfigurationMetadataSource readSource() throws IOException {
+		ConfigurationMetadataSource source = ConfigurationMetadataSourceFactory.createSource(readString(), readString(),
+				readString(), readString(), readString(), readString());
+		addProperties(source.getProperties(), readPropertyIndexes());
+		return source;
+	}
+
+	private int[] readPropertyIndexes() throws IOException {
+		int[] indexes = new int[this.in.readInt()];
+		for (int i = 0; i < indexes.length; i++) {
+			indexes[i] = this.in.readInt();
+		}
+		return indexes;
+	}
+
+	private void addProperties(Map<String, ConfigurationMetadataProperty> target, int[] indexes) {
+		for (int index : indexes) {
+			ConfigurationMetadataProperty property = this.properties[index];
+			target.put(property.getId(), property);
+		}
+	}
+
+	private Object readValue() throws IOException {
+		int type = this.in.readByte();
+		return switch (type) {
+			case MetadataSnapshotWriter.NULL_VALUE -> null;
+			case MetadataSnapshotWriter.STRING_VALUE -> readString();
+			case MetadataSnapshotWriter.BOOLEAN_VALUE -> this.in.readBoolean();
+			case MetadataSnapshotWriter.INTEGER_VALUE -> this.in.readInt();
+			case MetadataSnapshotWriter.LONG_VALUE -> this.in.readLong();
+			case MetadataSnapshotWriter.FLOAT_VALUE -> this.in.readFloat();
+			case MetadataSnapshotWriter.DOUBLE_VALUE -> this.in.readDouble();
+			case MetadataSnapshotWriter.BIG_INTEGER_VALUE -> new BigInteger(readString());
+			case MetadataSnapshotWriter.BIG_DECIMAL_VALUE -> new BigDecimal(readString());
+			case MetadataSnapshotWriter.ARRAY_VALUE -> readArray();
+			case MetadataSnapshotWriter.MAP_VALUE -> readMap();
+			default -> throw new IOException("Unknown value type " + type);
+		};
+	}
+
+	private Object[] readArray() throws IOException {
+		Object[] array = new Object[this.in.readInt()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = readValue();
+		}
+		return array;
+	}
+
+	private Map<String, Object> readMap() throws IOException {
+		int size = this.in.readInt();
+		Map<String, Object> map = new LinkedHashMap<>();
+		for (int i = 0; i < size; i++) {
+			map.put(readString(), readValue());
+		}
+		return map;
+	}
+
+	private String readString() throws IOException {
+		int length = this.in.readInt();
+		if (length == -1) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		this.in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Exposes decoded groups so that they can be included in a
+	 * {@link SimpleConfigurationMetadataRepository}.
+	 */
+	private record GroupsRepository(
+			Map<String, ConfigurationMetadataGroup> groups) implements ConfigurationMetadataRepository {
+
+		@Override
+		public Map<String, ConfigurationMetadataGroup> getAllGroups() {
+			return this.groups;
+		}
+
+		@Override
+		public Map<String, ConfigurationMetadataProperty> getAllProperties() {
+			Map<String, ConfigurationMetadataProperty> properties = new HashMap<>();
+			this.groups.values().forEach((group) -> properties.putAll(group.getProperties()));
+			return properties;
+		}
+
+	}
+
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoll.boot.config.loader;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataGroup;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataSource;
+import org.springframework.boot.configurationmetadata.Deprecation;
+import org.springframework.boot.configurationmetadata.Hints;
+import org.springframework.boot.configurationmetadata.ValueHint;
+import org.springframework.boot.configurationmetadata.ValueProvider;
+
+/**
+ * Writes configuration metadata in a compact binary format that can be read back by
+ * {@link MetadataSnapshotReader} without any JSON parsing.
+ * <p>
+ * Properties are written once in a table and groups and sources refer to them by index,
+ * which preserves the sharing of property instances between a group and its sources.
+ * Values keep their type, a value of a type that cannot be represented leading to an
+ * {@link IllegalArgumentException} so that the metadata is read from JSON instead.
+ *
+ * @author Stephane Nicoll
+ * @see MetadataSnapshotReader
+ */
+public class MetadataSnapshotWriter {
+
+	/**
+	 * The version of the binary format. Must be incremented whenever the layout changes.
+	 */
+	public static final int FORMAT_VERSION = 3;
+
+	static final int NULL_VALUE = 0;
+
+	static final int STRING_VALUE = 1;
+
+	static final int BOOLEAN_VALUE = 2;
+
+	static final int INTEGER_VALUE = 3;
+
+	static final int LONG_VALUE = 4;
+
+	static final int DOUBLE_VALUE = 5;
+
+	static final int ARRAY_VALUE = 6;
+
+	static final int FLOAT_VALUE = 7;
+
+	static final int BIG_INTEGER_VALUE = 8;
+
+	static final int BIG_DECIMAL_VALUE = 9;
+
+	static final int MAP_VALUE = 10;
+
+	private final DataOutputStream out;
+
+	private final Map<ConfigurationMetadataProperty, Integer> propertyIndexes = new IdentityHashMap<>();
+
+	public MetadataSnapshotWriter(OutputStream out) {
+		this.out = new DataOutputStream(out);
+	}
+
+	/**
+	 * Write the specified repository. A {@code null} repository is recorded as such, so
+	 * that an artifact with no metadata can be told apart from one with empty metadata.
+	 * @param repository the repository to write, or {@code null} if no metadata is
+	 * available
+	 * @throws IOException if the repository cannot be written
+	 * @throws IllegalArgumentException if a value of the repository is not supported
+	 */
+	public void writeRepository(ConfigurationMetadataRepository repository) throws IOException {
+		this.out.writeBoolean(repository != null);
+		if (repository != null) {
+			Collection<ConfigurationMetadataGroup> groups = repository.getAllGroups().values();
+			writeProperties(collectProperties(groups));
+			writeGroups(groups);
+		}
+		this.out.flush();
+	}
+
+	private List<ConfigurationMetadataProperty> collectProperties(Collection<ConfigurationMetadataGroup> groups) {
+		Map<ConfigurationMetadataProperty, Boolean> properties = new IdentityHashMap<>();
+		List<ConfigurationMetadataProperty> result = new ArrayList<>();
+		for (ConfigurationMetadataGroup group : groups) {
+			for (ConfigurationMetadataProperty property : group.getProperties().values()) {
+				if (properties.put(property, Boolean.TRUE) == null) {
+					result.add(property);
+				}
+			}
+			for (ConfigurationMetadataSource source : group.getSources().values()) {
+				for (ConfigurationMetadataProperty property : source.getProperties().values()) {
+					if (properties.put(property, Boolean.TRUE) == null) {
+						result.add(property);
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	private void writeProperties(List<ConfigurationMetadataProperty> properties) throws IOException {
+		this.out.writeInt(properties.size());
+		for (ConfigurationMetadataProperty property : properties) {
+			this.propertyIndexes.put(property, this.propertyIndexes.size());
+			writeProperty(property);
+		}
+	}
+
+	private void writeProperty(ConfigurationMetadataProperty property) throws IOException {
+		writeString(property.getId());
+		writeString(property.getName());
+		writeString(property.getType());
+		writeString(property.getDescription());
+		writeString(property.getShortDescription());
+		writeValue(property.getDefaultValue());
+		writeDeprecation(property.getDeprecation());
+		writeHints(property.getHints());
+	}
+
+	private void writeDeprecation(Deprecation deprecation) throws IOException {
+		this.out.writeBoolean(deprecation != null);
+		if (deprecation != null) {
+			writeString((deprecation.getLevel() != null) ? deprecation.getLevel().name() : null);
+			writeString(deprecation.getReason());
+			writeString(deprecation.getShortReason());
+			writeString(deprecation.getReplacement());
+		}
+	}
+
+	private void writeHints(Hints hints) throws IOException {
+		writeValueHints(hints.getKeyHints());
+		writeValueProviders(hints.getKeyProviders());
+		writeValueHints(hints.getValueHints());
+		writeValueProviders(hints.getValueProviders());
+	}
+
+	private void writeValueHints(List<ValueHint> valueHints) throws IOException {
+		this.out.writeInt(valueHints.size());
+		for (ValueHint valueHint : valueHints) {
+			writeValue(valueHint.getValue());
+			writeString(valueHint.getDescription());
+			writeString(valueHint.getShortDescription());
+		}
+	}
+
+	private void writeValueProviders(List<ValueProvider> valueProviders) throws IOException {
+		this.out.writeInt(valueProviders.size());
+		for (ValueProvider valueProvider : valueProviders) {
+			writeString(valueProvider.getName());
+			Map<String, Object> parameters = valueProvider.getParameters();
+			this.out.writeInt(parameters.size());
+			for (Map.Entry<String, Object> entry : parameters.entrySet()) {
+				writeString(entry.getKey());
+				writeValue(entry.getValue());
+			}
+		}
+	}
+
+	private void writeGroups(Collection<ConfigurationMetadataGroup> groups) throws IOException {
+		this.out.writeInt(groups.size());
+		for (ConfigurationMetadataGroup group : groups) {
+			writeString(group.getId());
+			this.out.writeInt(group.getSources().size());
+			for (ConfigurationMetadataSource source : group.getSources().values()) {
+				writeSource(source);
+			}
+			writePropertyIndexes(group.getProperties().values());
+		}
+	}
+
+	private void writeSource(ConfigurationMetadataSource source) throws IOException {
+		writeString(source.getGroupId());
+		writeString(source.getType());
+		writeString(source.getDescription());
+		writeString(source.getShortDescription());
+		writeString(source.getSourceType());
+		writeString(source.getSourceMethod());
+		writePropertyIndexes(source.getProperties().values());
+	}
+
+	private void writePropertyIndexes(Collection<ConfigurationMetadataProperty> properties) throws IOException {
+		this.out.writeInt(properties.size());
+		for (ConfigurationMetadataProperty property : properties) {
+			this.out.writeInt(this.propertyIndexes.get(property));
+		}
+	}
+
+	private void writeValue(Object value) throws IOException {
+		if (value == null) {
+			this.out.writeByte(NULL_VALUE);
+		}
+		else if (value instanceof String string) {
+			this.out.writeByte(STRING_VALUE);
+			writeString(string);
+		}
+		else if (value instanceof Boolean bool) {
+			this.out.writeByte(BOOLEAN_VALUE);
+			this.out.writeBoolean(bool);
+		}
+		else if (value instanceof Integer integer) {
+			this.out.writeByte(INTEGER_VALUE);
+			this.out.writeInt(integer);
+		}
+		else if (value instanceof Long longValue) {
+			this.out.writeByte(LONG_VALUE);
+			this.out.writeLong(longValue);
+		}
+		else if (value instanceof Float floatValue) {
+			this.out.writeByte(FLOAT_VALUE);
+			this.out.writeFloat(floatValue);
+		}
+		else if (value instanceof Double doubleValue) {
+			this.out.writeByte(DOUBLE_VALUE);
+			this.out.writeDouble(doubleValue);
+		}
+		else if (value instanceof BigInteger bigInteger) {
+			this.out.writeByte(BIG_INTEGER_VALUE);
+			writeString(bigInteger.toString());
+		}
+		else if (value instanceof BigDecimal bigDecimal) {
+			this.out.writeByte(BIG_DECIMAL_VALUE);
+			writeString(bigDecimal.toString());
+		}
+		else if (value instanceof Object[] array) {
+			this.out.writeByte(ARRAY_VALUE);
+			this.out.writeInt(array.length);
+			for (Object element : array) {
+				writeValue(element);
+			}
+		}
+		else if (value instanceof Map<?, ?> map) {
+			this.out.writeByte(MAP_VALUE);
+			this.out.writeInt(map.size());
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				writeString(String.valueOf(entry.getKey()));
+				writeValue(entry.getValue());
+			}
+		}
+		else {
+			throw new IllegalArgumentException("Unsupported value type " + value.getClass().getName());
+		}
+	}
+
+	private void writeString(String value) throws IOException {
+		if (value == null) {
+			this.out.writeInt(-1);
+		}
+		else {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			this.out.writeInt(bytes.length);
+			this.out.write(bytes);
+		}
+	}
+
+}
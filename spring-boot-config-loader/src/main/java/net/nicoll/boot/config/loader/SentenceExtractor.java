@@ -1,14 +1,33 @@
-package net.nicoll.boot.config.diff;
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoll.boot.config.loader;
 
 import java.text.BreakIterator;
 import java.util.Locale;
 
 /**
- * Extract a single sentence from a potentially multi-lines description.
+ * Extract a single sentence from a potentially multi-lines description, the same way the
+ * JSON builder does.
  *
  * @author Stephane Nicoll
  */
-public class SentenceExtractor {
+public final class SentenceExtractor {
+
+	private SentenceExtractor() {
+	}
 
 	public static String getFirstSentence(String text) {
 		if (text == null) {
@@ -0,0 +1,431 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoll.boot.config.loader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataGroup;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepositoryJsonBuilder;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataSource;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataSourceFactory;
+import org.springframework.boot.configurationmetadata.Deprecation;
+import org.springframework.boot.configurationmetadata.Hints;
+import org.springframework.boot.configurationmetadata.SimpleConfigurationMetadataRepository;
+import org.springframework.boot.configurationmetadata.ValueHint;
+import org.springframework.boot.configurationmetadata.ValueProvider;
+
+/**
+ * A {@link ConfigurationMetadataParser} that reads the JSON content token by token rather
+ * than building a tree of the whole document first, as
+ * {@link ConfigurationMetadataRepositoryJsonBuilder} does. Properties and sources are
+ * created as they are read so that the peak memory usage is close to the size of the
+ * resulting repository.
+ * <p>
+ * The resulting repository is equivalent to the one created by the JSON builder: names
+ * are resolved against groups, properties are attached to their source and hints are
+ * applied the same way.
+ *
+ * @author Stephane Nicoll
+ */
+public class StreamingConfigurationMetadataParser implements ConfigurationMetadataParser {
+
+	private static final JsonFactory jsonFactory = new JsonFactory();
+
+	private static final String KEY_SUFFIX = ".keys";
+
+	private static final String VALUE_SUFFIX = ".values";
+
+	@Override
+	public ConfigurationMetadataRepository parse(InputStream in) throws IOException {
+		try (JsonParser parser = jsonFactory.createParser(in)) {
+			RawMetadata metadata = new RawMetadata();
+			expect(parser.nextToken(), JsonToken.START_OBJECT);
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.getCurrentName();
+				JsonToken token = parser.nextToken();
+				if (token == JsonToken.START_ARRAY && name.equals("groups")) {
+					while (parser.nextToken() != JsonToken.END_ARRAY) {
+						metadata.sources.add(parseSource(parser));
+					}
+				}
+				else if (token == JsonToken.START_ARRAY && name.equals("properties")) {
+					while (parser.nextToken() != JsonToken.END_ARRAY) {
+						metadata.items.add(parseItem(parser));
+					}
+				}
+				else if (token == JsonToken.START_ARRAY && name.equals("hints")) {
+					while (parser.nextToken() != JsonToken.END_ARRAY) {
+						metadata.hints.add(parseHint(parser));
+					}
+				}
+				else {
+					parser.skipChildren();
+				}
+			}
+			return metadata.createRepository();
+		}
+	}
+
+	private ConfigurationMetadataSource parseSource(JsonParser parser) throws IOException {
+		expect(parser.currentToken(), JsonToken.START_OBJECT);
+		String groupId = null;
+		String type = null;
+		String description = null;
+		String sourceType = null;
+		String sourceMethod = null;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String name = parser.getCurrentName();
+			parser.nextToken();
+			switch (name) {
+				case "name" -> groupId = readString(parser);
+				case "type" -> type = readString(parser);
+				case "description" -> description = readString(parser);
+				case "sourceType" -> sourceType = readString(parser);
+				case "sourceMethod" -> sourceMethod = readString(parser);
+				default -> parser.skipChildren();
+			}
+		}
+		return ConfigurationMetadataSourceFactory.createSource(required(groupId, "group"), type, description,
+				SentenceExtractor.getFirstSentence(description), sourceType, sourceMethod);
+	}
+
+	private Item parseItem(JsonParser parser) throws IOException {
+		expect(parser.currentToken(), JsonToken.START_OBJECT);
+		ConfigurationMetadataProperty property = new ConfigurationMetadataProperty();
+		String sourceType = null;
+		Deprecation deprecation = null;
+		boolean deprecated = false;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String name = parser.getCurrentName();
+			parser.nextToken();
+			switch (name) {
+				case "name" -> property.setId(readString(parser));
+				case "type" -> property.setType(readString(parser));
+				case "description" -> {
+					String description = readString(parser);
+					property.setDescription(description);
+					property.setShortDescription(SentenceExtractor.getFirstSentence(description));
+				}
+				case "defaultValue" -> property.setDefaultValue(readValue(parser));
+				case "deprecation" -> deprecation = parseDeprecation(parser);
+				case "deprecated" -> deprecated = readBoolean(parser);
+				case "sourceType" -> sourceType = readString(parser);
+				default -> parser.skipChildren();
+			}
+		}
+		required(property.getId(), "property");
+		property.setName(property.getId());
+		if (deprecation == null && deprecated) {
+			deprecation = new Deprecation();
+		}
+		property.setDeprecation(deprecation);
+		return new Item(property, sourceType);
+	}
+
+	private Deprecation parseDeprecation(JsonParser parser) throws IOException {
+		if (parser.currentToken() != JsonToken.START_OBJECT) {
+			parser.skipChildren();
+			return null;
+		}
+		Deprecation deprecation = new Deprecation();
+		String level = null;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String name = parser.getCurrentName();
+			parser.nextToken();
+			switch (name) {
+				case "level" -> level = readString(parser);
+				case "reason" -> {
+					String reason = readString(parser);
+					deprecation.setReason(reason);
+					deprecation.setShortReason(SentenceExtractor.getFirstSentence(reason));
+				}
+				case "replacement" -> deprecation.setReplacement(readString(parser));
+				default -> parser.skipChildren();
+			}
+		}
+		deprecation.setLevel(parseDeprecationLevel(level));
+		return deprecation;
+	}
+
+	private Deprecation.Level parseDeprecationLevel(String value) {
+		if (value != null) {
+			try {
+				return Deprecation.Level.valueOf(value.toUpperCase(Locale.ENGLISH));
+			}
+			catch (IllegalArgumentException ex) {
+				// let's use the default
+			}
+		}
+		return Deprecation.Level.WARNING;
+	}
+
+	private Hint parseHint(JsonParser parser) throws IOException {
+		expect(parser.currentToken(), JsonToken.START_OBJECT);
+		String id = null;
+		List<ValueHint> valueHints = new ArrayList<>();
+		List<ValueProvider> valueProviders = new ArrayList<>();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String name = parser.getCurrentName();
+			JsonToken token = parser.nextToken();
+			if (name.equals("name")) {
+				id = readString(parser);
+			}
+			else if (token == JsonToken.START_ARRAY && name.equals("values")) {
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					valueHints.add(parseValueHint(parser));
+				}
+			}
+			else if (token == JsonToken.START_ARRAY && name.equals("providers")) {
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					valueProviders.add(parseValueProvider(parser));
+				}
+			}
+			else {
+				parser.skipChildren();
+			}
+		}
+		return new Hint(required(id, "hint"), valueHints, valueProviders);
+	}
+
+	private ValueHint parseValueHint(JsonParser parser) throws IOException {
+		expect(parser.currentToken(), JsonToken.START_OBJECT);
+		ValueHint valueHint = new ValueHint();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String name = parser.getCurrentName();
+			parser.nextToken();
+			switch (name) {
+				case "value" -> valueHint.setValue(readValue(parser));
+				case "description" -> {
+					String description = readString(parser);
+					valueHint.setDescription(description);
+					valueHint.setShortDescription(SentenceExtractor.getFirstSentence(description));
+				}
+				default -> parser.skipChildren();
+			}
+		}
+		return valueHint;
+	}
+
+	private ValueProvider parseValueProvider(JsonParser parser) throws IOException {
+		expect(parser.currentToken(), JsonToken.START_OBJECT);
+		ValueProvider valueProvider = new ValueProvider();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String name = parser.getCurrentName();
+			JsonToken token = parser.nextToken();
+			if (name.equals("name")) {
+				valueProvider.setName(readString(parser));
+			}
+			else if (token == JsonToken.START_OBJECT && name.equals("parameters")) {
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+					String parameter = parser.getCurrentName();
+					parser.nextToken();
+					valueProvider.getParameters().put(parameter, readValue(parser));
+				}
+			}
+			else {
+				parser.skipChildren();
+			}
+		}
+		required(valueProvider.getName(), "provider");
+		return valueProvider;
+	}
+
+	private String readString(JsonParser parser) throws IOException {
+		JsonToken token = parser.currentToken();
+		if (token.isScalarValue() && token != JsonToken.VALUE_NULL) {
+			return parser.getText();
+		}
+		parser.skipChildren();
+		return null;
+	}
+
+	private boolean readBoolean(JsonParser parser) throws IOException {
+		JsonToken token = parser.currentToken();
+		if (token == JsonToken.VALUE_STRING) {
+			return "true".equalsIgnoreCase(parser.getText());
+		}
+		parser.skipChildren();
+		return token == JsonToken.VALUE_TRUE;
+	}
+
+	private Object readValue(JsonParser parser) throws IOException {
+		return switch (parser.currentToken()) {
+			case START_ARRAY -> {
+				List<Object> values = new ArrayList<>();
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					values.add(readValue(parser));
+				}
+				yield values.toArray();
+			}
+			case START_OBJECT -> {
+				Map<String, Object> values = new LinkedHashMap<>();
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+					String name = parser.getCurrentName();
+					parser.nextToken();
+					values.put(name, readValue(parser));
+				}
+				yield values;
+			}
+			case VALUE_NUMBER_INT -> switch (parser.getNumberType()) {
+				case INT -> parser.getIntValue();
+				case LONG -> parser.getLongValue();
+				default -> parser.getDoubleValue();
+			};
+			case VALUE_NUMBER_FLOAT -> parser.getDoubleValue();
+			case VALUE_TRUE -> Boolean.TRUE;
+			case VALUE_FALSE -> Boolean.FALSE;
+			case VALUE_NULL -> null;
+			default -> parser.getText();
+		};
+	}
+
+	private static void expect(JsonToken actual, JsonToken expected) {
+		if (actual != expected) {
+			throw new IllegalStateException("Invalid metadata, expected " + expected + " but got " + actual);
+		}
+	}
+
+	private static String required(String name, String element) {
+		if (name == null) {
+			throw new IllegalStateException("Invalid metadata, " + element + " with no name");
+		}
+		return name;
+	}
+
+	/**
+	 * A property with the type of its source, used to find the source once all groups
+	 * have been read.
+	 */
+	private record Item(ConfigurationMetadataProperty property, String sourceType) {
+
+	}
+
+	private record Hint(String id, List<ValueHint> valueHints, List<ValueProvider> valueProviders) {
+
+		boolean isMapKeyHints() {
+			return this.id.endsWith(KEY_SUFFIX);
+		}
+
+		String resolveId() {
+			if (isMapKeyHints()) {
+				return this.id.substring(0, this.id.length() - KEY_SUFFIX.length());
+			}
+			if (this.id.endsWith(VALUE_SUFFIX)) {
+				return this.id.substring(0, this.id.length() - VALUE_SUFFIX.length());
+			}
+			return this.id;
+		}
+
+	}
+
+	/**
+	 * The raw content of a metadata file. Groups, properties and hints can be declared in
+	 * any order in the document so properties are attached to their source and hints are
+	 * applied once the whole document has been read.
+	 */
+	private static class RawMetadata {
+
+		private final List<ConfigurationMetadataSource> sources = new ArrayList<>();
+
+		private final List<Item> items = new ArrayList<>();
+
+		private final List<Hint> hints = new ArrayList<>();
+
+		SimpleConfigurationMetadataRepository createRepository() {
+			SimpleConfigurationMetadataRepository repository = new SimpleConfigurationMetadataRepository();
+			repository.add(this.sources);
+			Map<String, List<ConfigurationMetadataSource>> sourcesByType = indexSourcesByType(repository);
+			for (Item item : this.items) {
+				ConfigurationMetadataSource source = getSource(sourcesByType, item);
+				resolveName(item.property(), source);
+				repository.add(item.property(), source);
+			}
+			Map<String, ConfigurationMetadataProperty> allProperties = repository.getAllProperties();
+			for (Hint hint : this.hints) {
+				ConfigurationMetadataProperty property = allProperties.get(hint.id());
+				if (property != null) {
+					addValueHints(property.getHints(), hint);
+				}
+				else {
+					property = allProperties.get(hint.resolveId());
+					if (property != null && hint.isMapKeyHints()) {
+						property.getHints().getKeyHints().addAll(hint.valueHints());
+						property.getHints().getKeyProviders().addAll(hint.valueProviders());
+					}
+					else if (property != null) {
+						addValueHints(property.getHints(), hint);
+					}
+				}
+			}
+			return repository;
+		}
+
+		private Map<String, List<ConfigurationMetadataSource>> indexSourcesByType(
+				ConfigurationMetadataRepository repository) {
+			Map<String, List<ConfigurationMetadataSource>> sourcesByType = new HashMap<>();
+			for (ConfigurationMetadataGroup group : repository.getAllGroups().values()) {
+				for (ConfigurationMetadataSource source : group.getSources().values()) {
+					sourcesByType.computeIfAbsent(source.getType(), (type) -> new ArrayList<>()).add(source);
+				}
+			}
+			return sourcesByType;
+		}
+
+		private ConfigurationMetadataSource getSource(Map<String, List<ConfigurationMetadataSource>> sourcesByType,
+				Item item) {
+			if (item.sourceType() == null) {
+				return null;
+			}
+			ConfigurationMetadataSource candidate = null;
+			for (ConfigurationMetadataSource source : sourcesByType.getOrDefault(item.sourceType(), List.of())) {
+				if (item.property().getId().startsWith(source.getGroupId())
+						&& (candidate == null || source.getGroupId().length() > candidate.getGroupId().length())) {
+					candidate = source;
+				}
+			}
+			return candidate;
+		}
+
+		private void resolveName(ConfigurationMetadataProperty property, ConfigurationMetadataSource source) {
+			if (source != null && !source.getGroupId().isEmpty()) {
+				String prefix = source.getGroupId() + ".";
+				if (property.getId().startsWith(prefix)) {
+					property.setName(property.getId().substring(prefix.length()));
+				}
+			}
+		}
+
+		private void addValueHints(Hints hints, Hint hint) {
+			hints.getValueHints().addAll(hint.valueHints());
+			hints.getValueProviders().addAll(hint.valueProviders());
+		}
+
+	}
+
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoll.boot.config.loader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * The central directory of a zip archive held in a {@link ByteBuffer}, typically a region
+ * of a memory-mapped file. Stored entries are exposed as views of the buffer so that
+ * nested archives can be read in place, without being copied.
+ * <p>
+ * Zip64 archives are not supported.
+ *
+ * @author Stephane Nicoll
+ */
+final class ZipCentralDirectory {
+
+	private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+
+	private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+
+	private static final int CENTRAL_DIRECTORY_SIGNATURE = 0x02014b50;
+
+	private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+
+	private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+	private static final int LOCAL_HEADER_SIZE = 30;
+
+	private static final int MAXIMUM_COMMENT_SIZE = 0xFFFF;
+
+	private final ByteBuffer data;
+
+	private final List<Entry> entries;
+
+	private ZipCentralDirectory(ByteBuffer data, List<Entry> entries) {
+		this.data = data;
+		this.entries = entries;
+	}
+
+	/**
+	 * Read the central directory of the archive held in the specified buffer.
+	 * @param data the content of the archive
+	 * @return the central directory
+	 * @throws IOException if the content is not a valid zip archive
+	 */
+	static ZipCentralDirectory read(ByteBuffer data) throws IOException {
+		ByteBuffer buffer = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		int end = findEndOfCentralDirectory(buffer);
+		int count = buffer.getShort(end + 10) & 0xFFFF;
+		long offset = buffer.getInt(end + 16) & 0xFFFFFFFFL;
+		if (count == 0xFFFF || offset == 0xFFFFFFFFL) {
+			throw new ZipException("Zip64 archives are not supported");
+		}
+		List<Entry> entries = new ArrayList<>(count);
+		int position = (int) offset;
+		for (int i = 0; i < count; i++) {
+			if (position + CENTRAL_DIRECTORY_HEADER_SIZE > buffer.limit()
+					|| buffer.getInt(position) != CENTRAL_DIRECTORY_SIGNATURE) {
+				throw new ZipException("Invalid central directory header at " + position);
+			}
+			int method = buffer.getShort(position + 10) & 0xFFFF;
+			long compressedSize = buffer.getInt(position + 20) & 0xFFFFFFFFL;
+			long size = buffer.getInt(position + 24) & 0xFFFFFFFFL;
+			int nameLength = buffer.getShort(position + 28) & 0xFFFF;
+			int extraLength = buffer.getShort(position + 30) & 0xFFFF;
+			int commentLength = buffer.getShort(position + 32) & 0xFFFF;
+			long localHeaderOffset = buffer.getInt(position + 42) & 0xFFFFFFFFL;
+			byte[] name = new byte[nameLength];
+			buffer.get(position + CENTRAL_DIRECTORY_HEADER_SIZE, name);
+			entries.add(new Entry(new String(name, StandardCharsets.UTF_8), method, compressedSize, size,
+					localHeaderOffset));
+			position += CENTRAL_DIRECTORY_HEADER_SIZE + nameLength + extraLength + commentLength;
+		}
+		return new ZipCentralDirectory(buffer, Collections.unmodifiableList(entries));
+	}
+
+	private static int findEndOfCentralDirectory(ByteBuffer buffer) throws ZipException {
+		int lowest = Math.max(0, buffer.limit() - END_OF_CENTRAL_DIRECTORY_SIZE - MAXIMUM_COMMENT_SIZE);
+		for (int position = buffer.limit() - END_OF_CENTRAL_DIRECTORY_SIZE; position >= lowest; position--) {
+			if (buffer.getInt(position) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+				return position;
+			}
+		}
+		throw new ZipException("No end of central directory record found");
+	}
+
+	List<Entry> getEntries() {
+		return this.entries;
+	}
+
+	Entry getEntry(String name) {
+		for (Entry entry : this.entries) {
+			if (entry.name().equals(name)) {
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Return the uncompressed content of the specified entry. A stored entry is returned
+	 * as a view of the underlying buffer, a deflated entry is inflated in memory.
+	 * @param entry the entry
+	 * @return the content of the entry
+	 * @throws IOException if the entry cannot be read
+	 */
+	ByteBuffer getContent(Entry entry) throws IOException {
+		ByteBuffer raw = getRawContent(entry);
+		return switch (entry.method()) {
+			case ZipEntry.STORED -> raw;
+			case ZipEntry.DEFLATED -> inflate(raw, entry);
+			default -> throw new ZipException("Unsupported compression method " + entry.method() + " for " + entry);
+		};
+	}
+
+	InputStream getInputStream(Entry entry) throws IOException {
+		return new ByteBufferInputStream(getContent(entry));
+	}
+
+	private ByteBuffer getRawContent(Entry entry) throws ZipException {
+		int position = (int) entry.localHeaderOffset();
+		if (position + LOCAL_HEADER_SIZE > this.data.limit() || this.data.getInt(position) != LOCAL_HEADER_SIGNATURE) {
+			throw new ZipException("Invalid local header for " + entry);
+		}
+		int nameLength = this.data.getShort(position + 26) & 0xFFFF;
+		int extraLength = this.data.getShort(position + 28) & 0xFFFF;
+		long start = position + LOCAL_HEADER_SIZE + nameLength + extraLength;
+		if (start + entry.compressedSize() > this.data.limit()) {
+			throw new ZipException("Truncated content for " + entry);
+		}
+		return this.data.slice((int) start, (int) entry.compressedSize());
+	}
+
+	private ByteBuffer inflate(ByteBuffer raw, Entry entry) throws ZipException {
+		if (entry.size() > Integer.MAX_VALUE) {
+			throw new ZipException("Entry too large " + entry);
+		}
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setInput(raw);
+			byte[] content = new byte[(int) entry.size()];
+			int length = 0;
+			while (length < content.length && !inflater.finished()) {
+				int read = inflater.inflate(content, length, content.length - length);
+				if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					throw new ZipException("Truncated compressed content for " + entry);
+				}
+				length += read;
+			}
+			return ByteBuffer.wrap(content, 0, length);
+		}
+		catch (DataFormatException ex) {
+			throw new ZipException("Invalid compressed content for " + entry + ": " + ex.getMessage());
+		}
+		finally {
+			inflater.end();
+		}
+	}
+
+	/**
+	 * An {@link InputStream} that reads the remaining content of a {@link ByteBuffer}.
+	 */
+	private static class ByteBufferInputStream extends InputStream {
+
+		private final ByteBuffer buffer;
+
+		ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return (this.buffer.hasRemaining()) ? this.buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (len == 0) {
+				return 0;
+			}
+			if (!this.buffer.hasRemaining()) {
+				return -1;
+			}
+			int read = Math.min(len, this.buffer.remaining());
+			this.buffer.get(b, off, read);
+			return read;
+		}
+
+		@Override
+		public int available() {
+			return this.buffer.remaining();
+		}
+
+	}
+
+	/**
+	 * An entry of the central directory.
+	 *
+	 * @param name the name of the entry
+	 * @param method the compression method
+	 * @param compressedSize the size of the entry in the archive
+	 * @param size the uncompressed size of the entry
+	 * @param localHeaderOffset the offset of the local header of the entry
+	 */
+	record Entry(String name, int method, long compressedSize, long size, long localHeaderOffset) {
+
+		@Override
+		public String toString() {
+			return this.name;
+		}
+
+	}
+
+}
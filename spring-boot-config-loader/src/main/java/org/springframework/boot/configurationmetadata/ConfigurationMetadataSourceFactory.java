@@ -0,0 +1,52 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.boot.configurationmetadata;
+
+/**
+ * Creates {@link ConfigurationMetadataSource} instances outside of the JSON builder. This
+ * class is located in the package of the metadata API as the setters of a source are
+ * package private.
+ *
+ * @author Stephane Nicoll
+ */
+public final class ConfigurationMetadataSourceFactory {
+
+	private ConfigurationMetadataSourceFactory() {
+	}
+
+	/**
+	 * Create a source with no properties.
+	 * @param groupId the id of the group
+	 * @param type the type of the source, or {@code null}
+	 * @param description the description of the source, or {@code null}
+	 * @param shortDescription the short description of the source, or {@code null}
+	 * @param sourceType the type that declares the source, or {@code null}
+	 * @param sourceMethod the method that declares the source, or {@code null}
+	 * @return a new source
+	 */
+	public static ConfigurationMetadataSource createSource(String groupId, String type, String description,
+			String shortDescription, String sourceType, String sourceMethod) {
+		ConfigurationMetadataSource source = new ConfigurationMetadataSource();
+		source.setGroupId(groupId);
+		source.setType(type);
+		source.setDescription(description);
+		source.setShortDescription(shortDescription);
+		source.setSourceType(sourceType);
+		source.setSourceMethod(sourceMethod);
+		return source;
+	}
+
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoll.boot.config.loader;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link ConfigurationMetadataLoader}.
+ *
+ * @author Stephane Nicoll
+ */
+@ExtendWith(OutputCaptureExtension.class)
+public class ConfigurationMetadataLoaderTests {
+
+	@TempDir
+	Path repository;
+
+	@TempDir
+	Path localRepository;
+
+	@Test
+	public void loadRepositoryFromFileRepository() throws Exception {
+		addArtifact("spring-boot", "1.0.0", "test.core");
+		addArtifact("spring-boot-actuator", "1.0.0", "test.actuator");
+		addArtifact("spring-boot-autoconfigure", "1.0.0", "test.autoconfigure");
+		ConfigurationMetadataLoader loader = new ConfigurationMetadataLoader(
+				AetherDependencyResolver.withFileRepository(this.repository.toFile(), this.localRepository.toFile()));
+		ConfigurationMetadataRepository repository = loader.loadRepository("1.0.0");
+		assertThat(repository.getAllProperties()).containsOnlyKeys("test.core.name", "test.actuator.name",
+				"test.autoconfigure.name");
+	}
+
+	@Test
+	public void loadRepositoriesWithSeveralVersions() throws Exception {
+		for (String version : List.of("1.0.0", "2.0.0")) {
+			addArtifact("spring-boot", version, "test.core");
+			addArtifact("spring-boot-actuator", version, "test.actuator");
+			addArtifact("spring-boot-autoconfigure", version, "test.autoconfigure");
+		}
+		addArtifact("spring-boot-devtools", "2.0.0", "test.devtools");
+		ConfigurationMetadataLoader loader = new ConfigurationMetadataLoader(
+				AetherDependencyResolver.withFileRepository(this.repository.toFile(), this.localRepository.toFile()));
+		Map<String, ConfigurationMetadataRepository> repositories = loader.loadRepositories(List.of("2.0.0", "1.0.0"));
+		assertThat(repositories).containsOnlyKeys("2.0.0", "1.0.0");
+		assertThat(repositories.get("1.0.0").getAllProperties()).doesNotContainKey("test.devtools.name");
+		assertThat(repositories.get("2.0.0").getAllProperties()).containsKey("test.devtools.name");
+	}
+
+	@Test
+	public void loadRepositoryWithCustomArtifacts() throws Exception {
+		addArtifact("org.springframework.boot", "spring-boot", "1.0.0", "test.core");
+		addArtifact("com.example", "example-starter", "1.0.0", "example");
+		addArtifact("com.example.cloud", "cloud-starter", "4.2.0", "cloud");
+		List<MetadataArtifact> artifacts = List.of(
+				MetadataArtifact.mandatory("org.springframework.boot:spring-boot:{version}"),
+				MetadataArtifact.mandatory("com.example:example-starter:{version}"),
+				MetadataArtifact.mandatory("com.example.cloud:cloud-starter:4.2.0"),
+				MetadataArtifact.optional("com.example:missing-starter:{version}"));
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			ConfigurationMetadataLoader loader = new ConfigurationMetadataLoader(AetherDependencyResolver
+				.withFileRepository(this.repository.toFile(), this.localRepository.toFile()), executor, artifacts);
+			ConfigurationMetadataRepository repository = loader.loadRepository("1.0.0");
+			assertThat(repository.getAllProperties()).containsOnlyKeys("test.core.name", "example.name", "cloud.name");
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void loadRepositoryWithSharedRepositoryCacheAndDifferentArtifacts() throws Exception {
+		addArtifact("spring-boot", "1.0.0", "test.core");
+		addArtifact("com.example", "example-starter", "1.0.0", "example");
+		AetherDependencyResolver resolver = AetherDependencyResolver.withFileRepository(this.repository.toFile(),
+				this.localRepository.toFile());
+		MetadataRepositoryCache cache = new MetadataRepositoryCache();
+		ConfigurationMetadataLoader coreLoader = new ConfigurationMetadataLoader(resolver, null,
+				List.of(MetadataArtifact.mandatory("org.springframework.boot:spring-boot:{version}")));
+		coreLoader.setRepositoryCache(cache);
+		ConfigurationMetadataLoader exampleLoader = new ConfigurationMetadataLoader(resolver, null,
+				List.of(MetadataArtifact.mandatory("com.example:example-starter:{version}")));
+		exampleLoader.setRepositoryCache(cache);
+		assertThat(coreLoader.loadRepository("1.0.0").getAllProperties()).containsOnlyKeys("test.core.name");
+		assertThat(exampleLoader.loadRepository("1.0.0").getAllProperties()).containsOnlyKeys("example.name");
+		assertThat(coreLoader.loadRepository("1.0.0")).isSameAs(coreLoader.loadRepository("1.0.0"));
+	}
+
+	@Test
+	public void loadRepositoryConcurrentlyIncludesRepositoriesInArtifactOrder() throws Exception {
+		for (String artifactId : List.of("first", "second", "third")) {
+			addArtifactWithMetadata("com.example", artifactId, "1.0.0", """
+					{ "properties": [
+						{ "name": "test.shared", "type": "java.lang.String", "description": "%s" },
+						{ "name": "test.%s", "type": "java.lang.String" } ] }
+					""".formatted(artifactId, artifactId));
+		}
+		List<MetadataArtifact> artifacts = List.of(MetadataArtifact.mandatory("com.example:first:{version}"),
+				MetadataArtifact.mandatory("com.example:second:{version}"),
+				MetadataArtifact.mandatory("com.example:third:{version}"));
+		AetherDependencyResolver resolver = AetherDependencyResolver.withFileRepository(this.repository.toFile(),
+				this.localRepository.toFile());
+		ConfigurationMetadataRepository expected = new ConfigurationMetadataLoader(resolver, null, artifacts)
+			.loadRepository("1.0.0");
+		ConfigurationMetadataRepository repository = new ConfigurationMetadataLoader(resolver,
+				new ReverseOrderExecutor(artifacts.size()), artifacts)
+			.loadRepository("1.0.0");
+		assertThat(repository.getAllProperties()).containsOnlyKeys("test.shared", "test.first", "test.second",
+				"test.third");
+		assertThat(repository.getAllProperties().get("test.shared").getDescription()).isEqualTo("first")
+			.isEqualTo(expected.getAllProperties().get("test.shared").getDescription());
+	}
+
+	@Test
+	public void loadRepositoryConcurrentlyPropagatesIOException() throws Exception {
+		addArtifact("spring-boot", "1.0.0", "test.core");
+		Files.writeString(getArtifactFile("org.springframework.boot", "spring-boot-actuator", "1.0.0"), "not a jar");
+		addArtifact("spring-boot-autoconfigure", "1.0.0", "test.autoconfigure");
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			ConfigurationMetadataLoader loader = new ConfigurationMetadataLoader(AetherDependencyResolver
+				.withFileRepository(this.repository.toFile(), this.localRepository.toFile()), executor);
+			assertThatIOException().isThrownBy(() -> loader.loadRepository("1.0.0"));
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void loadRepositoryConcurrentlyWithOptionalArtifacts() throws Exception {
+		addArtifact("spring-boot", "1.0.0", "test.core");
+		addArtifact("spring-boot-actuator", "1.0.0", "test.actuator");
+		addArtifact("spring-boot-autoconfigure", "1.0.0", "test.autoconfigure");
+		addArtifact("spring-boot-devtools", "1.0.0", "test.devtools");
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			ConfigurationMetadataLoader loader = new ConfigurationMetadataLoader(AetherDependencyResolver
+				.withFileRepository(this.repository.toFile(), this.localRepository.toFile()), executor);
+			assertThat(loader.loadRepository("1.0.0").getAllProperties()).containsOnlyKeys("test.core.name",
+					"test.actuator.name", "test.autoconfigure.name", "test.devtools.name");
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void loadRepositoryWithMissingMandatoryArtifact() throws Exception {
+		addArtifact("spring-boot", "1.0.0", "test.core");
+		ConfigurationMetadataLoader loader = new ConfigurationMetadataLoader(
+				AetherDependencyResolver.withFileRepository(this.repository.toFile(), this.localRepository.toFile()));
+		assertThatIllegalStateException().isThrownBy(() -> loader.loadRepository("1.0.0"))
+			.withMessageContaining("spring-boot-actuator:1.0.0");
+	}
+
+	@Test
+	public void getChecksumChangesWithArtifactContent() throws Exception {
+		for (String version : List.of("1.0.0", "2.0.0")) {
+			addArtifact("spring-boot", version, "test.core");
+			addArtifact("spring-boot-actuator", version, "test.actuator");
+			addArtifact("spring-boot-autoconfigure", version, "test.autoconfigure");
+		}
+		ConfigurationMetadataLoader loader = new ConfigurationMetadataLoader(
+				AetherDependencyResolver.withFileRepository(this.repository.toFile(), this.localRepository.toFile()));
+		String checksum = loader.getChecksum("1.0.0");
+		assertThat(checksum).hasSize(40).isEqualTo(loader.getChecksum("1.0.0"));
+		assertThat(loader.getChecksum("2.0.0")).isNotEqualTo(checksum);
+	}
+
+	@Test
+	public void loadChangedRepositoriesSkipsArtifactsWithSameMetadata() throws Exception {
+		for (String version : List.of("1.0.0", "1.0.1")) {
+			addArtifact("spring-boot", version, "test.core");
+			addArtifact("spring-boot-autoconfigure", version, "test.autoconfigure");
+		}
+		addArtifact("spring-boot-actuator", "1.0.0", "test.actuator");
+		addArtifact("spring-boot-actuator", "1.0.1", "test.management");
+		addArtifact("spring-boot-devtools", "1.0.1", "test.devtools");
+		ConfigurationMetadataLoader loader = new ConfigurationMetadataLoader(
+				AetherDependencyResolver.withFileRepository(this.repository.toFile(), this.localRepository.toFile()));
+		Map<String, ConfigurationMetadataRepository> repositories = loader.loadChangedRepositories("1.0.0", "1.0.1");
+		assertThat(repositories).containsOnlyKeys("1.0.0", "1.0.1");
+		assertThat(repositories.get("1.0.0").getAllProperties()).containsOnlyKeys("test.actuator.name");
+		assertThat(repositories.get("1.0.1").getAllProperties()).containsOnlyKeys("test.management.name",
+				"test.devtools.name");
+	}
+
+	@Test
+	public void loadRepositoryWithSnapshotCacheSkipsArtifactWithoutMetadata(CapturedOutput output,
+			@TempDir Path snapshots) throws Exception {
+		addArtifact("spring-boot", "1.0.0", "test.core");
+		addArtifact("spring-boot-actuator", "1.0.0", "test.actuator");
+		addArtifact("spring-boot-autoconfigure", "1.0.0", "test.autoconfigure");
+		addArtifactWithoutMetadata("spring-boot-devtools", "1.0.0");
+		ConfigurationMetadataLoader loader = new ConfigurationMetadataLoader(
+				AetherDependencyResolver.withFileRepository(this.repository.toFile(), this.localRepository.toFile()));
+		loader.setSnapshotCache(new MetadataSnapshotCache(snapshots));
+		loader.loadRepository("1.0.0");
+		ConfigurationMetadataRepository repository = loader.loadRepository("1.0.0");
+		assertThat(repository.getAllProperties()).containsOnlyKeys("test.core.name", "test.actuator.name",
+				"test.autoconfigure.name");
+		assertThat(output).contains("Adding cached meta-data from 'org.springframework.boot:spring-boot:1.0.0'")
+			.doesNotContain("Adding cached meta-data from 'org.springframework.boot:spring-boot-devtools:1.0.0'");
+	}
+
+	@Test
+	public void loadRepositoryWithSnapshotCacheRestoresEmptyMetadata(CapturedOutput output, @TempDir Path snapshots)
+			throws Exception {
+		addArtifact("spring-boot", "1.0.0", "test.core");
+		addArtifact("spring-boot-actuator", "1.0.0", "test.actuator");
+		addArtifact("spring-boot-autoconfigure", "1.0.0", "test.autoconfigure");
+		addArtifactWithMetadata("org.springframework.boot", "spring-boot-devtools", "1.0.0", "{}");
+		ConfigurationMetadataLoader loader = new ConfigurationMetadataLoader(
+				AetherDependencyResolver.withFileRepository(this.repository.toFile(), this.localRepository.toFile()));
+		loader.setSnapshotCache(new MetadataSnapshotCache(snapshots));
+		loader.loadRepository("1.0.0");
+		loader.loadRepository("1.0.0");
+		assertThat(output)
+			.contains("Adding cached meta-data from 'org.springframework.boot:spring-boot-devtools:1.0.0'")
+			.doesNotContain("No meta-data found for 'org.springframework.boot:spring-boot-devtools:1.0.0'");
+	}
+
+	private void addArtifact(String artifactId, String version, String prefix) throws IOException {
+		addArtifact("org.springframework.boot", artifactId, version, prefix);
+	}
+
+	private void addArtifactWithoutMetadata(String artifactId, String version) throws IOException {
+		Path file = getArtifactFile("org.springframework.boot", artifactId, version);
+		try (OutputStream out = Files.newOutputStream(file); JarOutputStream jar = new JarOutputStream(out)) {
+			jar.putNextEntry(new JarEntry("META-INF/test.txt"));
+			jar.closeEntry();
+		}
+	}
+
+	private void addArtifact(String groupId, String artifactId, String version, String prefix) throws IOException {
+		addArtifactWithMetadata(groupId, artifactId, version, """
+				{ "properties": [ { "name": "%s.name", "type": "java.lang.String" } ] }
+				""".formatted(prefix));
+	}
+
+	private void addArtifactWithMetadata(String groupId, String artifactId, String version, String json)
+			throws IOException {
+		Path file = getArtifactFile(groupId, artifactId, version);
+		try (OutputStream out = Files.newOutputStream(file); JarOutputStream jar = new JarOutputStream(out)) {
+			jar.putNextEntry(new JarEntry(JarMetadataReader.METADATA_LOCATION));
+			jar.write(json.getBytes(StandardCharsets.UTF_8));
+			jar.closeEntry();
+		}
+	}
+
+	private Path getArtifactFile(String groupId, String artifactId, String version) throws IOException {
+		Path directory = this.repository.resolve(groupId.replace('.', '/')).resolve(artifactId).resolve(version);
+		Files.createDirectories(directory);
+		return directory.resolve(artifactId + "-" + version + ".jar");
+	}
+
+	/**
+	 * An {@link Executor} that runs each task in its own thread and completes them in the
+	 * reverse order of their submission.
+	 */
+	private static final class ReverseOrderExecutor implements Executor {
+
+		private final List<CountDownLatch> completions = new ArrayList<>();
+
+		private final AtomicInteger submitted = new AtomicInteger();
+
+		ReverseOrderExecutor(int tasks) {
+			for (int i = 0; i < tasks; i++) {
+				this.completions.add(new CountDownLatch(1));
+			}
+		}
+
+		@Override
+		public void execute(Runnable task) {
+			int index = this.submitted.getAndIncrement();
+			new Thread(() -> {
+				try {
+					if (index + 1 < this.completions.size()) {
+						this.completions.get(index + 1).await(5, TimeUnit.SECONDS);
+					}
+					task.run();
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				finally {
+					this.completions.get(index).countDown();
+				}
+			}).start();
+		}
+
+	}
+
+}
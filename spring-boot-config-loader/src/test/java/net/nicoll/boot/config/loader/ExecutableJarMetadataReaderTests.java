@@ -0,0 +1,132 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoll.boot.config.loader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ExecutableJarMetadataReader}.
+ *
+ * @author Stephane Nicoll
+ */
+public class ExecutableJarMetadataReaderTests {
+
+	@TempDir
+	Path directory;
+
+	private final ExecutableJarMetadataReader reader = new ExecutableJarMetadataReader();
+
+	@Test
+	public void readWithApplicationAndLibraries() throws IOException {
+		Path jar = createExecutableJar();
+		ConfigurationMetadataRepository repository = this.reader.read(jar.toFile(), null);
+		assertThat(repository.getAllProperties()).containsOnlyKeys("app.name", "first.name", "compressed.name");
+		assertThat(repository.getAllGroups().keySet()).containsExactly("_ROOT_GROUP_");
+	}
+
+	@Test
+	public void readWithExecutor() throws IOException {
+		Path jar = createExecutableJar();
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			ConfigurationMetadataRepository repository = this.reader.read(jar.toFile(), executor);
+			assertThat(repository.getAllProperties()).containsOnlyKeys("app.name", "first.name", "compressed.name");
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void readWithStreamingParser() throws IOException {
+		Path jar = createExecutableJar();
+		ConfigurationMetadataRepository repository = new ExecutableJarMetadataReader(
+				new StreamingConfigurationMetadataParser())
+			.read(jar.toFile(), null);
+		assertThat(repository.getAllProperties()).containsOnlyKeys("app.name", "first.name", "compressed.name");
+	}
+
+	private Path createExecutableJar() throws IOException {
+		Path jar = this.directory.resolve("app.jar");
+		try (OutputStream out = Files.newOutputStream(jar); JarOutputStream executableJar = new JarOutputStream(out)) {
+			executableJar.putNextEntry(new JarEntry("BOOT-INF/classes/" + JarMetadataReader.METADATA_LOCATION));
+			executableJar.write(metadata("app"));
+			executableJar.closeEntry();
+			addNestedJar(executableJar, "BOOT-INF/lib/first.jar", createJar(metadata("first")), ZipEntry.STORED);
+			addNestedJar(executableJar, "BOOT-INF/lib/none.jar", createJar(null), ZipEntry.STORED);
+			addNestedJar(executableJar, "BOOT-INF/lib/compressed.jar", createJar(metadata("compressed")),
+					ZipEntry.DEFLATED);
+			addNestedJar(executableJar, "BOOT-INF/lib/notes.txt", new byte[] { 1, 2, 3 }, ZipEntry.STORED);
+		}
+		return jar;
+	}
+
+	private void addNestedJar(JarOutputStream executableJar, String name, byte[] content, int method)
+			throws IOException {
+		JarEntry entry = new JarEntry(name);
+		entry.setMethod(method);
+		if (method == ZipEntry.STORED) {
+			CRC32 crc = new CRC32();
+			crc.update(content);
+			entry.setSize(content.length);
+			entry.setCompressedSize(content.length);
+			entry.setCrc(crc.getValue());
+		}
+		executableJar.putNextEntry(entry);
+		executableJar.write(content);
+		executableJar.closeEntry();
+	}
+
+	private byte[] createJar(byte[] metadata) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (JarOutputStream jar = new JarOutputStream(out)) {
+			jar.putNextEntry(new JarEntry("com/example/Test.class"));
+			jar.write(new byte[] { 4, 5, 6 });
+			jar.closeEntry();
+			if (metadata != null) {
+				jar.putNextEntry(new JarEntry(JarMetadataReader.METADATA_LOCATION));
+				jar.write(metadata);
+				jar.closeEntry();
+			}
+		}
+		return out.toByteArray();
+	}
+
+	private byte[] metadata(String prefix) {
+		return """
+				{ "properties": [ { "name": "%s.name", "type": "java.lang.String" } ] }
+				""".formatted(prefix).getBytes(StandardCharsets.UTF_8);
+	}
+
+}
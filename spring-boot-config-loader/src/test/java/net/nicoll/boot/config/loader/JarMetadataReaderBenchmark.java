@@ -0,0 +1,118 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoll.boot.config.loader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Compare the cost of locating and reading the metadata entry of a jar using a
+ * {@link URLClassLoader} and using {@link ZipFile} as {@link JarMetadataReader} does.
+ * Only the access to the entry is measured as parsing the JSON content is identical for
+ * both.
+ * <p>
+ * Arguments are either paths to jar files or a Spring Boot version whose artifacts are
+ * resolved first.
+ *
+ * @author Stephane Nicoll
+ */
+public class JarMetadataReaderBenchmark {
+
+	private static final int WARMUP_ITERATIONS = 200;
+
+	private static final int ITERATIONS = 1000;
+
+	private static final List<String> BOOT_ARTIFACTS = List.of("spring-boot", "spring-boot-actuator",
+			"spring-boot-actuator-autoconfigure", "spring-boot-autoconfigure", "spring-boot-devtools",
+			"spring-boot-test-autoconfigure");
+
+	public static void main(String[] args) throws Exception {
+		List<File> jars = resolveJars((args.length > 0) ? args : new String[] { "2.7.12" });
+		for (File jar : jars) {
+			long classLoader = measure(jar, JarMetadataReaderBenchmark::readWithClassLoader);
+			long zipFile = measure(jar, JarMetadataReaderBenchmark::readWithZipFile);
+			System.out.printf("%-50s class loader: %6d us, zip file: %6d us (%.1fx)%n", jar.getName(),
+					classLoader / 1000, zipFile / 1000, (double) classLoader / zipFile);
+		}
+	}
+
+	private static List<File> resolveJars(String[] args) throws Exception {
+		List<File> jars = new ArrayList<>();
+		AetherDependencyResolver resolver = null;
+		for (String arg : args) {
+			File file = new File(arg);
+			if (file.isFile()) {
+				jars.add(file);
+				continue;
+			}
+			if (resolver == null) {
+				resolver = AetherDependencyResolver.withAllRepositories();
+			}
+			for (String artifactId : BOOT_ARTIFACTS) {
+				jars.add(resolver.resolveDependency("org.springframework.boot:" + artifactId + ":" + arg)
+					.getArtifact()
+					.getFile());
+			}
+		}
+		return jars;
+	}
+
+	private static long measure(File jar, EntryReader reader) throws IOException {
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			reader.read(jar);
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			reader.read(jar);
+		}
+		return (System.nanoTime() - start) / ITERATIONS;
+	}
+
+	private static int readWithClassLoader(File jar) throws IOException {
+		try (URLClassLoader classLoader = new URLClassLoader(new URL[] { jar.toURI().toURL() }, null)) {
+			InputStream stream = classLoader.getResourceAsStream(JarMetadataReader.METADATA_LOCATION);
+			return (stream != null) ? drain(stream) : 0;
+		}
+	}
+
+	private static int readWithZipFile(File jar) throws IOException {
+		try (ZipFile zipFile = new ZipFile(jar)) {
+			ZipEntry entry = zipFile.getEntry(JarMetadataReader.METADATA_LOCATION);
+			return (entry != null) ? drain(zipFile.getInputStream(entry)) : 0;
+		}
+	}
+
+	private static int drain(InputStream stream) throws IOException {
+		try (stream) {
+			return stream.readAllBytes().length;
+		}
+	}
+
+	@FunctionalInterface
+	private interface EntryReader {
+
+		int read(File jar) throws IOException;
+
+	}
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoll.boot.config.loader;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import net.nicoll.boot.config.loader.MetadataArtifactPrefetcher.PrefetchReport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link MetadataArtifactPrefetcher}.
+ *
+ * @author Stephane Nicoll
+ */
+public class MetadataArtifactPrefetcherTests {
+
+	@TempDir
+	Path repository;
+
+	@TempDir
+	Path localRepository;
+
+	@Test
+	public void prefetchResolvesArtifactsInLocalRepository() throws Exception {
+		long bytes = 0;
+		for (String version : List.of("1.0.0", "2.0.0")) {
+			bytes += addArtifact("spring-boot", version);
+			bytes += addArtifact("spring-boot-actuator", version);
+			bytes += addArtifact("spring-boot-autoconfigure", version);
+		}
+		bytes += addArtifact("spring-boot-devtools", "2.0.0");
+		MetadataArtifactPrefetcher prefetcher = new MetadataArtifactPrefetcher(
+				AetherDependencyResolver.withFileRepository(this.repository.toFile(), this.localRepository.toFile()),
+				2);
+		PrefetchReport report = prefetcher.prefetch(List.of("1.0.0", "2.0.0"));
+		assertThat(report.versions()).isEqualTo(2);
+		assertThat(report.artifacts()).isEqualTo(7);
+		assertThat(report.bytes()).isEqualTo(bytes);
+		assertThat(report.missing()).containsExactlyInAnyOrder(
+				"org.springframework.boot:spring-boot-actuator-autoconfigure:1.0.0",
+				"org.springframework.boot:spring-boot-devtools:1.0.0",
+				"org.springframework.boot:spring-boot-test-autoconfigure:1.0.0",
+				"org.springframework.boot:spring-boot-actuator-autoconfigure:2.0.0",
+				"org.springframework.boot:spring-boot-test-autoconfigure:2.0.0");
+		assertThat(this.localRepository.resolve("org/springframework/boot/spring-boot-devtools/2.0.0")
+			.resolve("spring-boot-devtools-2.0.0.jar")).isRegularFile();
+	}
+
+	@Test
+	public void prefetchWithCustomArtifacts() throws Exception {
+		addArtifact("spring-boot", "1.0.0");
+		MetadataArtifactPrefetcher prefetcher = new MetadataArtifactPrefetcher(
+				AetherDependencyResolver.withFileRepository(this.repository.toFile(), this.localRepository.toFile()),
+				List.of(MetadataArtifact.mandatory("org.springframework.boot:spring-boot:{version}")), 1);
+		PrefetchReport report = prefetcher.prefetch(List.of("1.0.0"));
+		assertThat(report.artifacts()).isEqualTo(1);
+		assertThat(report.missing()).isEmpty();
+	}
+
+	@Test
+	public void reportToString() {
+		PrefetchReport report = new PrefetchReport(2, 4, 3 * 1024 * 1024, List.of("com.example:test:1.0.0"),
+				Duration.ofSeconds(2));
+		assertThat(report.artifactsPerSecond()).isEqualTo(2.0);
+		assertThat(report.megabytesPerSecond()).isEqualTo(1.5);
+		assertThat(report.toString()).contains("Resolved 4 artifacts")
+			.contains("for 2 versions in 2000 ms")
+			.contains("1 missing artifacts:")
+			.contains("com.example:test:1.0.0");
+	}
+
+	private long addArtifact(String artifactId, String version) throws IOException {
+		Path directory = this.repository.resolve("org/springframework/boot").resolve(artifactId).resolve(version);
+		Files.createDirectories(directory);
+		Path file = directory.resolve(artifactId + "-" + version + ".jar");
+		try (OutputStream out = Files.newOutputStream(file); JarOutputStream jar = new JarOutputStream(out)) {
+			jar.putNextEntry(new JarEntry(JarMetadataReader.METADATA_LOCATION));
+			jar.write("{ \"properties\": [] }".getBytes(StandardCharsets.UTF_8));
+			jar.closeEntry();
+		}
+		return Files.size(file);
+	}
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoll.boot.config.loader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+import org.springframework.boot.configurationmetadata.SimpleConfigurationMetadataRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+
+/**
+ * Tests for {@link MetadataRepositoryCache}.
+ *
+ * @author Stephane Nicoll
+ */
+public class MetadataRepositoryCacheTests {
+
+	@Test
+	public void getLoadsRepositoryOnce() throws IOException {
+		MetadataRepositoryCache cache = new MetadataRepositoryCache();
+		AtomicInteger loads = new AtomicInteger();
+		ConfigurationMetadataRepository first = cache.get("1.0", (version) -> createRepository(loads, 2));
+		ConfigurationMetadataRepository second = cache.get("1.0", (version) -> createRepository(loads, 2));
+		assertThat(first).isSameAs(second);
+		assertThat(loads).hasValue(1);
+	}
+
+	@Test
+	public void getWithConcurrentCallersWaitsForSingleLoad() throws Exception {
+		MetadataRepositoryCache cache = new MetadataRepositoryCache();
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch latch = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<ConfigurationMetadataRepository>> futures = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				futures.add(executor.submit(() -> cache.get("1.0", (version) -> {
+					await(latch);
+					return createRepository(loads, 2);
+				})));
+			}
+			latch.countDown();
+			ConfigurationMetadataRepository repository = futures.get(0).get();
+			for (Future<ConfigurationMetadataRepository> future : futures) {
+				assertThat(future.get()).isSameAs(repository);
+			}
+			assertThat(loads).hasValue(1);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void getEvictsLeastRecentlyUsedRepository() throws IOException {
+		MetadataRepositoryCache cache = new MetadataRepositoryCache(5);
+		AtomicInteger loads = new AtomicInteger();
+		ConfigurationMetadataRepository first = cache.get("1.0", (version) -> createRepository(loads, 2));
+		ConfigurationMetadataRepository second = cache.get("2.0", (version) -> createRepository(loads, 2));
+		assertThat(cache.get("1.0", (version) -> createRepository(loads, 2))).isSameAs(first);
+		cache.get("3.0", (version) -> createRepository(loads, 2));
+		assertThat(loads).hasValue(3);
+		assertThat(cache.get("1.0", (version) -> createRepository(loads, 2))).isSameAs(first);
+		assertThat(cache.get("2.0", (version) -> createRepository(loads, 2))).isNotSameAs(second);
+		assertThat(loads).hasValue(4);
+	}
+
+	@Test
+	public void getWithFailureIsNotCached() throws IOException {
+		MetadataRepositoryCache cache = new MetadataRepositoryCache();
+		AtomicInteger loads = new AtomicInteger();
+		assertThatIOException().isThrownBy(() -> cache.get("1.0", (version) -> {
+			throw new IOException("test");
+		})).withMessage("test");
+		cache.get("1.0", (version) -> createRepository(loads, 2));
+		assertThat(loads).hasValue(1);
+	}
+
+	private void await(CountDownLatch latch) throws IOException {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IOException(ex);
+		}
+	}
+
+	private ConfigurationMetadataRepository createRepository(AtomicInteger loads, int size) {
+		loads.incrementAndGet();
+		SimpleConfigurationMetadataRepository repository = new SimpleConfigurationMetadataRepository();
+		for (int i = 0; i < size; i++) {
+			ConfigurationMetadataProperty property = new ConfigurationMetadataProperty();
+			property.setId("test.property" + i);
+			property.setName("property" + i);
+			repository.add(property, null);
+		}
+		return repository;
+	}
+
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoll.boot.config.loader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataGroup;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepositoryJsonBuilder;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataSource;
+import org.springframework.boot.configurationmetadata.Deprecation;
+import org.springframework.boot.configurationmetadata.SimpleConfigurationMetadataRepository;
+import org.springframework.core.io.ClassPathResource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link MetadataSnapshotCache}.
+ *
+ * @author Stephane Nicoll
+ */
+public class MetadataSnapshotCacheTests {
+
+	private static final String COORDINATES = "com.example:sample:1.0.0-SNAPSHOT";
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void getWithNoSnapshot() throws IOException {
+		MetadataSnapshotCache cache = new MetadataSnapshotCache(this.directory);
+		assertThat(cache.get(COORDINATES, "abc")).isNull();
+	}
+
+	@Test
+	public void putAndGetRestoresRepository() throws IOException {
+		MetadataSnapshotCache cache = new MetadataSnapshotCache(this.directory);
+		cache.put(COORDINATES, "abc", load("metadata/sample-metadata.json"));
+		ConfigurationMetadataRepository expected = load("metadata/sample-metadata.json");
+		ConfigurationMetadataRepository actual = cache.get(COORDINATES, "abc").repository();
+		assertThat(actual).isNotNull();
+		assertThat(actual.getAllGroups()).containsOnlyKeys(expected.getAllGroups().keySet());
+		assertThat(actual.getAllProperties()).containsOnlyKeys(expected.getAllProperties().keySet());
+		for (ConfigurationMetadataGroup group : expected.getAllGroups().values()) {
+			assertGroup(actual.getAllGroups().get(group.getId()), group);
+		}
+		for (ConfigurationMetadataProperty property : expected.getAllProperties().values()) {
+			assertProperty(actual.getAllProperties().get(property.getId()), property);
+		}
+	}
+
+	@Test
+	public void putAndGetWithNoMetadata() throws IOException {
+		MetadataSnapshotCache cache = new MetadataSnapshotCache(this.directory);
+		cache.put(COORDINATES, "abc", null);
+		MetadataSnapshotCache.Snapshot snapshot = cache.get(COORDINATES, "abc");
+		assertThat(snapshot).isNotNull();
+		assertThat(snapshot.repository()).isNull();
+	}
+
+	@Test
+	public void putAndGetWithEmptyMetadata() throws IOException {
+		MetadataSnapshotCache cache = new MetadataSnapshotCache(this.directory);
+		cache.put(COORDINATES, "abc", new SimpleConfigurationMetadataRepository());
+		ConfigurationMetadataRepository repository = cache.get(COORDINATES, "abc").repository();
+		assertThat(repository).isNotNull();
+		assertThat(repository.getAllGroups()).isEmpty();
+		assertThat(repository.getAllProperties()).isEmpty();
+	}
+
+	@Test
+	public void getWithDifferentChecksum() throws IOException {
+		MetadataSnapshotCache cache = new MetadataSnapshotCache(this.directory);
+		cache.put(COORDINATES, "abc", load("metadata/sample-metadata.json"));
+		assertThat(cache.get(COORDINATES, "def")).isNull();
+	}
+
+	@Test
+	public void putWithDifferentChecksumReplacesSnapshot() throws IOException {
+		MetadataSnapshotCache cache = new MetadataSnapshotCache(this.directory);
+		cache.put(COORDINATES, "abc", load("metadata/sample-metadata.json"));
+		cache.put(COORDINATES, "def", load("metadata/sample-metadata.json"));
+		assertThat(cache.get(COORDINATES, "abc")).isNull();
+		assertThat(cache.get(COORDINATES, "def")).isNotNull();
+		try (Stream<Path> files = Files.walk(this.directory)) {
+			assertThat(files.filter(Files::isRegularFile)).hasSize(1);
+		}
+	}
+
+	@Test
+	public void getWithCorruptedSnapshot() throws IOException {
+		MetadataSnapshotCache cache = new MetadataSnapshotCache(this.directory);
+		cache.put(COORDINATES, "abc", load("metadata/sample-metadata.json"));
+		try (Stream<Path> files = Files.walk(this.directory)) {
+			Path snapshot = files.filter(Files::isRegularFile).findFirst().orElseThrow();
+			Files.write(snapshot, new byte[] { 1, 2, 3 });
+		}
+		assertThat(cache.get(COORDINATES, "abc")).isNull();
+	}
+
+	private void assertGroup(ConfigurationMetadataGroup actual, ConfigurationMetadataGroup expected) {
+		assertThat(actual.getProperties()).containsOnlyKeys(expected.getProperties().keySet());
+		assertThat(actual.getSources()).containsOnlyKeys(expected.getSources().keySet());
+		for (ConfigurationMetadataSource source : expected.getSources().values()) {
+			ConfigurationMetadataSource actualSource = actual.getSources().get(source.getType());
+			assertThat(actualSource).usingRecursiveComparison().ignoringFields("properties").isEqualTo(source);
+			assertThat(actualSource.getProperties()).containsOnlyKeys(source.getProperties().keySet());
+		}
+	}
+
+	private void assertProperty(ConfigurationMetadataProperty actual, ConfigurationMetadataProperty expected) {
+		assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
+		if (expected.getDeprecation() != null) {
+			assertThat(actual.getDeprecation().getLevel()).isEqualTo(expected.getDeprecation().getLevel());
+		}
+	}
+
+	@Test
+	public void putAndGetRestoresDeprecation() throws IOException {
+		MetadataSnapshotCache cache = new MetadataSnapshotCache(this.directory);
+		cache.put(COORDINATES, "abc", load("metadata/sample-metadata.json"));
+		ConfigurationMetadataProperty property = cache.get(COORDINATES, "abc")
+			.repository()
+			.getAllProperties()
+			.get("sample.server.address");
+		assertThat(property.getDeprecation().getLevel()).isEqualTo(Deprecation.Level.ERROR);
+		assertThat(property.getDeprecation().getReplacement()).isEqualTo("sample.server.host");
+		assertThat(property.getDeprecation().getShortReason()).isEqualTo("Not supported anymore.");
+	}
+
+	@Test
+	public void putAndGetRestoresValueTypes() throws IOException {
+		MetadataSnapshotCache cache = new MetadataSnapshotCache(this.directory);
+		ConfigurationMetadataRepository repository = load("metadata/sample-metadata.json");
+		Map<String, ConfigurationMetadataProperty> properties = repository.getAllProperties();
+		properties.get("sample.server.address").setDefaultValue(new BigDecimal("0.75"));
+		properties.get("sample.server.ratio").setDefaultValue(new BigInteger("12345678901234567890"));
+		properties.get("sample.server.port").setDefaultValue(Map.of("enabled", true));
+		cache.put(COORDINATES, "abc", repository);
+		Map<String, ConfigurationMetadataProperty> actual = cache.get(COORDINATES, "abc")
+			.repository()
+			.getAllProperties();
+		assertThat(actual.get("sample.server.address").getDefaultValue()).isEqualTo(new BigDecimal("0.75"));
+		assertThat(actual.get("sample.server.ratio").getDefaultValue())
+			.isEqualTo(new BigInteger("12345678901234567890"));
+		assertThat(actual.get("sample.server.port").getDefaultValue()).isEqualTo(Map.of("enabled", true));
+	}
+
+	@Test
+	public void putWithUnsupportedValueDoesNotCacheRepository() throws IOException {
+		MetadataSnapshotCache cache = new MetadataSnapshotCache(this.directory);
+		ConfigurationMetadataRepository repository = load("metadata/sample-metadata.json");
+		repository.getAllProperties().get("sample.server.address").setDefaultValue(new Object());
+		cache.put(COORDINATES, "abc", repository);
+		assertThat(cache.get(COORDINATES, "abc")).isNull();
+		try (Stream<Path> files = Files.walk(this.directory)) {
+			assertThat(files.filter(Files::isRegularFile)).isEmpty();
+		}
+	}
+
+	private ConfigurationMetadataRepository load(String path) throws IOException {
+		try (InputStream in = new ClassPathResource(path).getInputStream()) {
+			return ConfigurationMetadataRepositoryJsonBuilder.create(in).build();
+		}
+	}
+
+}
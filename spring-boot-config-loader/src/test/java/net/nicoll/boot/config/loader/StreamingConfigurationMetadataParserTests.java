@@ -0,0 +1,147 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoll.boot.config.loader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataGroup;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataSource;
+import org.springframework.boot.configurationmetadata.Deprecation;
+import org.springframework.boot.configurationmetadata.Hints;
+import org.springframework.boot.configurationmetadata.ValueHint;
+import org.springframework.boot.configurationmetadata.ValueProvider;
+import org.springframework.core.io.ClassPathResource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link StreamingConfigurationMetadataParser}.
+ *
+ * @author Stephane Nicoll
+ */
+public class StreamingConfigurationMetadataParserTests {
+
+	private final StreamingConfigurationMetadataParser parser = new StreamingConfigurationMetadataParser();
+
+	@Test
+	public void parseIsEquivalentToJsonBuilder() throws IOException {
+		assertEquivalentToJsonBuilder("metadata/sample-metadata.json");
+	}
+
+	@Test
+	public void parseSpringBootMetadataIsEquivalentToJsonBuilder() throws IOException {
+		assertEquivalentToJsonBuilder("metadata/spring-boot-2.7.12.json");
+		ConfigurationMetadataRepository repository = parse(this.parser, "metadata/spring-boot-2.7.12.json");
+		Hints hints = repository.getAllProperties().get("logging.level").getHints();
+		assertThat(hints.getKeyHints()).extracting(ValueHint::getValue).contains("root", "sql", "web");
+		assertThat(hints.getKeyProviders()).extracting(ValueProvider::getName).containsExactly("logger-name");
+		assertThat(hints.getValueHints()).extracting(ValueHint::getValue).contains("trace", "debug", "info");
+	}
+
+	@Test
+	public void parseSpringBootActuatorAutoConfigureMetadataIsEquivalentToJsonBuilder() throws IOException {
+		assertEquivalentToJsonBuilder("metadata/spring-boot-actuator-autoconfigure-2.7.12.json");
+		ConfigurationMetadataRepository repository = parse(this.parser,
+				"metadata/spring-boot-actuator-autoconfigure-2.7.12.json");
+		assertThat(repository.getAllProperties().get("management.endpoint.health.status.order").getDefaultValue())
+			.isEqualTo(new Object[] { "DOWN", "OUT_OF_SERVICE", "UP", "UNKNOWN" });
+		assertThat(repository.getAllProperties()
+			.get("management.metrics.export.graphite.tags-as-prefix")
+			.getDefaultValue()).isEqualTo(new Object[0]);
+	}
+
+	@Test
+	public void parseResolvesNameAgainstGroup() throws IOException {
+		ConfigurationMetadataRepository repository = parse(this.parser, "metadata/sample-metadata.json");
+		assertThat(repository.getAllProperties().get("sample.server.port").getName()).isEqualTo("port");
+		assertThat(repository.getAllProperties().get("sample.legacy").getName()).isEqualTo("sample.legacy");
+	}
+
+	@Test
+	public void parseDeprecation() throws IOException {
+		ConfigurationMetadataRepository repository = parse(this.parser, "metadata/sample-metadata.json");
+		Deprecation deprecation = repository.getAllProperties().get("sample.server.address").getDeprecation();
+		assertThat(deprecation.getLevel()).isEqualTo(Deprecation.Level.ERROR);
+		assertThat(deprecation.getShortReason()).isEqualTo("Not supported anymore.");
+		assertThat(repository.getAllProperties().get("sample.legacy").getDeprecation().getLevel())
+			.isEqualTo(Deprecation.Level.WARNING);
+	}
+
+	@Test
+	public void parseWithHintsBeforeProperties() throws IOException {
+		ConfigurationMetadataRepository repository = this.parser.parse(json("""
+				{ "hints": [ { "name": "test.name", "values": [ { "value": "one" } ] } ],
+				  "properties": [ { "name": "test.name", "type": "java.lang.String" } ] }
+				"""));
+		assertThat(repository.getAllProperties().get("test.name").getHints().getValueHints()).singleElement()
+			.satisfies((hint) -> assertThat(hint.getValue()).isEqualTo("one"));
+	}
+
+	@Test
+	public void parseWithUnknownFields() throws IOException {
+		ConfigurationMetadataRepository repository = this.parser.parse(json("""
+				{ "custom": { "nested": [ 1, 2 ] },
+				  "properties": [ { "name": "test.name", "extra": [ { "a": "b" } ] } ] }
+				"""));
+		assertThat(repository.getAllProperties()).containsOnlyKeys("test.name");
+	}
+
+	@Test
+	public void parseWithPropertyWithNoName() {
+		assertThatIllegalStateException()
+			.isThrownBy(() -> this.parser.parse(json("{ \"properties\": [ { \"type\": \"java.lang.String\" } ] }")))
+			.withMessageContaining("property with no name");
+	}
+
+	private void assertEquivalentToJsonBuilder(String path) throws IOException {
+		ConfigurationMetadataRepository expected = parse(ConfigurationMetadataParser.jsonBuilder(), path);
+		ConfigurationMetadataRepository actual = parse(this.parser, path);
+		assertThat(actual.getAllGroups()).containsOnlyKeys(expected.getAllGroups().keySet());
+		assertThat(actual.getAllProperties()).containsOnlyKeys(expected.getAllProperties().keySet());
+		for (ConfigurationMetadataGroup group : expected.getAllGroups().values()) {
+			ConfigurationMetadataGroup actualGroup = actual.getAllGroups().get(group.getId());
+			assertThat(actualGroup.getProperties()).containsOnlyKeys(group.getProperties().keySet());
+			assertThat(actualGroup.getSources()).containsOnlyKeys(group.getSources().keySet());
+			for (ConfigurationMetadataSource source : group.getSources().values()) {
+				ConfigurationMetadataSource actualSource = actualGroup.getSources().get(source.getType());
+				assertThat(actualSource).usingRecursiveComparison().ignoringFields("properties").isEqualTo(source);
+				assertThat(actualSource.getProperties()).containsOnlyKeys(source.getProperties().keySet());
+			}
+		}
+		for (ConfigurationMetadataProperty property : expected.getAllProperties().values()) {
+			assertThat(actual.getAllProperties().get(property.getId())).usingRecursiveComparison().isEqualTo(property);
+		}
+	}
+
+	private ConfigurationMetadataRepository parse(ConfigurationMetadataParser parser, String path) throws IOException {
+		try (InputStream in = new ClassPathResource(path).getInputStream()) {
+			return parser.parse(in);
+		}
+	}
+
+	private InputStream json(String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
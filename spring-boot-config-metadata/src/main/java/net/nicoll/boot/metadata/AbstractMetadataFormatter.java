@@ -27,6 +27,11 @@ import org.springframework.boot.configurationmetadata.ConfigurationMetadataPrope
  */
 public abstract class AbstractMetadataFormatter {
 
+	/**
+	 * The line separator, appended as is rather than through a {@code %n} format.
+	 */
+	protected static final String NEW_LINE = System.lineSeparator();
+
 	protected List<ConfigurationMetadataGroup> sortGroups(Collection<ConfigurationMetadataGroup> groups) {
 		return MetadataUtils.sortGroups(groups);
 	}
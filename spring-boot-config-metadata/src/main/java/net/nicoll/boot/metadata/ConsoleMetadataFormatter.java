@@ -16,6 +16,8 @@
 
 package net.nicoll.boot.metadata;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
 
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataGroup;
@@ -29,41 +31,60 @@ import org.springframework.util.StringUtils;
  */
 public class ConsoleMetadataFormatter extends AbstractMetadataFormatter implements MetadataFormatter {
 
+	private static final String SEPARATOR = "========================================" + NEW_LINE;
+
 	@Override
-	public String formatMetadata(ConfigurationMetadataRepository repository) {
-		StringBuilder out = new StringBuilder();
+	public void formatMetadata(ConfigurationMetadataRepository repository, Writer out) throws IOException {
 		List<ConfigurationMetadataGroup> groups = sortGroups(repository.getAllGroups().values());
 		for (ConfigurationMetadataGroup group : groups) {
-			out.append(String.format("========================================%n"));
-			StringBuilder sb = new StringBuilder();
+			out.append(SEPARATOR);
+			out.append("Group --- ").append(group.getId()).append("(");
+			String separator = "";
 			for (ConfigurationMetadataSource source : group.getSources().values()) {
-				sb.append(source.getType()).append(" ");
+				out.append(separator).append(source.getType());
+				separator = " ";
 			}
-			out.append(String.format("Group --- %s(%s)%n", group.getId(), sb.toString().trim()));
-			out.append(String.format("========================================%n"));
+			out.append(")").append(NEW_LINE);
+			out.append(SEPARATOR);
 			List<ConfigurationMetadataProperty> properties = sortProperties(group.getProperties().values());
 			for (ConfigurationMetadataProperty property : properties) {
-				out.append(formatProperty(property)).append(System.lineSeparator());
+				formatProperty(property, out);
+				out.append(NEW_LINE);
 			}
 		}
-		return out.toString();
 	}
 
 	public static String formatProperty(ConfigurationMetadataProperty property) {
-		StringBuilder item = new StringBuilder(property.getId()).append("=");
+		StringBuilder item = new StringBuilder();
+		try {
+			formatProperty(property, item);
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException(ex);
+		}
+		return item.toString();
+	}
+
+	/**
+	 * Append the specified property to the specified {@link Appendable}.
+	 * @param property the property to format
+	 * @param out the target
+	 * @throws IOException if the output cannot be written
+	 */
+	public static void formatProperty(ConfigurationMetadataProperty property, Appendable out) throws IOException {
+		out.append(property.getId()).append("=");
 		Object defaultValue = property.getDefaultValue();
 		if (defaultValue != null) {
-			item.append(defaultValueToString(defaultValue));
+			out.append(defaultValueToString(defaultValue));
 		}
-		item.append(" # (").append(property.getType()).append(")");
+		out.append(" # (").append(property.getType()).append(")");
 		String description = property.getShortDescription();
 		if (StringUtils.hasText(description)) {
-			item.append(" - ").append(description);
+			out.append(" - ").append(description);
 		}
 		else {
-			item.append(" --- NO DESCRIPTION");
+			out.append(" --- NO DESCRIPTION");
 		}
-		return item.toString();
 	}
 
 	public static String defaultValueToString(Object defaultValue) {
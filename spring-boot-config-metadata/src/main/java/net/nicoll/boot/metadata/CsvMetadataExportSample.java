@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.nicoll.boot.metadata;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import net.nicoll.boot.config.loader.AetherDependencyResolver;
+import net.nicoll.boot.config.loader.ConfigurationMetadataLoader;
+import net.nicoll.boot.config.loader.MetadataSnapshotCache;
+
+/**
+ * Export the metadata of one or more versions as csv. The first argument is the target:
+ * {@code -} for the standard output, a file, or {@code --groups=<directory>} to write a
+ * file per group in a sub-directory per version. Other arguments are the versions to
+ * export.
+ *
+ * @author Stephane Nicoll
+ * @see CsvMetadataExporter
+ */
+public class CsvMetadataExportSample {
+
+	private static final String GROUPS_PREFIX = "--groups=";
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2) {
+			System.err.println("Usage: (-|<file>|--groups=<directory>) <version>...");
+			System.exit(1);
+		}
+		String target = args[0];
+		List<String> versions = Arrays.asList(args).subList(1, args.length);
+		ConfigurationMetadataLoader loader = new ConfigurationMetadataLoader(
+				AetherDependencyResolver.withAllRepositories());
+		loader.setSnapshotCache(MetadataSnapshotCache.withDefaultLocation());
+		CsvMetadataExporter exporter = new CsvMetadataExporter();
+		if (target.startsWith(GROUPS_PREFIX)) {
+			Path directory = Path.of(target.substring(GROUPS_PREFIX.length()));
+			ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+			try {
+				for (String version : versions) {
+					exporter.exportGroups(version, loader.loadRepository(version), directory.resolve(version),
+							executor);
+				}
+			}
+			finally {
+				executor.shutdown();
+			}
+		}
+		else if (target.equals("-")) {
+			Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+			exporter.export(loader, versions, out);
+			out.flush();
+		}
+		else {
+			try (Writer out = Files.newBufferedWriter(Path.of(target), StandardCharsets.UTF_8)) {
+				exporter.export(loader, versions, out);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.nicoll.boot.metadata;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import net.nicoll.boot.config.loader.ConfigurationMetadataLoader;
+import org.supercsv.io.CsvListWriter;
+import org.supercsv.prefs.CsvPreference;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataGroup;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+import org.springframework.boot.configurationmetadata.Deprecation;
+
+/**
+ * Export configuration metadata as csv, one row per property, for consumption by other
+ * tools. Unlike {@link CsvMetadataFormatter}, rows are streamed to the target as they are
+ * produced and have a fixed set of columns, in the order of {@link #HEADER}. Several
+ * versions can be exported in a single file, the repository of each version being loaded
+ * only when the previous one has been written.
+ *
+ * @author Stephane Nicoll
+ */
+public class CsvMetadataExporter extends AbstractMetadataFormatter {
+
+	/**
+	 * The columns of each row.
+	 */
+	public static final String[] HEADER = { "version", "group", "id", "type", "defaultValue", "description",
+			"deprecationLevel", "deprecationReplacement" };
+
+	/**
+	 * Export the specified repository to the specified {@link Writer}. The writer is not
+	 * closed.
+	 * @param version the version of the repository
+	 * @param repository the repository to export
+	 * @param out the writer to use
+	 * @throws IOException if the output cannot be written
+	 */
+	public void export(String version, ConfigurationMetadataRepository repository, Writer out) throws IOException {
+		CsvListWriter writer = new CsvListWriter(out, CsvPreference.STANDARD_PREFERENCE);
+		writer.writeHeader(HEADER);
+		writeRows(writer, version, repository);
+		writer.flush();
+	}
+
+	/**
+	 * Export the repositories of the specified versions to the specified {@link Writer}.
+	 * The writer is not closed.
+	 * @param loader the loader to use
+	 * @param versions the versions to export
+	 * @param out the writer to use
+	 * @throws IOException if a repository cannot be loaded or the output cannot be
+	 * written
+	 */
+	public void export(ConfigurationMetadataLoader loader, List<String> versions, Writer out) throws IOException {
+		CsvListWriter writer = new CsvListWriter(out, CsvPreference.STANDARD_PREFERENCE);
+		writer.writeHeader(HEADER);
+		for (String version : versions) {
+			writeRows(writer, version, loader.loadRepository(version));
+			writer.flush();
+		}
+	}
+
+	/**
+	 * Export each group of the specified repository in its own file of the specified
+	 * directory, named after the id of the group. Characters that are not safe in a file
+	 * name are replaced by {@code _} and a numeric suffix is added to names that would
+	 * otherwise clash, ignoring case. Groups are written concurrently using the specified
+	 * {@link Executor}.
+	 * @param version the version of the repository
+	 * @param repository the repository to export
+	 * @param directory the directory in which files are written
+	 * @param executor the executor to use to write the files
+	 * @return the files that were written
+	 * @throws IOException if a file cannot be written
+	 */
+	public List<Path> exportGroups(String version, ConfigurationMetadataRepository repository, Path directory,
+			Executor executor) throws IOException {
+		Files.createDirectories(directory);
+		List<Path> files = new ArrayList<>();
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		Set<String> fileNames = new HashSet<>();
+		for (ConfigurationMetadataGroup group : sortGroups(repository.getAllGroups().values())) {
+			Path file = directory.resolve(toFileName(group.getId(), fileNames));
+			files.add(file);
+			futures.add(CompletableFuture.runAsync(() -> exportGroup(version, group, file), executor));
+		}
+		try {
+			CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+		}
+		catch (CompletionException ex) {
+			if (ex.getCause() instanceof UncheckedIOException io) {
+				throw io.getCause();
+			}
+			throw ex;
+		}
+		return files;
+	}
+
+	private void exportGroup(String version, ConfigurationMetadataGroup group, Path file) {
+		try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+				CsvListWriter writer = new CsvListWriter(out, CsvPreference.STANDARD_PREFERENCE)) {
+			writer.writeHeader(HEADER);
+			writeRows(writer, version, group, new String[HEADER.length]);
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException("Failed to export group '" + group.getId() + "'", ex);
+		}
+	}
+
+	private void writeRows(CsvListWriter writer, String version, ConfigurationMetadataRepository repository)
+			throws IOException {
+		String[] row = new String[HEADER.length];
+		for (ConfigurationMetadataGroup group : sortGroups(repository.getAllGroups().values())) {
+			writeRows(writer, version, group, row);
+		}
+	}
+
+	private void writeRows(CsvListWriter writer, String version, ConfigurationMetadataGroup group, String[] row)
+			throws IOException {
+		for (ConfigurationMetadataProperty property : sortProperties(group.getProperties().values())) {
+			Deprecation deprecation = property.getDeprecation();
+			row[0] = version;
+			row[1] = group.getId();
+			row[2] = property.getId();
+			row[3] = property.getType();
+			row[4] = defaultValue(property);
+			row[5] = property.getDescription();
+			row[6] = (deprecation != null && deprecation.getLevel() != null) ? deprecation.getLevel().name() : null;
+			row[7] = (deprecation != null) ? deprecation.getReplacement() : null;
+			writer.write(row);
+		}
+	}
+
+	private String toFileName(String groupId, Set<String> fileNames) {
+		StringBuilder name = new StringBuilder(groupId.length() + 4);
+		for (int i = 0; i < groupId.length(); i++) {
+			char c = groupId.charAt(i);
+			name.append((Character.isLetterOrDigit(c) || c == '.' || c == '-' || c == '_') ? c : '_');
+		}
+		if (name.isEmpty()) {
+			name.append('_');
+		}
+		String candidate = name + ".csv";
+		for (int i = 2; !fileNames.add(candidate.toLowerCase(Locale.ROOT)); i++) {
+			candidate = name + "-" + i + ".csv";
+		}
+		return candidate;
+	}
+
+	/**
+	 * Return the default value of the specified property as a csv cell.
+	 * @param property the property
+	 * @return the default value, with array elements separated by a comma, or
+	 * {@code null} if the property has no default value
+	 */
+	static String defaultValue(ConfigurationMetadataProperty property) {
+		Object defaultValue = property.getDefaultValue();
+		return (defaultValue != null) ? ConsoleMetadataFormatter.defaultValueToString(defaultValue) : null;
+	}
+
+}
@@ -17,15 +17,10 @@
 package net.nicoll.boot.metadata;
 
 import java.io.IOException;
-import java.io.StringWriter;
-import java.util.HashMap;
+import java.io.Writer;
 import java.util.List;
-import java.util.Map;
 
-import org.supercsv.cellprocessor.Optional;
-import org.supercsv.cellprocessor.constraint.NotNull;
-import org.supercsv.cellprocessor.ift.CellProcessor;
-import org.supercsv.io.CsvMapWriter;
+import org.supercsv.io.CsvListWriter;
 import org.supercsv.prefs.CsvPreference;
 
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataGroup;
@@ -34,47 +29,38 @@ import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepos
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataSource;
 
 /**
- * A csv {@link MetadataFormatter}.
+ * A csv {@link MetadataFormatter}. Each group is written as a row with its id and
+ * sources, followed by a row per property with its id, description, default value and
+ * type.
  *
  * @author Stephane Nicoll
  */
 public class CsvMetadataFormatter extends AbstractMetadataFormatter implements MetadataFormatter {
 
-	private static final CellProcessor[] processors = new CellProcessor[] { new NotNull(), // id
-			new Optional(), // description
-			new Optional(), // default value
-			new Optional(), // type
-	};
-
-	private static final String[] header = new String[] { "id", "description", "defaultValue", "type" };
-
 	@Override
-	public String formatMetadata(ConfigurationMetadataRepository repository) throws IOException {
-		StringWriter out = new StringWriter();
-		try (CsvMapWriter writer = new CsvMapWriter(out, CsvPreference.STANDARD_PREFERENCE)) {
-			List<ConfigurationMetadataGroup> groups = sortGroups(repository.getAllGroups().values());
-			Map<String, Object> content = new HashMap<>();
-			for (ConfigurationMetadataGroup group : groups) {
-				content.clear();
-				StringBuilder groupSb = new StringBuilder(group.getId()).append(" - ");
-				for (ConfigurationMetadataSource source : group.getSources().values()) {
-					groupSb.append(source.getType()).append(" ");
-				}
-				content.put("id", groupSb.toString());
-				writer.write(content, header, processors);
-
-				List<ConfigurationMetadataProperty> properties = sortProperties(group.getProperties().values());
-				for (ConfigurationMetadataProperty property : properties) {
-					content.clear();
-					content.put("id", property.getId());
-					content.put("description", property.getShortDescription());
-					content.put("defaultValue", property.getDefaultValue());
-					content.put("type", property.getType());
-					writer.write(content, header, processors);
-				}
+	public void formatMetadata(ConfigurationMetadataRepository repository, Writer out) throws IOException {
+		// Flush rather than close the CSV writer, the target is owned by the caller
+		CsvListWriter writer = new CsvListWriter(out, CsvPreference.STANDARD_PREFERENCE);
+		String[] row = new String[4];
+		List<ConfigurationMetadataGroup> groups = sortGroups(repository.getAllGroups().values());
+		for (ConfigurationMetadataGroup group : groups) {
+			StringBuilder groupSb = new StringBuilder(group.getId()).append(" - ");
+			for (ConfigurationMetadataSource source : group.getSources().values()) {
+				groupSb.append(source.getType()).append(" ");
+			}
+			row[0] = groupSb.toString();
+			row[1] = row[2] = row[3] = null;
+			writer.write(row);
+			List<ConfigurationMetadataProperty> properties = sortProperties(group.getProperties().values());
+			for (ConfigurationMetadataProperty property : properties) {
+				row[0] = property.getId();
+				row[1] = property.getShortDescription();
+				row[2] = CsvMetadataExporter.defaultValue(property);
+				row[3] = property.getType();
+				writer.write(row);
 			}
 		}
-		return out.toString();
+		writer.flush();
 	}
 
 }
@@ -17,6 +17,8 @@
 package net.nicoll.boot.metadata;
 
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
 
@@ -25,6 +27,25 @@ import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepos
  */
 public interface MetadataFormatter {
 
-	String formatMetadata(ConfigurationMetadataRepository repository) throws IOException;
+	/**
+	 * Format the specified repository to the specified {@link Writer}. The writer is not
+	 * closed and should be buffered if it targets a file or a stream.
+	 * @param repository the repository to format
+	 * @param out the writer to use
+	 * @throws IOException if the output cannot be written
+	 */
+	void formatMetadata(ConfigurationMetadataRepository repository, Writer out) throws IOException;
+
+	/**
+	 * Format the specified repository to a {@link String}.
+	 * @param repository the repository to format
+	 * @return the formatted repository
+	 * @throws IOException if the output cannot be written
+	 */
+	default String formatMetadata(ConfigurationMetadataRepository repository) throws IOException {
+		StringWriter out = new StringWriter();
+		formatMetadata(repository, out);
+		return out.toString();
+	}
 
 }
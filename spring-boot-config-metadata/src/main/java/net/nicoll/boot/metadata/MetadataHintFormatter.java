@@ -17,6 +17,7 @@
 package net.nicoll.boot.metadata;
 
 import java.io.IOException;
+import java.io.Writer;
 
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
@@ -28,8 +29,7 @@ import org.springframework.util.StringUtils;
 public class MetadataHintFormatter extends AbstractMetadataFormatter implements MetadataFormatter {
 
 	@Override
-	public String formatMetadata(ConfigurationMetadataRepository repository) {
-		StringBuilder out = new StringBuilder();
+	public void formatMetadata(ConfigurationMetadataRepository repository, Writer out) throws IOException {
 		for (ConfigurationMetadataProperty property : repository.getAllProperties().values()) {
 			if (hasDocumentationHints(property)) {
 				out.append("Hints - ")
@@ -37,10 +37,9 @@ public class MetadataHintFormatter extends AbstractMetadataFormatter implements
 					.append(" (")
 					.append(property.getDescription())
 					.append(")")
-					.append(System.lineSeparator());
+					.append(NEW_LINE);
 			}
 		}
-		return out.toString();
 	}
 
 	private boolean hasDocumentationHints(ConfigurationMetadataProperty property) {
@@ -35,6 +35,9 @@ public abstract class MetadataUtils {
 
 		@Override
 		public int compare(ConfigurationMetadataGroup o1, ConfigurationMetadataGroup o2) {
+			if (o1.getId().equals(o2.getId())) {
+				return 0;
+			}
 			if (ConfigurationMetadataRepository.ROOT_GROUP.equals(o1.getId())) {
 				return -1;
 			}
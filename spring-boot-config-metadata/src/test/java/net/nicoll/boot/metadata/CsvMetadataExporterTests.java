@@ -0,0 +1,113 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoll.boot.metadata;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import net.nicoll.boot.config.loader.ConfigurationMetadataLoader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepositoryJsonBuilder;
+import org.springframework.core.io.ClassPathResource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link CsvMetadataExporter}.
+ *
+ * @author Stephane Nicoll
+ */
+public class CsvMetadataExporterTests {
+
+	private static final String HEADER_LINE = "version,group,id,type,defaultValue,description,deprecationLevel,deprecationReplacement";
+
+	private final CsvMetadataExporter exporter = new CsvMetadataExporter();
+
+	private final Executor executor = Runnable::run;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void exportWritesHeaderAndColumns() throws IOException {
+		StringWriter out = new StringWriter();
+		this.exporter.export("1.0", load("metadata/sample-metadata.json"), out);
+		List<String> lines = out.toString().lines().toList();
+		assertThat(lines).first().isEqualTo(HEADER_LINE);
+		assertThat(lines).hasSize(8)
+			.contains("1.0,sample.server,sample.server.port,java.lang.Integer,8080,Server port.,,",
+					"1.0,sample.server,sample.server.address,java.lang.String,,\"Server address, \"\"quoted\"\".\",ERROR,sample.server.host",
+					"1.0,sample.map_key_,sample.map_key_.names,java.util.List<java.lang.String>,\"a,b\",,,");
+	}
+
+	@Test
+	public void exportSeveralVersionsWritesHeaderOnce() throws IOException {
+		ConfigurationMetadataLoader loader = mock(ConfigurationMetadataLoader.class);
+		given(loader.loadRepository("1.0")).willReturn(load("metadata/sample-metadata.json"));
+		given(loader.loadRepository("2.0")).willReturn(load("metadata/sample-metadata.json"));
+		StringWriter out = new StringWriter();
+		this.exporter.export(loader, List.of("1.0", "2.0"), out);
+		List<String> lines = out.toString().lines().toList();
+		assertThat(lines).hasSize(15).filteredOn(HEADER_LINE::equals).hasSize(1);
+		assertThat(lines).filteredOn((line) -> line.startsWith("1.0,")).hasSize(7);
+		assertThat(lines).filteredOn((line) -> line.startsWith("2.0,")).hasSize(7);
+		assertThat(lines.indexOf("1.0,sample.server,sample.server.port,java.lang.Integer,8080,Server port.,,"))
+			.isLessThan(lines.indexOf("2.0,sample.server,sample.server.port,java.lang.Integer,8080,Server port.,,"));
+	}
+
+	@Test
+	public void exportGroupsWritesOneFilePerGroup() throws IOException {
+		List<Path> files = this.exporter.exportGroups("1.0", load("metadata/sample-metadata.json"), this.directory,
+				this.executor);
+		assertThat(files).hasSize(5).allSatisfy((file) -> assertThat(file).exists());
+		Path server = this.directory.resolve("sample.server.csv");
+		assertThat(files).contains(server);
+		List<String> lines = Files.readAllLines(server);
+		assertThat(lines).hasSize(4).first().isEqualTo(HEADER_LINE);
+		assertThat(lines.subList(1, lines.size()))
+			.allSatisfy((line) -> assertThat(line).startsWith("1.0,sample.server,sample.server."));
+	}
+
+	@Test
+	public void exportGroupsWithClashingNamesAddsSuffix() throws IOException {
+		List<Path> files = this.exporter.exportGroups("1.0", load("metadata/sample-metadata.json"), this.directory,
+				this.executor);
+		assertThat(files).extracting((file) -> file.getFileName().toString())
+			.containsExactlyInAnyOrder("sample.server.csv", "sample.Case.csv", "sample.case-2.csv",
+					"sample.map_key_.csv", "sample.map_key_-2.csv");
+		for (String name : List.of("sample.Case.csv", "sample.case-2.csv", "sample.map_key_.csv",
+				"sample.map_key_-2.csv")) {
+			assertThat(Files.readAllLines(this.directory.resolve(name))).hasSize(2);
+		}
+	}
+
+	private ConfigurationMetadataRepository load(String path) throws IOException {
+		try (InputStream in = new ClassPathResource(path).getInputStream()) {
+			return ConfigurationMetadataRepositoryJsonBuilder.create(in).build();
+		}
+	}
+
+}
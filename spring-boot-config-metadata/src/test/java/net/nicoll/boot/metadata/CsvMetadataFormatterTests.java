@@ -0,0 +1,77 @@
+/*
+ * Copyright 2012-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.nicoll.boot.metadata;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepositoryJsonBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.StreamUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link CsvMetadataFormatter}.
+ *
+ * @author Stephane Nicoll
+ */
+public class CsvMetadataFormatterTests {
+
+	private final CsvMetadataFormatter formatter = new CsvMetadataFormatter();
+
+	@Test
+	public void formatMetadata() throws IOException {
+		assertThat(this.formatter.formatMetadata(load("metadata/sample-metadata.json")))
+			.isEqualToNormalizingNewlines(read("golden/sample-metadata.csv"));
+	}
+
+	@Test
+	public void formatMetadataWithArrayDefaultValue() throws IOException {
+		ConfigurationMetadataRepository repository = load("metadata/sample-metadata.json");
+		assertThat(repository.getAllProperties().get("sample.map_key_.names").getDefaultValue())
+			.isInstanceOf(Object[].class);
+		assertThat(this.formatter.formatMetadata(repository).lines())
+			.contains("sample.map_key_.names,,\"a,b\",java.util.List<java.lang.String>");
+	}
+
+	@Test
+	public void formatMetadataToWriter() throws IOException {
+		ConfigurationMetadataRepository repository = load("metadata/sample-metadata.json");
+		StringWriter out = new StringWriter();
+		this.formatter.formatMetadata(repository, out);
+		assertThat(out.toString()).isEqualTo(this.formatter.formatMetadata(repository));
+	}
+
+	private ConfigurationMetadataRepository load(String path) throws IOException {
+		try (InputStream in = new ClassPathResource(path).getInputStream()) {
+			return ConfigurationMetadataRepositoryJsonBuilder.create(in).build();
+		}
+	}
+
+	private String read(String path) throws IOException {
+		try (InputStream in = new ClassPathResource(path).getInputStream()) {
+			return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+		}
+	}
+
+}